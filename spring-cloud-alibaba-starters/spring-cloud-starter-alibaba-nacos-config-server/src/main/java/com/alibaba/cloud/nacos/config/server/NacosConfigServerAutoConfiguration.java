@@ -16,15 +16,28 @@
 
 package com.alibaba.cloud.nacos.config.server;
 
+import com.alibaba.cloud.nacos.config.server.environment.NacosEnvironmentAsyncController;
+import com.alibaba.cloud.nacos.config.server.environment.NacosEnvironmentCache;
+import com.alibaba.cloud.nacos.config.server.environment.NacosEnvironmentCacheMeterBinder;
+import com.alibaba.cloud.nacos.config.server.environment.NacosEnvironmentETagInterceptor;
 import com.alibaba.cloud.nacos.config.server.environment.NacosEnvironmentRepository;
+import com.alibaba.cloud.nacos.config.server.environment.NacosEnvironmentWatchController;
+import io.micrometer.core.instrument.binder.MeterBinder;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.config.server.EnableConfigServer;
 import org.springframework.cloud.config.server.config.ConfigServerAutoConfiguration;
+import org.springframework.cloud.config.server.environment.EnvironmentRepository;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 /**
  * Nacos Config Server Auto-Configuration.
@@ -37,11 +50,92 @@ import org.springframework.context.annotation.Configuration;
 @ComponentScan(basePackages = { "com.alibaba.nacos.config.server" })
 @AutoConfigureBefore(ConfigServerAutoConfiguration.class)
 @Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(NacosConfigServerProperties.class)
 public class NacosConfigServerAutoConfiguration {
 
 	@Bean
-	public NacosEnvironmentRepository nacosEnvironmentRepository() {
-		return new NacosEnvironmentRepository();
+	@ConditionalOnProperty(value = NacosConfigServerProperties.PREFIX
+			+ ".environment-cache-enabled", matchIfMissing = true)
+	public NacosEnvironmentCache nacosEnvironmentCache(
+			NacosConfigServerProperties properties) {
+		return new NacosEnvironmentCache(properties.getEnvironmentCacheSize());
+	}
+
+	@Bean
+	public NacosEnvironmentRepository nacosEnvironmentRepository(
+			ObjectProvider<NacosEnvironmentCache> environmentCache) {
+		return new NacosEnvironmentRepository(environmentCache.getIfAvailable());
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+	@ConditionalOnClass(WebMvcConfigurer.class)
+	@ConditionalOnProperty(value = NacosConfigServerProperties.PREFIX
+			+ ".environment-cache-enabled", matchIfMissing = true)
+	static class NacosEnvironmentETagConfiguration {
+
+		@Bean
+		public WebMvcConfigurer nacosEnvironmentETagConfigurer(
+				NacosEnvironmentCache environmentCache,
+				ObjectProvider<EnvironmentRepository> repository) {
+			return new WebMvcConfigurer() {
+				@Override
+				public void addInterceptors(InterceptorRegistry registry) {
+					registry.addInterceptor(new NacosEnvironmentETagInterceptor(
+							environmentCache, repository.getIfAvailable()));
+				}
+			};
+		}
+
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+	@ConditionalOnProperty(NacosConfigServerProperties.PREFIX + ".async-enabled")
+	static class NacosEnvironmentAsyncConfiguration {
+
+		@Bean
+		public NacosEnvironmentAsyncController nacosEnvironmentAsyncController(
+				EnvironmentRepository repository,
+				ObjectProvider<NacosEnvironmentCache> environmentCache,
+				NacosConfigServerProperties properties) {
+			return new NacosEnvironmentAsyncController(repository,
+					environmentCache.getIfAvailable(), properties.getAsyncPoolSize(),
+					properties.getAsyncQueueCapacity());
+		}
+
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+	@ConditionalOnProperty(NacosConfigServerProperties.PREFIX + ".watch-enabled")
+	static class NacosEnvironmentWatchConfiguration {
+
+		@Bean
+		@ConditionalOnProperty(value = NacosConfigServerProperties.PREFIX
+				+ ".environment-cache-enabled", matchIfMissing = true)
+		public NacosEnvironmentWatchController nacosEnvironmentWatchController(
+				NacosEnvironmentRepository repository,
+				NacosEnvironmentCache environmentCache,
+				NacosConfigServerProperties properties) {
+			return new NacosEnvironmentWatchController(repository, environmentCache,
+					properties.getWatchTimeout(), properties.getWatchMaxTimeout());
+		}
+
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnClass(MeterBinder.class)
+	@ConditionalOnProperty(value = NacosConfigServerProperties.PREFIX
+			+ ".environment-cache-enabled", matchIfMissing = true)
+	static class NacosEnvironmentCacheMeterBinderConfiguration {
+
+		@Bean
+		public NacosEnvironmentCacheMeterBinder nacosEnvironmentCacheMeterBinder(
+				NacosEnvironmentCache environmentCache) {
+			return new NacosEnvironmentCacheMeterBinder(environmentCache);
+		}
+
 	}
 
 }
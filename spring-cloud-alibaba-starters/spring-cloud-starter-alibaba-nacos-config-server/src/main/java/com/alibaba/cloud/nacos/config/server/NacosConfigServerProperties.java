@@ -0,0 +1,169 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.config.server;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Properties of the Nacos backed config server.
+ *
+ * @author chengrui
+ */
+@ConfigurationProperties(NacosConfigServerProperties.PREFIX)
+public class NacosConfigServerProperties {
+
+	/**
+	 * Prefix of {@link NacosConfigServerProperties}.
+	 */
+	public static final String PREFIX = "spring.cloud.nacos.config.server";
+
+	/**
+	 * whether the built environments are cached until their configs change.
+	 */
+	private boolean environmentCacheEnabled = true;
+
+	/**
+	 * the maximum number of cached environments, the least recently used one is
+	 * evicted first.
+	 */
+	private int environmentCacheSize = 512;
+
+	/**
+	 * whether the environments are served asynchronously under the async path as well,
+	 * see NacosEnvironmentAsyncController.
+	 */
+	private boolean asyncEnabled = false;
+
+	/**
+	 * the path the environments are served asynchronously under.
+	 */
+	private String asyncPath = "/nacos-async";
+
+	/**
+	 * the number of threads loading the environments served asynchronously.
+	 */
+	private int asyncPoolSize = 16;
+
+	/**
+	 * the number of asynchronous requests waiting for a thread, the exceeding ones are
+	 * answered with 503.
+	 */
+	private int asyncQueueCapacity = 1024;
+
+	/**
+	 * whether the environments can be long polled under the watch path, see
+	 * NacosEnvironmentWatchController. Requires the environment cache.
+	 */
+	private boolean watchEnabled = false;
+
+	/**
+	 * the path the environments are long polled under.
+	 */
+	private String watchPath = "/nacos-watch";
+
+	/**
+	 * the time a long polling request waits for a change when it does not tell one, in
+	 * milliseconds.
+	 */
+	private long watchTimeout = 30000;
+
+	/**
+	 * the maximum time a long polling request waits for a change, in milliseconds.
+	 */
+	private long watchMaxTimeout = 120000;
+
+	public boolean isEnvironmentCacheEnabled() {
+		return environmentCacheEnabled;
+	}
+
+	public void setEnvironmentCacheEnabled(boolean environmentCacheEnabled) {
+		this.environmentCacheEnabled = environmentCacheEnabled;
+	}
+
+	public int getEnvironmentCacheSize() {
+		return environmentCacheSize;
+	}
+
+	public void setEnvironmentCacheSize(int environmentCacheSize) {
+		this.environmentCacheSize = environmentCacheSize;
+	}
+
+	public boolean isAsyncEnabled() {
+		return asyncEnabled;
+	}
+
+	public void setAsyncEnabled(boolean asyncEnabled) {
+		this.asyncEnabled = asyncEnabled;
+	}
+
+	public String getAsyncPath() {
+		return asyncPath;
+	}
+
+	public void setAsyncPath(String asyncPath) {
+		this.asyncPath = asyncPath;
+	}
+
+	public int getAsyncPoolSize() {
+		return asyncPoolSize;
+	}
+
+	public void setAsyncPoolSize(int asyncPoolSize) {
+		this.asyncPoolSize = asyncPoolSize;
+	}
+
+	public int getAsyncQueueCapacity() {
+		return asyncQueueCapacity;
+	}
+
+	public void setAsyncQueueCapacity(int asyncQueueCapacity) {
+		this.asyncQueueCapacity = asyncQueueCapacity;
+	}
+
+	public boolean isWatchEnabled() {
+		return watchEnabled;
+	}
+
+	public void setWatchEnabled(boolean watchEnabled) {
+		this.watchEnabled = watchEnabled;
+	}
+
+	public String getWatchPath() {
+		return watchPath;
+	}
+
+	public void setWatchPath(String watchPath) {
+		this.watchPath = watchPath;
+	}
+
+	public long getWatchTimeout() {
+		return watchTimeout;
+	}
+
+	public void setWatchTimeout(long watchTimeout) {
+		this.watchTimeout = watchTimeout;
+	}
+
+	public long getWatchMaxTimeout() {
+		return watchMaxTimeout;
+	}
+
+	public void setWatchMaxTimeout(long watchMaxTimeout) {
+		this.watchMaxTimeout = watchMaxTimeout;
+	}
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.config.server.environment;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Consumer;
+
+import com.alibaba.nacos.config.server.service.ConfigDataChangeEvent;
+import com.alibaba.nacos.config.server.service.LocalDataChangeEvent;
+import com.alibaba.nacos.config.server.utils.event.EventDispatcher;
+
+/**
+ * The single listener of the Nacos config changes, forwarding them to the live
+ * subscribers.
+ * <p>
+ * The Nacos {@link EventDispatcher} is static and can not remove a listener, so the
+ * listener is registered once and a closed bean only unsubscribes, instead of staying
+ * reachable from the dispatcher.
+ *
+ * @author chengrui
+ */
+final class NacosConfigChangeListener extends EventDispatcher.AbstractEventListener {
+
+	private static final Set<Consumer<EventDispatcher.Event>> SUBSCRIBERS = new CopyOnWriteArraySet<>();
+
+	/**
+	 * Registered to the Nacos event dispatcher by its constructor, when the first
+	 * subscriber initializes this class.
+	 */
+	private static final NacosConfigChangeListener INSTANCE = new NacosConfigChangeListener();
+
+	private NacosConfigChangeListener() {
+	}
+
+	/**
+	 * @param subscriber receives the {@link LocalDataChangeEvent}s and
+	 * {@link ConfigDataChangeEvent}s, on the publishing thread
+	 */
+	static void subscribe(Consumer<EventDispatcher.Event> subscriber) {
+		SUBSCRIBERS.add(subscriber);
+	}
+
+	static void unsubscribe(Consumer<EventDispatcher.Event> subscriber) {
+		SUBSCRIBERS.remove(subscriber);
+	}
+
+	@Override
+	public List<Class<? extends EventDispatcher.Event>> interest() {
+		return Arrays.asList(LocalDataChangeEvent.class, ConfigDataChangeEvent.class);
+	}
+
+	@Override
+	public void onEvent(EventDispatcher.Event event) {
+		for (Consumer<EventDispatcher.Event> subscriber : SUBSCRIBERS) {
+			subscriber.accept(event);
+		}
+	}
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.config.server.environment;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.cloud.config.server.environment.EnvironmentController;
+import org.springframework.cloud.config.server.environment.EnvironmentRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Serve the environments of the primary {@link EnvironmentRepository} like
+ * {@link EnvironmentController}, without holding a servlet thread while an environment
+ * is loaded.
+ * <p>
+ * An environment cached by {@link NacosEnvironmentCache} is answered on the request
+ * thread. Otherwise the environment is loaded from the repository on a bounded pool
+ * and the request is completed asynchronously; a request exceeding the queue of the
+ * pool is answered with {@code 503 Service Unavailable}, so the clients retry instead
+ * of piling up on the database.
+ *
+ * @author chengrui
+ */
+@RestController
+@RequestMapping(path = "${spring.cloud.nacos.config.server.async-path:/nacos-async}",
+		produces = MediaType.APPLICATION_JSON_VALUE)
+public class NacosEnvironmentAsyncController implements DisposableBean {
+
+	private final EnvironmentRepository repository;
+
+	private final NacosEnvironmentCache environmentCache;
+
+	private final ThreadPoolExecutor executor;
+
+	/**
+	 * @param repository the repository loading the environments
+	 * @param environmentCache the cache of {@link NacosEnvironmentRepository}, may be
+	 * null, only used when it is the repository
+	 * @param poolSize the number of threads loading environments
+	 * @param queueCapacity the number of requests waiting for a thread
+	 */
+	public NacosEnvironmentAsyncController(EnvironmentRepository repository,
+			NacosEnvironmentCache environmentCache, int poolSize, int queueCapacity) {
+		this.repository = repository;
+		// the cache only holds what the repository serves when it is the Nacos one, not
+		// e.g. a composite of it.
+		this.environmentCache = repository instanceof NacosEnvironmentRepository
+				? environmentCache : null;
+		AtomicInteger threadNumber = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(Math.max(1, poolSize),
+				Math.max(1, poolSize), 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+					Thread thread = new Thread(runnable,
+							"com.alibaba.cloud.nacos.config.server.environment-"
+									+ threadNumber.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+
+	@GetMapping("/{name}/{profiles}")
+	public CompletableFuture<Environment> defaultLabel(@PathVariable String name,
+			@PathVariable String profiles) {
+		return labelled(name, profiles, null);
+	}
+
+	@GetMapping("/{name}/{profiles}/{label}")
+	public CompletableFuture<Environment> labelled(@PathVariable String name,
+			@PathVariable String profiles, @PathVariable String label) {
+		String application = Environment.normalize(name);
+		String normalizedLabel = Environment.normalize(label);
+		if (environmentCache != null) {
+			Environment environment = environmentCache.getIfPresent(application,
+					profiles, normalizedLabel);
+			if (environment != null) {
+				return CompletableFuture.completedFuture(environment);
+			}
+		}
+		try {
+			return CompletableFuture.supplyAsync(
+					() -> repository.findOne(application, profiles, normalizedLabel),
+					executor);
+		}
+		catch (RejectedExecutionException e) {
+			throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+					"Too many environments are being loaded", e);
+		}
+	}
+
+	/**
+	 * @return the number of requests waiting for a thread
+	 */
+	public int getQueueSize() {
+		return executor.getQueue().size();
+	}
+
+	@Override
+	public void destroy() {
+		executor.shutdownNow();
+	}
+
+}
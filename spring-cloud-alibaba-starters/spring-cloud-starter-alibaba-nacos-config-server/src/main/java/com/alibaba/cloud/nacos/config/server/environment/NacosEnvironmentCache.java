@@ -0,0 +1,324 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.config.server.environment;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import com.alibaba.nacos.config.server.service.ConfigDataChangeEvent;
+import com.alibaba.nacos.config.server.service.ConfigService;
+import com.alibaba.nacos.config.server.service.LocalDataChangeEvent;
+import com.alibaba.nacos.config.server.utils.GroupKey2;
+import com.alibaba.nacos.config.server.utils.event.EventDispatcher;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.cloud.config.environment.PropertySource;
+import org.springframework.util.DigestUtils;
+
+/**
+ * Bounded cache of the environments built by {@link NacosEnvironmentRepository}, keyed
+ * by application, profile and label.
+ * <p>
+ * An environment remembers the md5 of every config it was built from. It is evicted
+ * when Nacos publishes a change of one of them, and checked against the md5 held by the
+ * Nacos config cache before being served, so a missed event never serves a stale
+ * environment. The version of a cached environment is derived from these md5, see
+ * {@link #getVersion(String, String, String)}.
+ *
+ * @author chengrui
+ */
+public class NacosEnvironmentCache implements DisposableBean {
+
+	private final int maxSize;
+
+	private final Map<String, CachedEnvironment> environments;
+
+	/**
+	 * Incremented on every invalidation, an environment loaded across one is not cached.
+	 */
+	private final AtomicLong generation = new AtomicLong();
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	private final AtomicLong evictionCount = new AtomicLong();
+
+	private final Consumer<EventDispatcher.Event> changeListener = this::onChange;
+
+	public NacosEnvironmentCache(int maxSize) {
+		this.maxSize = Math.max(1, maxSize);
+		this.environments = new LinkedHashMap<String, CachedEnvironment>(16, 0.75f,
+				true) {
+			@Override
+			protected boolean removeEldestEntry(
+					Map.Entry<String, CachedEnvironment> eldest) {
+				if (size() > NacosEnvironmentCache.this.maxSize) {
+					evictionCount.incrementAndGet();
+					return true;
+				}
+				return false;
+			}
+		};
+		NacosConfigChangeListener.subscribe(changeListener);
+	}
+
+	/**
+	 * Get the cached environment, or load and cache it.
+	 * @param application application
+	 * @param profile profile
+	 * @param label label
+	 * @param loader builds the environment and tells the configs it depends on
+	 * @return a copy of the environment, sharing its read-only property sources
+	 */
+	public Environment get(String application, String profile, String label,
+			Supplier<Sources> loader) {
+		String key = getKey(application, profile, label);
+		CachedEnvironment cached = getValid(key);
+		if (cached != null) {
+			hitCount.incrementAndGet();
+			return copy(cached.environment);
+		}
+		missCount.incrementAndGet();
+		long loadGeneration = generation.get();
+		Sources sources = loader.get();
+		cached = new CachedEnvironment(sources);
+		synchronized (environments) {
+			if (loadGeneration == generation.get()) {
+				environments.put(key, cached);
+			}
+		}
+		return copy(cached.environment);
+	}
+
+	/**
+	 * @param application application
+	 * @param profile profile
+	 * @param label label
+	 * @return a copy of the cached environment, or null if none is cached
+	 */
+	public Environment getIfPresent(String application, String profile, String label) {
+		CachedEnvironment cached = getValid(getKey(application, profile, label));
+		if (cached == null) {
+			return null;
+		}
+		hitCount.incrementAndGet();
+		return copy(cached.environment);
+	}
+
+	/**
+	 * @param application application
+	 * @param profile profile
+	 * @param label label
+	 * @return the version of the cached environment, or null if none is cached
+	 */
+	public String getVersion(String application, String profile, String label) {
+		CachedEnvironment cached = getValid(getKey(application, profile, label));
+		return cached == null ? null : cached.environment.getVersion();
+	}
+
+	/**
+	 * @param application application
+	 * @param profile profile
+	 * @param label label
+	 * @return the Nacos group keys of the configs the cached environment is built from,
+	 * or null if none is cached
+	 */
+	public Set<String> getGroupKeys(String application, String profile, String label) {
+		CachedEnvironment cached = getValid(getKey(application, profile, label));
+		return cached == null ? null : Collections.unmodifiableSet(cached.md5s.keySet());
+	}
+
+	/**
+	 * Evict the environments built from a config.
+	 * @param groupKey the Nacos group key of the config
+	 */
+	public void invalidate(String groupKey) {
+		synchronized (environments) {
+			generation.incrementAndGet();
+			for (Iterator<CachedEnvironment> iterator = environments.values()
+					.iterator(); iterator.hasNext();) {
+				if (iterator.next().md5s.containsKey(groupKey)) {
+					iterator.remove();
+				}
+			}
+		}
+	}
+
+	public void clear() {
+		synchronized (environments) {
+			generation.incrementAndGet();
+			environments.clear();
+		}
+	}
+
+	@Override
+	public void destroy() {
+		NacosConfigChangeListener.unsubscribe(changeListener);
+	}
+
+	public int size() {
+		synchronized (environments) {
+			return environments.size();
+		}
+	}
+
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	public long getEvictionCount() {
+		return evictionCount.get();
+	}
+
+	private CachedEnvironment getValid(String key) {
+		CachedEnvironment cached;
+		synchronized (environments) {
+			cached = environments.get(key);
+		}
+		if (cached == null) {
+			return null;
+		}
+		if (!cached.isUpToDate()) {
+			synchronized (environments) {
+				environments.remove(key, cached);
+			}
+			return null;
+		}
+		return cached;
+	}
+
+	/**
+	 * Evict the environments of a changed config.
+	 */
+	private void onChange(EventDispatcher.Event event) {
+		if (event instanceof LocalDataChangeEvent) {
+			invalidate(((LocalDataChangeEvent) event).groupKey);
+		}
+		else if (event instanceof ConfigDataChangeEvent) {
+			ConfigDataChangeEvent changeEvent = (ConfigDataChangeEvent) event;
+			invalidate(GroupKey2.getKey(changeEvent.dataId, changeEvent.group,
+					changeEvent.tenant));
+		}
+	}
+
+	private static String getKey(String application, String profile, String label) {
+		return application + ',' + profile + ',' + label;
+	}
+
+	private static Environment copy(Environment environment) {
+		Environment copy = new Environment(environment.getName(),
+				environment.getProfiles(), environment.getLabel(),
+				environment.getVersion(), environment.getState());
+		copy.addAll(environment.getPropertySources());
+		return copy;
+	}
+
+	/**
+	 * An environment and the md5 of the configs it was built from, keyed by the Nacos
+	 * group key of each config. The md5 must be read before the content, so that a
+	 * change in between is detected.
+	 */
+	public static class Sources {
+
+		private final Map<String, String> md5s = new LinkedHashMap<>();
+
+		private Environment environment;
+
+		public Environment getEnvironment() {
+			return environment;
+		}
+
+		public void setEnvironment(Environment environment) {
+			this.environment = environment;
+		}
+
+		/**
+		 * Record a config the environment is built from.
+		 * @param dataId dataId
+		 * @param group group
+		 * @param tenant tenant, may be null
+		 * @return the md5 of the config held by the Nacos config cache, empty if the
+		 * config does not exist
+		 */
+		public String addConfig(String dataId, String group, String tenant) {
+			String groupKey = GroupKey2.getKey(dataId, group, tenant);
+			String md5 = ConfigService.getContentMd5(groupKey);
+			md5s.put(groupKey, md5);
+			return md5;
+		}
+
+	}
+
+	private static final class CachedEnvironment {
+
+		private final Environment environment;
+
+		private final Map<String, String> md5s;
+
+		private CachedEnvironment(Sources sources) {
+			this.md5s = sources.md5s;
+			Environment source = sources.environment;
+			this.environment = new Environment(source.getName(), source.getProfiles(),
+					source.getLabel(), version(md5s), source.getState());
+			List<PropertySource> propertySources = new ArrayList<>();
+			for (PropertySource propertySource : source.getPropertySources()) {
+				propertySources.add(new PropertySource(propertySource.getName(),
+						Collections.unmodifiableMap(propertySource.getSource())));
+			}
+			this.environment.addAll(propertySources);
+		}
+
+		private boolean isUpToDate() {
+			for (Map.Entry<String, String> entry : md5s.entrySet()) {
+				if (!Objects.equals(entry.getValue(),
+						ConfigService.getContentMd5(entry.getKey()))) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private static String version(Map<String, String> md5s) {
+			StringBuilder builder = new StringBuilder();
+			for (Map.Entry<String, String> entry : new TreeMap<>(md5s).entrySet()) {
+				builder.append(entry.getKey()).append('=').append(entry.getValue())
+						.append('\n');
+			}
+			return DigestUtils.md5DigestAsHex(
+					builder.toString().getBytes(StandardCharsets.UTF_8));
+		}
+
+	}
+
+}
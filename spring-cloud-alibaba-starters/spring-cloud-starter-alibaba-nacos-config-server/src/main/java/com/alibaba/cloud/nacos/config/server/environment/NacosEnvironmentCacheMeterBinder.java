@@ -0,0 +1,60 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.config.server.environment;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Expose the hits, misses and evictions of the {@link NacosEnvironmentCache}.
+ *
+ * @author chengrui
+ */
+public class NacosEnvironmentCacheMeterBinder implements MeterBinder {
+
+	private static final String PREFIX = "nacos.config.server.environment.cache";
+
+	private final NacosEnvironmentCache environmentCache;
+
+	public NacosEnvironmentCacheMeterBinder(NacosEnvironmentCache environmentCache) {
+		this.environmentCache = environmentCache;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter
+				.builder(PREFIX + ".gets", environmentCache,
+						NacosEnvironmentCache::getHitCount)
+				.tag("result", "hit").description("Environments served from cache")
+				.register(registry);
+		FunctionCounter
+				.builder(PREFIX + ".gets", environmentCache,
+						NacosEnvironmentCache::getMissCount)
+				.tag("result", "miss").description("Environments loaded from Nacos")
+				.register(registry);
+		FunctionCounter
+				.builder(PREFIX + ".evictions", environmentCache,
+						NacosEnvironmentCache::getEvictionCount)
+				.description("Environments evicted because the cache is full")
+				.register(registry);
+		Gauge.builder(PREFIX + ".size", environmentCache, NacosEnvironmentCache::size)
+				.description("Cached environments").register(registry);
+	}
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.config.server.environment;
+
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.cloud.config.server.environment.EnvironmentController;
+import org.springframework.cloud.config.server.environment.EnvironmentRepository;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Answer the {@link EnvironmentController} and {@link NacosEnvironmentAsyncController}
+ * requests of a client holding the current
+ * version of a cached environment with {@code 304 Not Modified}, without loading the
+ * environment. The ETag is the version of the environment, see
+ * {@link NacosEnvironmentCache#getVersion(String, String, String)}.
+ * <p>
+ * The cache only tells the version of what is served when the primary
+ * {@link EnvironmentRepository} is the {@link NacosEnvironmentRepository}. With e.g. a
+ * composite of it and a git repository, every request is handled.
+ *
+ * @author chengrui
+ */
+public class NacosEnvironmentETagInterceptor implements HandlerInterceptor {
+
+	private final NacosEnvironmentCache environmentCache;
+
+	/**
+	 * @param environmentCache the cache of {@link NacosEnvironmentRepository}
+	 * @param repository the primary repository, serving the environments
+	 */
+	public NacosEnvironmentETagInterceptor(NacosEnvironmentCache environmentCache,
+			EnvironmentRepository repository) {
+		this.environmentCache = repository instanceof NacosEnvironmentRepository
+				? environmentCache : null;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+			Object handler) {
+		if (environmentCache == null || !(handler instanceof HandlerMethod)
+				|| !isEnvironmentHandler(((HandlerMethod) handler).getBeanType())) {
+			return true;
+		}
+		Map<?, ?> variables = (Map<?, ?>) request
+				.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+		if (variables == null || variables.get("name") == null
+				|| variables.get("profiles") == null) {
+			return true;
+		}
+		String version = environmentCache.getVersion(
+				Environment.normalize((String) variables.get("name")),
+				(String) variables.get("profiles"),
+				Environment.normalize((String) variables.get("label")));
+		if (version == null) {
+			return true;
+		}
+		// the handler method tells the representation, e.g. yaml or properties.
+		String etag = "\"" + version + "-"
+				+ ((HandlerMethod) handler).getMethod().getName() + "\"";
+		return !new ServletWebRequest(request, response).checkNotModified(etag);
+	}
+
+	private static boolean isEnvironmentHandler(Class<?> beanType) {
+		return EnvironmentController.class.isAssignableFrom(beanType)
+				|| NacosEnvironmentAsyncController.class.isAssignableFrom(beanType);
+	}
+
+}
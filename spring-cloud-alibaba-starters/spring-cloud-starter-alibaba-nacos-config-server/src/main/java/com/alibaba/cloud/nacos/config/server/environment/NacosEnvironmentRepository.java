@@ -18,68 +18,208 @@ package com.alibaba.cloud.nacos.config.server.environment;
 
 import java.io.IOException;
 import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 
 import com.alibaba.nacos.config.server.model.ConfigInfo;
 import com.alibaba.nacos.config.server.service.PersistService;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.env.OriginTrackedMapPropertySource;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.boot.origin.OriginTrackedValue;
 import org.springframework.cloud.config.environment.Environment;
 import org.springframework.cloud.config.environment.PropertySource;
 import org.springframework.cloud.config.server.environment.EnvironmentRepository;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.util.StringUtils;
 
 import static com.alibaba.nacos.config.server.constant.Constants.DEFAULT_GROUP;
 
 /**
  * Nacos {@link EnvironmentRepository}.
+ * <p>
+ * The environment of {@code application} and the comma separated {@code profile} is
+ * composed of the configs {@code {application}-{profile}.{extension}} and
+ * {@code {application}.{extension}} in {@code DEFAULT_GROUP}, together with the
+ * configs shared by all applications, {@code application-{profile}.{extension}} and
+ * {@code application.{extension}}. The later profile wins over the former, a profile
+ * specific config over the default one, and the config of the application over the
+ * shared one. The label is the Nacos tenant.
  *
  * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
  * @since 0.2.0
  */
 public class NacosEnvironmentRepository implements EnvironmentRepository {
 
+	private static final String SHARED_APPLICATION = "application";
+
+	private static final String DEFAULT_PROFILE = "default";
+
+	/**
+	 * The supported extensions, in order of precedence for the same name.
+	 */
+	private static final List<String> FILE_EXTENSIONS = Arrays.asList("properties",
+			"yaml", "yml", "json");
+
+	/**
+	 * The number of dataIds looked up by one query, the batch size is capped by
+	 * {@link PersistService#findConfigInfoByBatch} as well.
+	 */
+	private static final int BATCH_SIZE = 50;
+
+	private final YamlPropertySourceLoader yamlLoader = new YamlPropertySourceLoader();
+
 	@Autowired
 	private PersistService persistService;
 
-	@Override
-	public Environment findOne(String application, String profile, String label) {
+	private final NacosEnvironmentCache environmentCache;
 
-		String dataId = application + "-" + profile + ".properties";
+	public NacosEnvironmentRepository() {
+		this(null);
+	}
 
-		ConfigInfo configInfo = persistService.findConfigInfo(dataId, DEFAULT_GROUP,
-				label);
+	/**
+	 * @param environmentCache caches the built environments, may be null
+	 */
+	public NacosEnvironmentRepository(NacosEnvironmentCache environmentCache) {
+		this.environmentCache = environmentCache;
+	}
 
-		return createEnvironment(configInfo, application, profile);
+	@Override
+	public Environment findOne(String application, String profile, String label) {
+		if (environmentCache == null) {
+			return loadEnvironment(application, profile, label).getEnvironment();
+		}
+		return environmentCache.get(application, profile, label,
+				() -> loadEnvironment(application, profile, label));
 	}
 
-	private Environment createEnvironment(ConfigInfo configInfo, String application,
-			String profile) {
+	private NacosEnvironmentCache.Sources loadEnvironment(String application,
+			String profile, String label) {
 
-		Environment environment = new Environment(application, profile);
+		String[] profiles = profiles(profile);
+		List<String> dataIds = dataIds(application, profiles);
 
-		Properties properties = createProperties(configInfo);
+		NacosEnvironmentCache.Sources sources = new NacosEnvironmentCache.Sources();
+		// the md5 is read before the content, a change in between is detected later.
+		// the missing configs are recorded too, so that creating one is detected.
+		for (String dataId : dataIds) {
+			sources.addConfig(dataId, DEFAULT_GROUP, label);
+		}
 
-		String propertySourceName = String
-				.format("Nacos[application : %s , profile : %s]", application, profile);
+		Map<String, ConfigInfo> configInfos = findConfigInfos(dataIds, label);
 
-		PropertySource propertySource = new PropertySource(propertySourceName,
-				properties);
+		Environment environment = new Environment(application, profiles);
+		for (String dataId : dataIds) {
+			ConfigInfo configInfo = configInfos.get(dataId);
+			if (configInfo != null) {
+				environment.add(createPropertySource(configInfo));
+			}
+		}
+		sources.setEnvironment(environment);
+		return sources;
+	}
 
-		environment.add(propertySource);
+	private static String[] profiles(String profile) {
+		Set<String> profiles = new LinkedHashSet<>();
+		for (String value : StringUtils.commaDelimitedListToStringArray(profile)) {
+			if (StringUtils.hasText(value)) {
+				profiles.add(value.trim());
+			}
+		}
+		return profiles.isEmpty() ? of(DEFAULT_PROFILE)
+				: StringUtils.toStringArray(profiles);
+	}
 
-		return environment;
+	/**
+	 * @return the dataIds of the environment, the highest precedence first
+	 */
+	private static List<String> dataIds(String application, String[] profiles) {
+		List<String> names = new ArrayList<>();
+		for (int i = profiles.length - 1; i >= 0; i--) {
+			names.add(application + "-" + profiles[i]);
+			if (!SHARED_APPLICATION.equals(application)) {
+				names.add(SHARED_APPLICATION + "-" + profiles[i]);
+			}
+		}
+		names.add(application);
+		if (!SHARED_APPLICATION.equals(application)) {
+			names.add(SHARED_APPLICATION);
+		}
+		Set<String> dataIds = new LinkedHashSet<>();
+		for (String name : names) {
+			for (String fileExtension : FILE_EXTENSIONS) {
+				dataIds.add(name + "." + fileExtension);
+			}
+		}
+		return new ArrayList<>(dataIds);
+	}
+
+	private Map<String, ConfigInfo> findConfigInfos(List<String> dataIds,
+			String label) {
+		List<ConfigInfo> configInfos = persistService.findConfigInfoByBatch(dataIds,
+				DEFAULT_GROUP, label, BATCH_SIZE);
+		Map<String, ConfigInfo> result = new HashMap<>(configInfos.size() * 2);
+		for (ConfigInfo configInfo : configInfos) {
+			result.put(configInfo.getDataId(), configInfo);
+		}
+		return result;
+	}
+
+	private PropertySource createPropertySource(ConfigInfo configInfo) {
+		String dataId = configInfo.getDataId();
+		String propertySourceName = String.format("Nacos[dataId : %s , group : %s]",
+				dataId, DEFAULT_GROUP);
+		Map<Object, Object> properties;
+		try {
+			properties = dataId.endsWith(".properties")
+					? createProperties(configInfo.getContent())
+					: createYamlProperties(dataId, configInfo.getContent());
+		}
+		catch (IOException | RuntimeException e) {
+			throw new IllegalStateException(
+					"The content of " + dataId + " can not be parsed", e);
+		}
+		return new PropertySource(propertySourceName, properties);
 	}
 
-	private Properties createProperties(ConfigInfo configInfo) {
+	private Properties createProperties(String content) throws IOException {
 		Properties properties = new Properties();
-		String content = configInfo == null ? null : configInfo.getContent();
 		if (StringUtils.hasText(content)) {
-			try {
-				properties.load(new StringReader(content));
-			}
-			catch (IOException e) {
-				throw new IllegalStateException("The format of content is a properties");
+			properties.load(new StringReader(content));
+		}
+		return properties;
+	}
+
+	/**
+	 * Parse yaml content, json is parsed as yaml as well. A later document wins over a
+	 * former one.
+	 */
+	private Map<Object, Object> createYamlProperties(String dataId, String content)
+			throws IOException {
+		Map<Object, Object> properties = new LinkedHashMap<>();
+		if (!StringUtils.hasText(content)) {
+			return properties;
+		}
+		List<org.springframework.core.env.PropertySource<?>> documents = yamlLoader
+				.load(dataId, new ByteArrayResource(
+						content.getBytes(StandardCharsets.UTF_8), dataId));
+		for (org.springframework.core.env.PropertySource<?> document : documents) {
+			Map<String, Object> source = ((OriginTrackedMapPropertySource) document)
+					.getSource();
+			for (Map.Entry<String, Object> entry : source.entrySet()) {
+				Object value = entry.getValue();
+				properties.put(entry.getKey(), value instanceof OriginTrackedValue
+						? ((OriginTrackedValue) value).getValue() : value);
 			}
 		}
 		return properties;
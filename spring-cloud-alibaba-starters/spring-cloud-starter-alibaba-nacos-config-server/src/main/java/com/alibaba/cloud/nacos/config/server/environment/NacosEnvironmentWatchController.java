@@ -0,0 +1,227 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.config.server.environment;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import com.alibaba.nacos.config.server.service.LocalDataChangeEvent;
+import com.alibaba.nacos.config.server.utils.event.EventDispatcher;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+/**
+ * Long polling endpoint of the environments of {@link NacosEnvironmentRepository}.
+ * <p>
+ * A client passes the version of the environment it holds. The request is answered
+ * with the environment as soon as its version differs, that is when Nacos publishes a
+ * change of one of the configs it is built from, or with {@code 304 Not Modified} when
+ * the timeout elapses. A waiting request holds no thread.
+ *
+ * @author chengrui
+ */
+@RestController
+@RequestMapping(path = "${spring.cloud.nacos.config.server.watch-path:/nacos-watch}",
+		produces = MediaType.APPLICATION_JSON_VALUE)
+public class NacosEnvironmentWatchController implements DisposableBean {
+
+	private final NacosEnvironmentRepository repository;
+
+	private final NacosEnvironmentCache environmentCache;
+
+	private final long defaultTimeout;
+
+	private final long maxTimeout;
+
+	/**
+	 * The waiting requests, keyed by the Nacos group key of the configs they watch.
+	 */
+	private final Map<String, Set<Watch>> watches = new ConcurrentHashMap<>();
+
+	private final ExecutorService executor;
+
+	private final Consumer<EventDispatcher.Event> changeListener = this::onChange;
+
+	/**
+	 * @param repository the repository loading the environments
+	 * @param environmentCache the cache of the repository, tells the versions
+	 * @param defaultTimeout the timeout of a request not telling one, in milliseconds
+	 * @param maxTimeout the maximum timeout of a request, in milliseconds
+	 */
+	public NacosEnvironmentWatchController(NacosEnvironmentRepository repository,
+			NacosEnvironmentCache environmentCache, long defaultTimeout,
+			long maxTimeout) {
+		this.repository = repository;
+		this.environmentCache = environmentCache;
+		this.defaultTimeout = defaultTimeout;
+		this.maxTimeout = Math.max(defaultTimeout, maxTimeout);
+		AtomicInteger threadNumber = new AtomicInteger();
+		this.executor = Executors.newFixedThreadPool(2, runnable -> {
+			Thread thread = new Thread(runnable,
+					"com.alibaba.cloud.nacos.config.server.watch-"
+							+ threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		NacosConfigChangeListener.subscribe(changeListener);
+	}
+
+	@GetMapping("/{name}/{profiles}")
+	public DeferredResult<ResponseEntity<Environment>> defaultLabel(
+			@PathVariable String name, @PathVariable String profiles,
+			@RequestParam(required = false) String version,
+			@RequestParam(required = false) Long timeout) {
+		return labelled(name, profiles, null, version, timeout);
+	}
+
+	@GetMapping("/{name}/{profiles}/{label}")
+	public DeferredResult<ResponseEntity<Environment>> labelled(
+			@PathVariable String name, @PathVariable String profiles,
+			@PathVariable String label, @RequestParam(required = false) String version,
+			@RequestParam(required = false) Long timeout) {
+		long waitTimeout = timeout == null || timeout <= 0 ? defaultTimeout
+				: Math.min(timeout, maxTimeout);
+		Watch watch = new Watch(Environment.normalize(name), profiles,
+				Environment.normalize(label), version, waitTimeout);
+		watch.check();
+		return watch.result;
+	}
+
+	@Override
+	public void destroy() {
+		NacosConfigChangeListener.unsubscribe(changeListener);
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Check the requests watching a changed config. The md5 held by the Nacos config
+	 * cache is up to date when the {@link LocalDataChangeEvent} is published.
+	 */
+	private void onChange(EventDispatcher.Event event) {
+		if (!(event instanceof LocalDataChangeEvent)) {
+			return;
+		}
+		Set<Watch> groupWatches = watches.get(((LocalDataChangeEvent) event).groupKey);
+		if (groupWatches == null) {
+			return;
+		}
+		for (Watch watch : groupWatches) {
+			executor.execute(watch::check);
+		}
+	}
+
+	private final class Watch {
+
+		private final String application;
+
+		private final String profile;
+
+		private final String label;
+
+		private final String version;
+
+		private final DeferredResult<ResponseEntity<Environment>> result;
+
+		private final AtomicBoolean registered = new AtomicBoolean();
+
+		private volatile Set<String> groupKeys = Collections.emptySet();
+
+		private Watch(String application, String profile, String label, String version,
+				long timeout) {
+			this.application = application;
+			this.profile = profile;
+			this.label = label;
+			this.version = version;
+			this.result = new DeferredResult<>(timeout,
+					() -> ResponseEntity.status(HttpStatus.NOT_MODIFIED).build());
+			this.result.onCompletion(this::unregister);
+		}
+
+		/**
+		 * Answer with the environment if its version differs, or wait for a change of
+		 * one of its configs.
+		 */
+		private void check() {
+			if (result.isSetOrExpired()) {
+				return;
+			}
+			Environment environment;
+			try {
+				environment = repository.findOne(application, profile, label);
+			}
+			catch (RuntimeException e) {
+				result.setErrorResult(e);
+				return;
+			}
+			Set<String> currentGroupKeys = environmentCache.getGroupKeys(application,
+					profile, label);
+			if (!Objects.equals(version, environment.getVersion())
+					|| currentGroupKeys == null) {
+				result.setResult(ResponseEntity.ok(environment));
+				return;
+			}
+			register(currentGroupKeys);
+			// a change published before the registration is seen now.
+			if (!Objects.equals(version,
+					environmentCache.getVersion(application, profile, label))) {
+				executor.execute(this::check);
+			}
+		}
+
+		private void register(Set<String> currentGroupKeys) {
+			if (registered.compareAndSet(false, true)) {
+				groupKeys = currentGroupKeys;
+				for (String groupKey : currentGroupKeys) {
+					watches.computeIfAbsent(groupKey,
+							key -> ConcurrentHashMap.newKeySet()).add(this);
+				}
+				if (result.isSetOrExpired()) {
+					unregister();
+				}
+			}
+		}
+
+		private void unregister() {
+			for (String groupKey : groupKeys) {
+				watches.computeIfPresent(groupKey, (key, groupWatches) -> {
+					groupWatches.remove(this);
+					return groupWatches.isEmpty() ? null : groupWatches;
+				});
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.config.server.environment;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.nacos.config.server.service.ConfigService;
+import com.alibaba.nacos.config.server.utils.GroupKey2;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.cloud.config.server.environment.EnvironmentRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author chengrui
+ */
+public class NacosEnvironmentAsyncControllerTests {
+
+	private final NacosEnvironmentCache cache = new NacosEnvironmentCache(16);
+
+	private NacosEnvironmentAsyncController controller;
+
+	@AfterEach
+	public void tearDown() {
+		if (controller != null) {
+			controller.destroy();
+		}
+		cache.destroy();
+	}
+
+	@Test
+	public void testCachedEnvironmentIsAnsweredOnTheRequestThread() {
+		String version = cache("cached");
+		NacosEnvironmentRepository repository = mock(NacosEnvironmentRepository.class);
+		controller = new NacosEnvironmentAsyncController(repository, cache, 1, 1);
+
+		CompletableFuture<Environment> result = controller.defaultLabel("cached",
+				"default");
+
+		assertThat(result).isCompleted();
+		assertThat(result.join().getVersion()).isEqualTo(version);
+		verifyNoInteractions(repository);
+	}
+
+	@Test
+	public void testMissIsLoadedOnThePool() {
+		EnvironmentRepository repository = mock(NacosEnvironmentRepository.class);
+		when(repository.findOne("missed", "default", null)).thenAnswer(
+				invocation -> new Environment(Thread.currentThread().getName()));
+		controller = new NacosEnvironmentAsyncController(repository, cache, 1, 1);
+
+		Environment environment = controller.defaultLabel("missed", "default").join();
+
+		assertThat(environment.getName())
+				.startsWith("com.alibaba.cloud.nacos.config.server.environment-");
+	}
+
+	@Test
+	public void testRequestExceedingTheQueueIsUnavailable() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		EnvironmentRepository repository = mock(EnvironmentRepository.class);
+		when(repository.findOne("slow", "default", null)).thenAnswer(invocation -> {
+			release.await(5, TimeUnit.SECONDS);
+			return new Environment("slow");
+		});
+		controller = new NacosEnvironmentAsyncController(repository, cache, 1, 1);
+		try {
+			CompletableFuture<Environment> loading = controller.defaultLabel("slow",
+					"default");
+			CompletableFuture<Environment> queued = controller.defaultLabel("slow",
+					"default");
+
+			assertThatExceptionOfType(ResponseStatusException.class)
+					.isThrownBy(() -> controller.defaultLabel("slow", "default"))
+					.satisfies(e -> assertThat(e.getStatus())
+							.isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+			release.countDown();
+			assertThat(loading.get(5, TimeUnit.SECONDS).getName()).isEqualTo("slow");
+			assertThat(queued.get(5, TimeUnit.SECONDS).getName()).isEqualTo("slow");
+		}
+		finally {
+			release.countDown();
+		}
+	}
+
+	@Test
+	public void testCacheIsBypassedForAnotherRepository() {
+		cache("composite");
+		// e.g. a composite of git and nacos.
+		EnvironmentRepository repository = mock(EnvironmentRepository.class);
+		when(repository.findOne("composite", "default", null))
+				.thenReturn(new Environment("composite"));
+		controller = new NacosEnvironmentAsyncController(repository, cache, 1, 1);
+
+		assertThat(controller.defaultLabel("composite", "default").join().getVersion())
+				.isNull();
+		verify(repository).findOne("composite", "default", null);
+	}
+
+	/**
+	 * Cache the environment of an application, built from one config.
+	 * @return the version of the environment
+	 */
+	private String cache(String application) {
+		String dataId = application + ".properties";
+		ConfigService.updateMd5(GroupKey2.getKey(dataId, "DEFAULT_GROUP"), "md5",
+				System.currentTimeMillis());
+		return cache.get(application, "default", null, () -> {
+			NacosEnvironmentCache.Sources sources = new NacosEnvironmentCache.Sources();
+			sources.addConfig(dataId, "DEFAULT_GROUP", null);
+			sources.setEnvironment(new Environment(application, "default"));
+			return sources;
+		}).getVersion();
+	}
+
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.config.server.environment;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.alibaba.nacos.config.server.service.ConfigService;
+import com.alibaba.nacos.config.server.utils.GroupKey2;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.cloud.config.environment.PropertySource;
+import org.springframework.cloud.config.server.environment.CompositeEnvironmentRepository;
+import org.springframework.cloud.config.server.environment.EnvironmentRepository;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * @author chengrui
+ */
+public class NacosEnvironmentCacheTests {
+
+	private static final String GROUP = "DEFAULT_GROUP";
+
+	private final NacosEnvironmentCache cache = new NacosEnvironmentCache(16);
+
+	private final AtomicInteger loads = new AtomicInteger();
+
+	@AfterEach
+	public void tearDown() {
+		cache.destroy();
+	}
+
+	@Test
+	public void testCachedEnvironmentIsHitUntilItsConfigChanges() {
+		String groupKey = GroupKey2.getKey("hit.properties", GROUP);
+		ConfigService.updateMd5(groupKey, "md5-1", System.currentTimeMillis());
+
+		Environment loaded = get("hit", "hit.properties");
+		Environment cached = get("hit", "hit.properties");
+		assertThat(loads).hasValue(1);
+		assertThat(cached.getVersion()).isEqualTo(loaded.getVersion()).isNotNull();
+		assertThat(content(cached)).isEqualTo("md5-1");
+		assertThat(cache.getHitCount()).isEqualTo(1);
+		assertThat(cache.getMissCount()).isEqualTo(1);
+		assertThat(cache.getGroupKeys("hit", "default", null)).containsExactly(groupKey);
+
+		// the change event evicts the environment.
+		ConfigService.updateMd5(groupKey, "md5-2", System.currentTimeMillis());
+		assertThat(cache.size()).isZero();
+		Environment changed = get("hit", "hit.properties");
+		assertThat(loads).hasValue(2);
+		assertThat(changed.getVersion()).isNotEqualTo(loaded.getVersion());
+		assertThat(cache.getMissCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void testMissedChangeIsDetectedByTheMd5() {
+		String groupKey = GroupKey2.getKey("md5.properties", GROUP);
+		ConfigService.updateMd5(groupKey, "md5-1", System.currentTimeMillis());
+		get("md5", "md5.properties");
+		assertThat(cache.getIfPresent("md5", "default", null)).isNotNull();
+
+		// a closed cache no longer receives the change events.
+		cache.destroy();
+		ConfigService.updateMd5(groupKey, "md5-2", System.currentTimeMillis());
+		assertThat(cache.size()).isEqualTo(1);
+
+		assertThat(cache.getIfPresent("md5", "default", null)).isNull();
+		assertThat(cache.getVersion("md5", "default", null)).isNull();
+		assertThat(cache.size()).isZero();
+	}
+
+	@Test
+	public void testEnvironmentLoadedAcrossAnInvalidationIsNotCached() {
+		String groupKey = GroupKey2.getKey("racy.properties", GROUP);
+		ConfigService.updateMd5(groupKey, "md5-1", System.currentTimeMillis());
+
+		Environment environment = cache.get("racy", "default", null, () -> {
+			NacosEnvironmentCache.Sources sources = sources("racy", "racy.properties");
+			// published while the environment is being loaded.
+			ConfigService.updateMd5(groupKey, "md5-2", System.currentTimeMillis());
+			return sources;
+		});
+		assertThat(content(environment)).isEqualTo("md5-1");
+		assertThat(cache.size()).isZero();
+
+		assertThat(content(get("racy", "racy.properties"))).isEqualTo("md5-2");
+		assertThat(cache.size()).isEqualTo(1);
+	}
+
+	@Test
+	public void testCurrentVersionIsNotModified() throws Exception {
+		String groupKey = GroupKey2.getKey("etag.properties", GROUP);
+		ConfigService.updateMd5(groupKey, "md5-1", System.currentTimeMillis());
+		String version = get("etag", "etag.properties").getVersion();
+		NacosEnvironmentETagInterceptor interceptor = new NacosEnvironmentETagInterceptor(
+				cache, new NacosEnvironmentRepository(cache));
+		HandlerMethod handler = handler();
+
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		assertThat(interceptor.preHandle(request("etag", version), response, handler))
+				.isFalse();
+		assertThat(response.getStatus()).isEqualTo(304);
+
+		ConfigService.updateMd5(groupKey, "md5-2", System.currentTimeMillis());
+		response = new MockHttpServletResponse();
+		assertThat(interceptor.preHandle(request("etag", version), response, handler))
+				.isTrue();
+		assertThat(response.getStatus()).isEqualTo(200);
+	}
+
+	@Test
+	public void testCompositeRepositoryIsNotAnsweredFromTheCache() throws Exception {
+		String groupKey = GroupKey2.getKey("composite.properties", GROUP);
+		ConfigService.updateMd5(groupKey, "md5-1", System.currentTimeMillis());
+		String version = get("composite", "composite.properties").getVersion();
+		// e.g. git and nacos, the other repository may have changed.
+		CompositeEnvironmentRepository repository = new CompositeEnvironmentRepository(
+				Arrays.asList(mock(EnvironmentRepository.class),
+						new NacosEnvironmentRepository(cache)),
+				false);
+		NacosEnvironmentETagInterceptor interceptor = new NacosEnvironmentETagInterceptor(
+				cache, repository);
+
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		assertThat(interceptor.preHandle(request("composite", version), response,
+				handler())).isTrue();
+		assertThat(response.getStatus()).isEqualTo(200);
+	}
+
+	private Environment get(String application, String dataId) {
+		return cache.get(application, "default", null, () -> {
+			loads.incrementAndGet();
+			return sources(application, dataId);
+		});
+	}
+
+	/**
+	 * The environment holds the md5 of the config it is built from as its content.
+	 */
+	private static NacosEnvironmentCache.Sources sources(String application,
+			String dataId) {
+		NacosEnvironmentCache.Sources sources = new NacosEnvironmentCache.Sources();
+		String md5 = sources.addConfig(dataId, GROUP, null);
+		Environment environment = new Environment(application, "default");
+		environment.add(new PropertySource(dataId,
+				Collections.singletonMap(dataId, md5)));
+		sources.setEnvironment(environment);
+		return sources;
+	}
+
+	private static Object content(Environment environment) {
+		PropertySource propertySource = environment.getPropertySources().get(0);
+		return propertySource.getSource().get(propertySource.getName());
+	}
+
+	private static HandlerMethod handler() throws NoSuchMethodException {
+		Method method = NacosEnvironmentAsyncController.class.getMethod("defaultLabel",
+				String.class, String.class);
+		return new HandlerMethod(mock(NacosEnvironmentAsyncController.class), method);
+	}
+
+	/**
+	 * @return a request of a client holding a version of the environment
+	 */
+	private static MockHttpServletRequest request(String application, String version) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET",
+				"/nacos-async/" + application + "/default");
+		Map<String, String> variables = new HashMap<>();
+		variables.put("name", application);
+		variables.put("profiles", "default");
+		request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, variables);
+		request.addHeader("If-None-Match", "\"" + version + "-defaultLabel\"");
+		return request;
+	}
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.config.server.environment;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.alibaba.nacos.config.server.model.ConfigInfo;
+import com.alibaba.nacos.config.server.service.PersistService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.cloud.config.environment.PropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author chengrui
+ */
+public class NacosEnvironmentRepositoryTests {
+
+	/**
+	 * The contents of the configs, by dataId.
+	 */
+	private final Map<String, String> contents = new HashMap<>();
+
+	/**
+	 * The dataIds of each batch lookup.
+	 */
+	private final List<List<String>> lookups = new ArrayList<>();
+
+	private final NacosEnvironmentRepository repository = new NacosEnvironmentRepository();
+
+	@BeforeEach
+	public void setUp() {
+		ReflectionTestUtils.setField(repository, "persistService", new PersistService() {
+			@Override
+			public List<ConfigInfo> findConfigInfoByBatch(List<String> dataIds,
+					String group, String tenant, int subQueryLimit) {
+				lookups.add(new ArrayList<>(dataIds));
+				List<ConfigInfo> configInfos = new ArrayList<>();
+				for (String dataId : dataIds) {
+					String content = contents.get(dataId);
+					if (content != null) {
+						configInfos.add(new ConfigInfo(dataId, group, content));
+					}
+				}
+				return configInfos;
+			}
+		});
+	}
+
+	@Test
+	public void testLaterProfileAndApplicationConfigWin() {
+		contents.put("demo-dev.properties", "a=demo-dev");
+		contents.put("demo-prod.yaml", "a: demo-prod");
+		contents.put("application-prod.properties", "a=application-prod");
+		contents.put("application-dev.json", "{\"a\": \"application-dev\"}");
+		contents.put("demo.properties", "a=demo");
+		contents.put("demo.yml", "a: demo-yml");
+		contents.put("application.properties", "a=application");
+
+		Environment environment = repository.findOne("demo", "dev, prod", null);
+
+		assertThat(environment.getProfiles()).containsExactly("dev", "prod");
+		assertThat(names(environment)).containsExactly("demo-prod.yaml",
+				"application-prod.properties", "demo-dev.properties",
+				"application-dev.json", "demo.properties", "demo.yml",
+				"application.properties");
+		assertThat(environment.getPropertySources().get(0).getSource().get("a"))
+				.isEqualTo("demo-prod");
+		assertThat(environment.getPropertySources().get(3).getSource().get("a"))
+				.isEqualTo("application-dev");
+		// the dataIds of the environment are looked up at once.
+		assertThat(lookups).hasSize(1);
+		assertThat(lookups.get(0)).hasSize(24).startsWith("demo-prod.properties",
+				"demo-prod.yaml", "demo-prod.yml", "demo-prod.json",
+				"application-prod.properties");
+	}
+
+	@Test
+	public void testMissingConfigHasNoPropertySource() {
+		contents.put("application.properties", "a=application");
+
+		Environment environment = repository.findOne("demo", null, null);
+
+		assertThat(environment.getProfiles()).containsExactly("default");
+		assertThat(names(environment)).containsExactly("application.properties");
+
+		// the former repository added an empty property source instead.
+		contents.clear();
+		assertThat(repository.findOne("demo", "dev", null).getPropertySources())
+				.isEmpty();
+	}
+
+	/**
+	 * @return the dataIds of the property sources, in order of precedence
+	 */
+	private static List<String> names(Environment environment) {
+		return environment.getPropertySources().stream().map(PropertySource::getName)
+				.map(name -> name.substring(name.indexOf(':') + 2,
+						name.indexOf(" ,")))
+				.collect(Collectors.toList());
+	}
+
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.config.server.environment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+
+import com.alibaba.nacos.config.server.model.ConfigInfo;
+import com.alibaba.nacos.config.server.service.ConfigService;
+import com.alibaba.nacos.config.server.service.PersistService;
+import com.alibaba.nacos.config.server.utils.GroupKey2;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * @author chengrui
+ */
+public class NacosEnvironmentWatchControllerTests {
+
+	private static final String GROUP = "DEFAULT_GROUP";
+
+	/**
+	 * The contents of the configs, by dataId.
+	 */
+	private final Map<String, String> contents = new ConcurrentHashMap<>();
+
+	/**
+	 * Publishes a change of this group key when the controller looks the group keys up,
+	 * once.
+	 */
+	private volatile String changeOnLookup;
+
+	private NacosEnvironmentCache cache;
+
+	private NacosEnvironmentRepository repository;
+
+	private NacosEnvironmentWatchController controller;
+
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	public void setUp() {
+		PersistService persistService = new PersistService() {
+			@Override
+			public List<ConfigInfo> findConfigInfoByBatch(List<String> dataIds,
+					String group, String tenant, int subQueryLimit) {
+				List<ConfigInfo> configInfos = new ArrayList<>();
+				for (String dataId : dataIds) {
+					String content = contents.get(dataId);
+					if (content != null) {
+						configInfos.add(new ConfigInfo(dataId, group, content));
+					}
+				}
+				return configInfos;
+			}
+		};
+		cache = new NacosEnvironmentCache(16) {
+			@Override
+			public Set<String> getGroupKeys(String application, String profile,
+					String label) {
+				Set<String> groupKeys = super.getGroupKeys(application, profile, label);
+				String groupKey = changeOnLookup;
+				if (groupKey != null) {
+					changeOnLookup = null;
+					ConfigService.updateMd5(groupKey, "changed-on-lookup",
+							System.currentTimeMillis());
+				}
+				return groupKeys;
+			}
+		};
+		repository = new NacosEnvironmentRepository(cache);
+		ReflectionTestUtils.setField(repository, "persistService", persistService);
+		controller = new NacosEnvironmentWatchController(repository, cache, 30000,
+				60000);
+		mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		controller.destroy();
+		cache.destroy();
+	}
+
+	@Test
+	public void testOtherVersionIsAnsweredImmediately() throws Exception {
+		change("immediate.properties", "a=1");
+		String version = repository.findOne("immediate", "default", null).getVersion();
+
+		MvcResult result = mockMvc
+				.perform(get("/nacos-watch/immediate/default").param("version", "stale"))
+				.andExpect(request().asyncStarted()).andReturn();
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+				.andExpect(jsonPath("$.version").value(version))
+				.andExpect(jsonPath("$.propertySources[0].source.a").value("1"));
+	}
+
+	@Test
+	public void testCurrentVersionIsNotModifiedOnTimeout() throws Exception {
+		change("timeout.properties", "a=1");
+		String version = repository.findOne("timeout", "default", null).getVersion();
+
+		MvcResult result = watch("timeout", version);
+		MockAsyncContext asyncContext = (MockAsyncContext) result.getRequest()
+				.getAsyncContext();
+		for (AsyncListener listener : asyncContext.getListeners()) {
+			listener.onTimeout(new AsyncEvent(asyncContext));
+		}
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isNotModified());
+	}
+
+	@Test
+	public void testWaitingRequestIsAnsweredOnChange() throws Exception {
+		change("wake.properties", "a=1");
+		String version = repository.findOne("wake", "default", null).getVersion();
+		MvcResult result = watch("wake", version);
+
+		change("wake.properties", "a=2");
+		ResponseEntity<?> response = (ResponseEntity<?>) result.getAsyncResult(5000);
+		Environment environment = (Environment) response.getBody();
+		assertThat(environment.getVersion()).isNotEqualTo(version);
+		assertThat(environment.getPropertySources().get(0).getSource().get("a"))
+				.isEqualTo("2");
+	}
+
+	@Test
+	public void testChangeBeforeRegistrationIsSeen() throws Exception {
+		change("racy.properties", "a=1");
+		String version = repository.findOne("racy", "default", null).getVersion();
+		// published once the environment is loaded, before the request is registered.
+		changeOnLookup = GroupKey2.getKey("racy.properties", GROUP);
+
+		MvcResult result = watch("racy", version);
+		ResponseEntity<?> response = (ResponseEntity<?>) result.getAsyncResult(5000);
+		assertThat(changeOnLookup).isNull();
+		assertThat(((Environment) response.getBody()).getVersion())
+				.isNotEqualTo(version);
+	}
+
+	private MvcResult watch(String application, String version) throws Exception {
+		MvcResult result = mockMvc
+				.perform(get("/nacos-watch/" + application + "/default").param("version",
+						version))
+				.andExpect(request().asyncStarted()).andReturn();
+		assertThat(result.getRequest().getAsyncContext()).isNotNull();
+		assertThat(((MockAsyncContext) result.getRequest().getAsyncContext())
+				.getListeners()).isNotEmpty();
+		return result;
+	}
+
+	/**
+	 * Publish the content of a config, like the Nacos dump does.
+	 */
+	private void change(String dataId, String content) {
+		contents.put(dataId, content);
+		ConfigService.updateMd5(GroupKey2.getKey(dataId, GROUP), content,
+				System.currentTimeMillis());
+	}
+
+}
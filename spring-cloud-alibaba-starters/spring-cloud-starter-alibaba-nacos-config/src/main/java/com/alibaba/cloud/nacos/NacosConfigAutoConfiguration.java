@@ -16,12 +16,19 @@
 
 package com.alibaba.cloud.nacos;
 
+import com.alibaba.cloud.nacos.metrics.NacosConfigMeterBinder;
+import com.alibaba.cloud.nacos.metrics.NacosConfigMetrics;
 import com.alibaba.cloud.nacos.refresh.NacosContextRefresher;
+import com.alibaba.cloud.nacos.refresh.NacosPlaceholderCache;
+import com.alibaba.cloud.nacos.refresh.NacosPropertySourceRefresher;
 import com.alibaba.cloud.nacos.refresh.NacosRefreshHistory;
 import com.alibaba.cloud.nacos.refresh.SmartConfigurationPropertiesRebinder;
 import com.alibaba.cloud.nacos.refresh.condition.ConditionalOnNonDefaultBehavior;
+import com.alibaba.cloud.nacos.view.NacosConfigViewManager;
+import io.micrometer.core.instrument.binder.MeterBinder;
 
 import org.springframework.beans.factory.BeanFactoryUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.condition.SearchStrategy;
@@ -30,6 +37,7 @@ import org.springframework.cloud.context.properties.ConfigurationPropertiesRebin
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 
 /**
  * @author juven.xuxb
@@ -62,14 +70,43 @@ public class NacosConfigAutoConfiguration {
 		return new NacosConfigManager(nacosConfigProperties);
 	}
 
+	@Bean
+	public NacosPropertySourceRefresher nacosPropertySourceRefresher() {
+		return new NacosPropertySourceRefresher();
+	}
+
+	@Bean
+	public NacosConfigMetrics nacosConfigMetrics() {
+		return new NacosConfigMetrics();
+	}
+
 	@Bean
 	public NacosContextRefresher nacosContextRefresher(
 			NacosConfigManager nacosConfigManager,
-			NacosRefreshHistory nacosRefreshHistory) {
+			NacosRefreshHistory nacosRefreshHistory,
+			NacosPropertySourceRefresher nacosPropertySourceRefresher,
+			NacosConfigMetrics nacosConfigMetrics) {
 		// Consider that it is not necessary to be compatible with the previous
 		// configuration
 		// and use the new configuration if necessary.
-		return new NacosContextRefresher(nacosConfigManager, nacosRefreshHistory);
+		return new NacosContextRefresher(nacosConfigManager, nacosRefreshHistory,
+				nacosPropertySourceRefresher, nacosConfigMetrics);
+	}
+
+	@Bean
+	@ConditionalOnMissingBean
+	@ConditionalOnProperty(name = "spring.cloud.nacos.config.placeholder-cache-enabled", havingValue = "true")
+	public NacosPlaceholderCache nacosPlaceholderCache() {
+		return new NacosPlaceholderCache();
+	}
+
+	@Bean
+	@ConditionalOnMissingBean
+	public NacosConfigViewManager nacosConfigViewManager(
+			NacosConfigManager nacosConfigManager,
+			NacosContextRefresher nacosContextRefresher, Environment environment) {
+		return new NacosConfigViewManager(nacosConfigManager, nacosContextRefresher,
+				environment);
 	}
 
 	@Bean
@@ -82,4 +119,18 @@ public class NacosConfigAutoConfiguration {
 		return new SmartConfigurationPropertiesRebinder(beans);
 	}
 
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnClass(MeterBinder.class)
+	static class NacosConfigMeterBinderConfiguration {
+
+		@Bean
+		@ConditionalOnMissingBean
+		public NacosConfigMeterBinder nacosConfigMeterBinder(
+				NacosConfigMetrics nacosConfigMetrics,
+				NacosContextRefresher nacosContextRefresher) {
+			return new NacosConfigMeterBinder(nacosConfigMetrics, nacosContextRefresher);
+		}
+
+	}
+
 }
@@ -16,21 +16,36 @@
 
 package com.alibaba.cloud.nacos;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import com.alibaba.cloud.commons.lang.StringUtils;
 import com.alibaba.cloud.nacos.diagnostics.analyzer.NacosConnectionFailureException;
 import com.alibaba.nacos.api.NacosFactory;
+import com.alibaba.nacos.api.PropertyKeyConst;
 import com.alibaba.nacos.api.config.ConfigService;
 import com.alibaba.nacos.api.exception.NacosException;
+import com.alibaba.nacos.common.utils.MD5Utils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
 /**
+ * The clients of the other servers and namespaces are shut down when the last manager
+ * bean is destroyed, the managers of the bootstrap and refresh contexts share them.
+ *
  * @author zkzlx
  *
  * nacos 配置属性管理器
  */
-public class NacosConfigManager {
+public class NacosConfigManager implements InitializingBean, DisposableBean {
 
 	private static final Logger log = LoggerFactory.getLogger(NacosConfigManager.class);
 
@@ -38,7 +53,38 @@ public class NacosConfigManager {
 	 * ConfigService 配置服务， nacos 配置核心类
 	 * 此处为 NacosConfigService
 	 */
-	private static ConfigService service = null;
+	private static volatile ConfigService service = null;
+
+	/**
+	 * The clients of the other servers and namespaces, keyed by server, namespace and
+	 * credentials. Each client runs its own long polling.
+	 *
+	 * 其他服务端、命名空间的 ConfigService
+	 */
+	private static final Map<String, Client> CLIENTS = new ConcurrentHashMap<>(4);
+
+	/**
+	 * The clients the dataIds are loaded from, keyed by dataId, group and client name,
+	 * see {@link NacosPropertySourceRepository#getMapKey(String, String, String)}. The
+	 * dataIds loaded from the default client are not kept.
+	 *
+	 * dataId 所属的 ConfigService
+	 */
+	private static final Map<String, ConfigService> BINDINGS = new ConcurrentHashMap<>(
+			16);
+
+	/**
+	 * The manager beans not destroyed yet.
+	 *
+	 * 仍在使用 CLIENTS 的 NacosConfigManager
+	 */
+	private static final Set<NacosConfigManager> MANAGERS = ConcurrentHashMap
+			.newKeySet();
+
+	/**
+	 * The name of the default client in {@link #getConfigServices()}.
+	 */
+	public static final String DEFAULT_CLIENT = "default";
 
 	/**
 	 * nacos 配置属性
@@ -89,8 +135,196 @@ public class NacosConfigManager {
 		return service;
 	}
 
+	/**
+	 * Get the client of a server and namespace, the default client when they are the
+	 * default ones. The blank values are inherited from {@link NacosConfigProperties}.
+	 * @param serverAddr the server address, may be null
+	 * @param namespace the namespace, may be null
+	 * @param username the username, may be null
+	 * @param password the password, may be null
+	 * @return the config service
+	 */
+	public ConfigService getConfigService(String serverAddr, String namespace,
+			String username, String password) {
+		if (StringUtils.isBlank(serverAddr) && StringUtils.isBlank(namespace)
+				&& StringUtils.isBlank(username) && StringUtils.isBlank(password)) {
+			return getConfigService();
+		}
+		Properties properties = nacosConfigProperties.assembleConfigServiceProperties();
+		putIfNotBlank(properties, PropertyKeyConst.SERVER_ADDR, serverAddr);
+		putIfNotBlank(properties, PropertyKeyConst.NAMESPACE, namespace);
+		putIfNotBlank(properties, PropertyKeyConst.USERNAME, username);
+		putIfNotBlank(properties, PropertyKeyConst.PASSWORD, password);
+		String key = getClientKey(properties);
+		if (key.equals(getClientKey(
+				nacosConfigProperties.assembleConfigServiceProperties()))) {
+			return getConfigService();
+		}
+		Client client = CLIENTS.get(key);
+		if (client == null) {
+			client = CLIENTS.computeIfAbsent(key, k -> createClient(properties));
+		}
+		return client.service;
+	}
+
+	/**
+	 * @return the created clients, keyed by server and namespace, the default one
+	 * first, named {@link #DEFAULT_CLIENT}
+	 */
+	public static Map<String, ConfigService> getConfigServices() {
+		Map<String, ConfigService> services = new LinkedHashMap<>(CLIENTS.size() + 1);
+		if (service != null) {
+			services.put(DEFAULT_CLIENT, service);
+		}
+		for (Client client : CLIENTS.values()) {
+			services.putIfAbsent(client.name, client.service);
+		}
+		return Collections.unmodifiableMap(services);
+	}
+
+	/**
+	 * @param configService a client
+	 * @return the name of the client in {@link #getConfigServices()}, null for the
+	 * default client or one not created by the manager
+	 */
+	public static String getClientName(ConfigService configService) {
+		if (configService == null || configService == service) {
+			return null;
+		}
+		for (Client client : CLIENTS.values()) {
+			if (client.service == configService) {
+				return client.name;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Remember the client a dataId is loaded from, its listener is added to it.
+	 * @param dataId dataId
+	 * @param group group
+	 * @param configService the client, nothing is kept for the default one
+	 */
+	public static void bindConfigService(String dataId, String group,
+			ConfigService configService) {
+		bindConfigService(dataId, group, getClientName(configService), configService);
+	}
+
+	/**
+	 * Remember the client a dataId is loaded from, its listener is added to it.
+	 * @param dataId dataId
+	 * @param group group
+	 * @param client the name of the client, nothing is kept for null, the default one
+	 * @param configService the client
+	 */
+	public static void bindConfigService(String dataId, String group, String client,
+			ConfigService configService) {
+		if (client != null && configService != null) {
+			BINDINGS.put(NacosPropertySourceRepository.getMapKey(dataId, group, client),
+					configService);
+		}
+	}
+
+	/**
+	 * @param dataId dataId
+	 * @param group group
+	 * @param client the name of the client, null for the default one
+	 * @return the client the dataId is loaded from, null for the default client
+	 */
+	public static ConfigService getBoundConfigService(String dataId, String group,
+			String client) {
+		return client == null ? null
+				: BINDINGS.get(
+						NacosPropertySourceRepository.getMapKey(dataId, group, client));
+	}
+
 	public NacosConfigProperties getNacosConfigProperties() {
 		return nacosConfigProperties;
 	}
 
+	@Override
+	public void afterPropertiesSet() {
+		MANAGERS.add(this);
+	}
+
+	/**
+	 * Shut down the clients of the other servers and namespaces once no manager bean
+	 * uses them anymore, the default client is left as is.
+	 */
+	@Override
+	public void destroy() {
+		synchronized (NacosConfigManager.class) {
+			if (!MANAGERS.remove(this) || !MANAGERS.isEmpty()) {
+				return;
+			}
+			for (String key : CLIENTS.keySet()) {
+				Client client = CLIENTS.remove(key);
+				if (client == null) {
+					continue;
+				}
+				BINDINGS.values().removeIf(bound -> bound == client.service);
+				try {
+					client.service.shutDown();
+				}
+				catch (NacosException | RuntimeException e) {
+					log.warn("[Nacos Config] Failed to shut down client {}", client.name,
+							e);
+				}
+			}
+		}
+	}
+
+	private static Client createClient(Properties properties) {
+		String serverAddr = properties.getProperty(PropertyKeyConst.SERVER_ADDR);
+		try {
+			String name = serverAddr + "/"
+					+ properties.getProperty(PropertyKeyConst.NAMESPACE, "");
+			String username = properties.getProperty(PropertyKeyConst.USERNAME);
+			if (StringUtils.isNotBlank(username)) {
+				name = username + "@" + name;
+			}
+			return new Client(name, NacosFactory.createConfigService(properties));
+		}
+		catch (NacosException e) {
+			log.error(e.getMessage());
+			throw new NacosConnectionFailureException(serverAddr, e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * The key of a client, the credentials are digested.
+	 */
+	private static String getClientKey(Properties properties) {
+		String credentials = String.join("\n",
+				properties.getProperty(PropertyKeyConst.PASSWORD, ""),
+				properties.getProperty(PropertyKeyConst.ACCESS_KEY, ""),
+				properties.getProperty(PropertyKeyConst.SECRET_KEY, ""));
+		return String.join("\n",
+				properties.getProperty(PropertyKeyConst.SERVER_ADDR, ""),
+				properties.getProperty(PropertyKeyConst.NAMESPACE, ""),
+				properties.getProperty(PropertyKeyConst.ENDPOINT, ""),
+				properties.getProperty(PropertyKeyConst.USERNAME, ""),
+				MD5Utils.md5Hex(credentials, "UTF-8"));
+	}
+
+	private static void putIfNotBlank(Properties properties, String key,
+			String value) {
+		if (StringUtils.isNotBlank(value)) {
+			properties.put(key, value);
+		}
+	}
+
+	private static final class Client {
+
+		private final String name;
+
+		private final ConfigService service;
+
+		private Client(String name, ConfigService service) {
+			this.name = name;
+			this.service = service;
+		}
+
+	}
+
 }
@@ -190,6 +190,15 @@ public class NacosConfigProperties {
 	 */
 	private int timeout = 3000;
 
+	/**
+	 * soft deadline for get config from nacos in milliseconds, a slower response is
+	 * answered by the previously loaded config, or on a cold start by the local snapshot
+	 * of the Nacos client, and revalidated in the background. It default closed(0).
+	 *
+	 * 获取配置的软超时时间，超时后使用已加载的配置，冷启动时使用本地快照，并在后台继续获取，默认关闭
+	 */
+	private int softTimeout = 0;
+
 	/**
 	 * nacos maximum number of tolerable server reconnection errors.
 	 *
@@ -302,6 +311,77 @@ public class NacosConfigProperties {
 	 */
 	private boolean refreshEnabled = true;
 
+	/**
+	 * whether a changed dataId is refreshed on its own: only that dataId is parsed and
+	 * swapped in the environment, and only the changed keys are published, instead of
+	 * re-locating all the property sources.
+	 */
+	private boolean targetedRefreshEnabled = false;
+
+	/**
+	 * whether the resolved values of the Nacos properties holding placeholders are
+	 * cached until the next refresh. Only placeholders resolving against the Nacos
+	 * property sources are safe to cache, a value depending on random.* is never
+	 * cached. It default closed(false).
+	 */
+	private boolean placeholderCacheEnabled = false;
+
+	/**
+	 * debounce window for refresh in milliseconds, changes pushed within the window are
+	 * merged into one refresh. It default closed(0).
+	 */
+	private long refreshDebounceWindow = 0;
+
+	/**
+	 * the maximum delay in milliseconds between the first merged change and its
+	 * refresh, it bounds the debounce window under continuous changes.
+	 */
+	private long refreshMaxDelay = 3000;
+
+	/**
+	 * whether the config listeners are registered on a background thread once the
+	 * application is ready, the readiness state refuses traffic until they are all
+	 * registered.
+	 */
+	private boolean asyncListenerRegistration = false;
+
+	/**
+	 * the number of threads handling config changes, changes of one dataId keep their
+	 * order. It default 0, changes are handled on the Nacos notify thread.
+	 */
+	private int refreshExecutorThreads = 0;
+
+	/**
+	 * the maximum number of config changes waiting to be handled, the Nacos notify
+	 * thread waits once it is reached.
+	 */
+	private int refreshExecutorQueueCapacity = 256;
+
+	/**
+	 * whether config changes are handled on virtual threads, needs JDK 21 and takes
+	 * precedence over refresh-executor-threads.
+	 */
+	private boolean refreshExecutorVirtualThreads = false;
+
+	/**
+	 * the interval in milliseconds the health indicator refreshes the status of the
+	 * config clients at, the health probes are answered from the last refresh.
+	 */
+	private long healthRefreshInterval = 10000;
+
+	/**
+	 * the interval in milliseconds the health indicator compares the md5 of the
+	 * listened configs with the server at, 0 to never compare. Each comparison fetches
+	 * every listened config from the server.
+	 */
+	private long healthCheckInterval = 0;
+
+	/**
+	 * how long in milliseconds a listened config may differ from the server before the
+	 * health indicator is down, 0 to only report it.
+	 */
+	private long healthMaxStaleness = 0;
+
 	// todo sts support
 
 	public String getServerAddr() {
@@ -360,6 +440,14 @@ public class NacosConfigProperties {
 		this.timeout = timeout;
 	}
 
+	public int getSoftTimeout() {
+		return softTimeout;
+	}
+
+	public void setSoftTimeout(int softTimeout) {
+		this.softTimeout = softTimeout;
+	}
+
 	public String getMaxRetry() {
 		return maxRetry;
 	}
@@ -496,6 +584,94 @@ public class NacosConfigProperties {
 		this.refreshEnabled = refreshEnabled;
 	}
 
+	public boolean isTargetedRefreshEnabled() {
+		return targetedRefreshEnabled;
+	}
+
+	public void setTargetedRefreshEnabled(boolean targetedRefreshEnabled) {
+		this.targetedRefreshEnabled = targetedRefreshEnabled;
+	}
+
+	public boolean isPlaceholderCacheEnabled() {
+		return placeholderCacheEnabled;
+	}
+
+	public void setPlaceholderCacheEnabled(boolean placeholderCacheEnabled) {
+		this.placeholderCacheEnabled = placeholderCacheEnabled;
+	}
+
+	public long getRefreshDebounceWindow() {
+		return refreshDebounceWindow;
+	}
+
+	public void setRefreshDebounceWindow(long refreshDebounceWindow) {
+		this.refreshDebounceWindow = refreshDebounceWindow;
+	}
+
+	public long getRefreshMaxDelay() {
+		return refreshMaxDelay;
+	}
+
+	public void setRefreshMaxDelay(long refreshMaxDelay) {
+		this.refreshMaxDelay = refreshMaxDelay;
+	}
+
+	public boolean isAsyncListenerRegistration() {
+		return asyncListenerRegistration;
+	}
+
+	public void setAsyncListenerRegistration(boolean asyncListenerRegistration) {
+		this.asyncListenerRegistration = asyncListenerRegistration;
+	}
+
+	public int getRefreshExecutorThreads() {
+		return refreshExecutorThreads;
+	}
+
+	public void setRefreshExecutorThreads(int refreshExecutorThreads) {
+		this.refreshExecutorThreads = refreshExecutorThreads;
+	}
+
+	public int getRefreshExecutorQueueCapacity() {
+		return refreshExecutorQueueCapacity;
+	}
+
+	public void setRefreshExecutorQueueCapacity(int refreshExecutorQueueCapacity) {
+		this.refreshExecutorQueueCapacity = refreshExecutorQueueCapacity;
+	}
+
+	public boolean isRefreshExecutorVirtualThreads() {
+		return refreshExecutorVirtualThreads;
+	}
+
+	public void setRefreshExecutorVirtualThreads(boolean refreshExecutorVirtualThreads) {
+		this.refreshExecutorVirtualThreads = refreshExecutorVirtualThreads;
+	}
+
+	public long getHealthRefreshInterval() {
+		return healthRefreshInterval;
+	}
+
+	public void setHealthRefreshInterval(long healthRefreshInterval) {
+		this.healthRefreshInterval = healthRefreshInterval;
+	}
+
+	public long getHealthCheckInterval() {
+		return healthCheckInterval;
+	}
+
+	public void setHealthCheckInterval(long healthCheckInterval) {
+		this.healthCheckInterval = healthCheckInterval;
+	}
+
+	public long getHealthMaxStaleness() {
+		return healthMaxStaleness;
+	}
+
+	public void setHealthMaxStaleness(long healthMaxStaleness) {
+		this.healthMaxStaleness = healthMaxStaleness;
+	}
+
 	/**
 	 * recommend to use {@link NacosConfigProperties#sharedConfigs} .
 	 * @return string
@@ -710,6 +886,42 @@ public class NacosConfigProperties {
 		 */
 		private boolean refresh = false;
 
+		/**
+		 * whether the dataId is a manifest listing the dataIds of the shards of the
+		 * configuration, one per line, the default is false.
+		 *
+		 * 是否为分片配置的清单，默认 false
+		 */
+		private boolean sharded = false;
+
+		/**
+		 * the server address to load the configuration from, the default is
+		 * spring.cloud.nacos.config.server-addr.
+		 *
+		 * 加载配置的服务端地址，默认同 spring.cloud.nacos.config.server-addr
+		 */
+		private String serverAddr;
+
+		/**
+		 * the namespace to load the configuration from, the default is
+		 * spring.cloud.nacos.config.namespace.
+		 *
+		 * 加载配置的命名空间，默认同 spring.cloud.nacos.config.namespace
+		 */
+		private String namespace;
+
+		/**
+		 * the username of the server, the default is
+		 * spring.cloud.nacos.config.username.
+		 */
+		private String username;
+
+		/**
+		 * the password of the server, the default is
+		 * spring.cloud.nacos.config.password.
+		 */
+		private String password;
+
 		public Config() {
 		}
 
@@ -759,10 +971,57 @@ public class NacosConfigProperties {
 			return this;
 		}
 
+		public boolean isSharded() {
+			return sharded;
+		}
+
+		public Config setSharded(boolean sharded) {
+			this.sharded = sharded;
+			return this;
+		}
+
+		public String getServerAddr() {
+			return serverAddr;
+		}
+
+		public Config setServerAddr(String serverAddr) {
+			this.serverAddr = serverAddr;
+			return this;
+		}
+
+		public String getNamespace() {
+			return namespace;
+		}
+
+		public Config setNamespace(String namespace) {
+			this.namespace = namespace;
+			return this;
+		}
+
+		public String getUsername() {
+			return username;
+		}
+
+		public Config setUsername(String username) {
+			this.username = username;
+			return this;
+		}
+
+		public String getPassword() {
+			return password;
+		}
+
+		public Config setPassword(String password) {
+			this.password = password;
+			return this;
+		}
+
 		@Override
 		public String toString() {
 			return "Config{" + "dataId='" + dataId + '\'' + ", group='" + group + '\''
-					+ ", refresh=" + refresh + '}';
+					+ ", refresh=" + refresh + ", sharded=" + sharded + ", serverAddr='"
+					+ serverAddr + '\'' + ", namespace='" + namespace + '\''
+					+ ", username='" + username + '\'' + '}';
 		}
 
 		@Override
@@ -774,13 +1033,19 @@ public class NacosConfigProperties {
 				return false;
 			}
 			Config config = (Config) o;
-			return refresh == config.refresh && Objects.equals(dataId, config.dataId)
-					&& Objects.equals(group, config.group);
+			return refresh == config.refresh && sharded == config.sharded
+					&& Objects.equals(dataId, config.dataId)
+					&& Objects.equals(group, config.group)
+					&& Objects.equals(serverAddr, config.serverAddr)
+					&& Objects.equals(namespace, config.namespace)
+					&& Objects.equals(username, config.username)
+					&& Objects.equals(password, config.password);
 		}
 
 		@Override
 		public int hashCode() {
-			return Objects.hash(dataId, group, refresh);
+			return Objects.hash(dataId, group, refresh, sharded, serverAddr, namespace,
+					username, password);
 		}
 
 	}
@@ -72,9 +72,18 @@ public final class NacosPropertySourceRepository {
 
 	public static void collectNacosPropertySource(
 			NacosPropertySource nacosPropertySource) {
-		NACOS_PROPERTY_SOURCE_REPOSITORY
-				.putIfAbsent(getMapKey(nacosPropertySource.getDataId(),
-						nacosPropertySource.getGroup()), nacosPropertySource);
+		NACOS_PROPERTY_SOURCE_REPOSITORY.putIfAbsent(getMapKey(nacosPropertySource),
+				nacosPropertySource);
+	}
+
+	/**
+	 * Replace the cached property source of a dataId, e.g. after it has been refreshed.
+	 * @param nacosPropertySource nacosPropertySource
+	 */
+	public static void updateNacosPropertySource(
+			NacosPropertySource nacosPropertySource) {
+		NACOS_PROPERTY_SOURCE_REPOSITORY.put(getMapKey(nacosPropertySource),
+				nacosPropertySource);
 	}
 
 	public static NacosPropertySource getNacosPropertySource(String dataId,
@@ -82,6 +91,18 @@ public final class NacosPropertySourceRepository {
 		return NACOS_PROPERTY_SOURCE_REPOSITORY.get(getMapKey(dataId, group));
 	}
 
+	/**
+	 * @param dataId dataId
+	 * @param group group
+	 * @param client the name of the client the dataId is loaded from, null for the
+	 * default one
+	 * @return the property source, null if the dataId is not loaded from the client
+	 */
+	public static NacosPropertySource getNacosPropertySource(String dataId,
+			String group, String client) {
+		return NACOS_PROPERTY_SOURCE_REPOSITORY.get(getMapKey(dataId, group, client));
+	}
+
 	/**
 	 * 组合 group 和 dataId
 	 * @param dataId
@@ -93,4 +114,23 @@ public final class NacosPropertySourceRepository {
 				String.valueOf(group));
 	}
 
+	/**
+	 * Key of a dataId loaded from a client, the same dataId may be loaded from several
+	 * servers and namespaces.
+	 * @param dataId dataId
+	 * @param group group
+	 * @param client the name of the client, null for the default one
+	 * @return dataId,group for the default client, dataId,group,client otherwise
+	 */
+	public static String getMapKey(String dataId, String group, String client) {
+		return client == null ? getMapKey(dataId, group)
+				: String.join(NacosConfigProperties.COMMAS, String.valueOf(dataId),
+						String.valueOf(group), client);
+	}
+
+	private static String getMapKey(NacosPropertySource nacosPropertySource) {
+		return getMapKey(nacosPropertySource.getDataId(), nacosPropertySource.getGroup(),
+				nacosPropertySource.getClient());
+	}
+
 }
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.client;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+/**
+ * A read-only map of the properties of a {@link NacosPropertySource}.
+ * <p>
+ * Keys and values are kept in two arrays in insertion order, with an open addressing
+ * table of array indexes for the lookups. Compared to a {@link java.util.LinkedHashMap}
+ * there is no entry object per property, entries are only created while iterating the
+ * {@link #entrySet()}.
+ *
+ * @author chengrui
+ */
+final class CompactPropertyMap extends AbstractMap<String, Object> {
+
+	private final String[] keys;
+
+	private final Object[] values;
+
+	/**
+	 * Index + 1 of the key in {@link #keys}, 0 for an empty slot.
+	 */
+	private final int[] table;
+
+	private Set<String> keySet;
+
+	private Set<Map.Entry<String, Object>> entrySet;
+
+	private CompactPropertyMap(Map<String, Object> source) {
+		int size = source.size();
+		this.keys = new String[size];
+		this.values = new Object[size];
+		this.table = new int[tableSize(size)];
+		int index = 0;
+		for (Map.Entry<String, Object> entry : source.entrySet()) {
+			String key = entry.getKey();
+			keys[index] = key;
+			values[index] = entry.getValue();
+			int slot = hash(key) & (table.length - 1);
+			while (table[slot] != 0) {
+				slot = (slot + 1) & (table.length - 1);
+			}
+			table[slot] = ++index;
+		}
+	}
+
+	/**
+	 * Copy the source into a compact map, a {@link ShardedPropertyMap} is kept as it is.
+	 * @param source a map with non null keys
+	 * @return the compact map
+	 */
+	static Map<String, Object> of(Map<String, Object> source) {
+		if (source instanceof CompactPropertyMap
+				|| source instanceof ShardedPropertyMap) {
+			return source;
+		}
+		return new CompactPropertyMap(source);
+	}
+
+	private static int tableSize(int size) {
+		int tableSize = 2;
+		// at most half full.
+		while (tableSize < size * 2) {
+			tableSize <<= 1;
+		}
+		return tableSize;
+	}
+
+	private static int hash(Object key) {
+		int h = key.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	private int indexOf(Object key) {
+		if (!(key instanceof String)) {
+			return -1;
+		}
+		int slot = hash(key) & (table.length - 1);
+		int index;
+		while ((index = table[slot]) != 0) {
+			if (keys[index - 1].equals(key)) {
+				return index - 1;
+			}
+			slot = (slot + 1) & (table.length - 1);
+		}
+		return -1;
+	}
+
+	/**
+	 * @return a copy of the keys in insertion order
+	 */
+	String[] getKeys() {
+		return keys.clone();
+	}
+
+	@Override
+	public int size() {
+		return keys.length;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return indexOf(key) >= 0;
+	}
+
+	@Override
+	public Object get(Object key) {
+		int index = indexOf(key);
+		return index < 0 ? null : values[index];
+	}
+
+	@Override
+	public Set<String> keySet() {
+		if (keySet == null) {
+			keySet = new ArraySet<String>() {
+				@Override
+				public boolean contains(Object o) {
+					return containsKey(o);
+				}
+			}.withElements(index -> keys[index]);
+		}
+		return keySet;
+	}
+
+	@Override
+	public Set<Map.Entry<String, Object>> entrySet() {
+		if (entrySet == null) {
+			entrySet = new ArraySet<Map.Entry<String, Object>>() {
+				@Override
+				public boolean contains(Object o) {
+					if (!(o instanceof Map.Entry)) {
+						return false;
+					}
+					Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+					int index = indexOf(entry.getKey());
+					return index >= 0 && (values[index] == null ? entry.getValue() == null
+							: values[index].equals(entry.getValue()));
+				}
+			}.withElements(index -> new SimpleImmutableEntry<>(keys[index],
+					values[index]));
+		}
+		return entrySet;
+	}
+
+	/**
+	 * A read-only view of the arrays.
+	 */
+	private abstract class ArraySet<E> extends AbstractSet<E> {
+
+		private IntFunction<E> element;
+
+		ArraySet<E> withElements(IntFunction<E> element) {
+			this.element = element;
+			return this;
+		}
+
+		@Override
+		public int size() {
+			return keys.length;
+		}
+
+		@Override
+		public Iterator<E> iterator() {
+			return new Iterator<E>() {
+
+				private int next;
+
+				@Override
+				public boolean hasNext() {
+					return next < keys.length;
+				}
+
+				@Override
+				public E next() {
+					if (next >= keys.length) {
+						throw new NoSuchElementException();
+					}
+					return element.apply(next++);
+				}
+
+			};
+		}
+
+	}
+
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.client;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.alibaba.cloud.nacos.NacosPropertySourceRepository;
+import com.alibaba.nacos.api.config.ConfigService;
+import com.alibaba.nacos.api.exception.NacosException;
+import com.alibaba.nacos.client.config.NacosConfigService;
+import com.alibaba.nacos.client.config.http.HttpAgent;
+import com.alibaba.nacos.client.config.impl.LocalConfigInfoProcessor;
+import com.alibaba.nacos.common.executor.NameThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Background fetch of the configs answered by a previously loaded property source, or by
+ * the local snapshot of the Nacos client on a cold start, once the soft timeout expired,
+ * see {@link com.alibaba.cloud.nacos.NacosConfigProperties#getSoftTimeout()}.
+ * <p>
+ * When the fetched content differs from the served one, the cached property source is
+ * replaced and the content is handed to the listeners, e.g. the
+ * {@link com.alibaba.cloud.nacos.refresh.NacosContextRefresher} refreshes the dataId
+ * like a pushed change. A content revalidated before any listener is added is kept
+ * until one is.
+ *
+ * @author chengrui
+ */
+public final class NacosConfigRevalidator {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(NacosConfigRevalidator.class);
+
+	private static final ExecutorService FETCH_EXECUTOR = Executors
+			.newCachedThreadPool(new NameThreadFactory("com.alibaba.cloud.nacos.fetch"));
+
+	private static final List<Listener> LISTENERS = new ArrayList<>();
+
+	/**
+	 * Set once the snapshots of the Nacos client can not be read, see
+	 * {@link #getSnapshot(ConfigService, String, String)}.
+	 */
+	private static final AtomicBoolean SNAPSHOT_UNSUPPORTED = new AtomicBoolean();
+
+	/**
+	 * Revalidated contents waiting for a listener, keyed by dataId, group and client.
+	 */
+	private static final Map<String, Revalidation> PENDING = new LinkedHashMap<>();
+
+	private NacosConfigRevalidator() {
+
+	}
+
+	/**
+	 * Add a listener of the revalidated contents, the pending ones are handed to it at
+	 * once.
+	 * @param listener the listener
+	 */
+	public static void addListener(Listener listener) {
+		List<Revalidation> pending;
+		synchronized (LISTENERS) {
+			LISTENERS.add(listener);
+			pending = new ArrayList<>(PENDING.values());
+			PENDING.clear();
+		}
+		for (Revalidation revalidation : pending) {
+			notify(listener, revalidation);
+		}
+	}
+
+	public static void removeListener(Listener listener) {
+		synchronized (LISTENERS) {
+			LISTENERS.remove(listener);
+		}
+	}
+
+	static CompletableFuture<String> fetch(ConfigService configService, String dataId,
+			String group, long timeout) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return configService.getConfig(dataId, group, timeout);
+			}
+			catch (NacosException e) {
+				throw new CompletionException(e);
+			}
+		}, FETCH_EXECUTOR);
+	}
+
+	/**
+	 * Read the snapshot the Nacos client saved the last time it fetched a config, the
+	 * one it falls back to when the server cannot be reached.
+	 * <p>
+	 * The snapshot location is read from the internals of {@link NacosConfigService}.
+	 * When they are not the expected ones, e.g. after a client upgrade, a warning is
+	 * logged once and the snapshot fallback is disabled.
+	 * @param configService the config service, only a {@link NacosConfigService} keeps
+	 * snapshots
+	 * @param dataId dataId
+	 * @param group group
+	 * @return the content of the snapshot, or null if there is none
+	 */
+	static String getSnapshot(ConfigService configService, String dataId,
+			String group) {
+		if (!(configService instanceof NacosConfigService)
+				|| SNAPSHOT_UNSUPPORTED.get()) {
+			return null;
+		}
+		try {
+			Object agent = getField(configService, "agent");
+			Field namespaceField = ReflectionUtils.findField(configService.getClass(),
+					"namespace", String.class);
+			if (!(agent instanceof HttpAgent) || namespaceField == null) {
+				disableSnapshot(configService, null);
+				return null;
+			}
+			ReflectionUtils.makeAccessible(namespaceField);
+			Object namespace = ReflectionUtils.getField(namespaceField, configService);
+			return LocalConfigInfoProcessor.getSnapshot(((HttpAgent) agent).getName(),
+					dataId, group, namespace != null ? namespace.toString()
+							: ((HttpAgent) agent).getNamespace());
+		}
+		catch (RuntimeException | LinkageError e) {
+			disableSnapshot(configService, e);
+			return null;
+		}
+	}
+
+	private static void disableSnapshot(ConfigService configService, Throwable e) {
+		if (SNAPSHOT_UNSUPPORTED.compareAndSet(false, true)) {
+			log.warn(
+					"Can not read the config snapshots of {}, the snapshot is no longer served on a slow cold start",
+					configService.getClass().getName(), e);
+		}
+	}
+
+	private static Object getField(Object target, String name) {
+		Field field = ReflectionUtils.findField(target.getClass(), name);
+		if (field == null) {
+			return null;
+		}
+		ReflectionUtils.makeAccessible(field);
+		return ReflectionUtils.getField(field, target);
+	}
+
+	/**
+	 * Compare the content of the fetch with the served property source once it
+	 * completes.
+	 * @param fetch the pending fetch
+	 * @param served the served property source
+	 * @param fileExtension the file extension of the content, may be null
+	 */
+	static void revalidate(CompletableFuture<String> fetch, NacosPropertySource served,
+			String fileExtension) {
+		String dataId = served.getDataId();
+		String group = served.getGroup();
+		fetch.whenComplete((content, error) -> {
+			if (error != null) {
+				log.warn("revalidate config from Nacos error,dataId:{} ", dataId, error);
+				return;
+			}
+			try {
+				NacosPropertySource fetched = NacosSharedSources.create(dataId, group,
+						content, fileExtension, served.isRefreshable(),
+						served.getClient());
+				if (fetched.getSource().equals(served.getSource())) {
+					return;
+				}
+				log.info("[Nacos Config] config[dataId={}, group={}] changed while "
+						+ "served from cache, refreshing it", dataId, group);
+				NacosPropertySourceRepository.updateNacosPropertySource(fetched);
+				publish(new Revalidation(fetched, content));
+			}
+			catch (Exception e) {
+				log.warn("revalidate config from Nacos error,dataId:{} ", dataId, e);
+			}
+		});
+	}
+
+	private static void publish(Revalidation revalidation) {
+		List<Listener> listeners;
+		synchronized (LISTENERS) {
+			if (LISTENERS.isEmpty()) {
+				// the latest content of a dataId wins.
+				NacosPropertySource fetched = revalidation.fetched;
+				PENDING.put(NacosPropertySourceRepository.getMapKey(fetched.getDataId(),
+						fetched.getGroup(), fetched.getClient()), revalidation);
+				return;
+			}
+			listeners = new ArrayList<>(LISTENERS);
+		}
+		for (Listener listener : listeners) {
+			notify(listener, revalidation);
+		}
+	}
+
+	private static void notify(Listener listener, Revalidation revalidation) {
+		try {
+			listener.onRevalidated(revalidation.fetched, revalidation.content);
+		}
+		catch (Exception e) {
+			log.warn(String.format(
+					"revalidation listener fail for nacos config ,dataId=[%s],group=[%s]",
+					revalidation.fetched.getDataId(), revalidation.fetched.getGroup()),
+					e);
+		}
+	}
+
+	/**
+	 * Listener of the contents that changed while served from cache.
+	 */
+	@FunctionalInterface
+	public interface Listener {
+
+		/**
+		 * Receive a revalidated content.
+		 * @param fetched the property source of the fetched content, telling the
+		 * dataId, group and client
+		 * @param content the fetched content
+		 */
+		void onRevalidated(NacosPropertySource fetched, String content);
+
+	}
+
+	private static final class Revalidation {
+
+		private final NacosPropertySource fetched;
+
+		private final String content;
+
+		private Revalidation(NacosPropertySource fetched, String content) {
+			this.fetched = fetched;
+			this.content = content;
+		}
+
+	}
+
+}
@@ -24,7 +24,11 @@ import java.util.List;
 import java.util.Map;
 
 import com.alibaba.cloud.nacos.NacosConfigProperties;
+import com.alibaba.cloud.nacos.NacosPropertySourceRepository;
 
+import org.springframework.boot.origin.Origin;
+import org.springframework.boot.origin.OriginLookup;
+import org.springframework.boot.origin.OriginTrackedValue;
 import org.springframework.core.env.MapPropertySource;
 import org.springframework.core.env.PropertySource;
 import org.springframework.util.CollectionUtils;
@@ -35,7 +39,8 @@ import org.springframework.util.CollectionUtils;
  *
  * nacos 加载远程配置
  */
-public class NacosPropertySource extends MapPropertySource {
+public class NacosPropertySource extends MapPropertySource
+		implements OriginLookup<String> {
 
 	/**
 	 * Nacos Group.
@@ -65,28 +70,88 @@ public class NacosPropertySource extends MapPropertySource {
 	 */
 	private final boolean isRefreshable;
 
+	/**
+	 * The file extension the content was parsed with, may be null.
+	 */
+	private final String fileExtension;
+
+	/**
+	 * The md5 of the content, null if unknown.
+	 */
+	private final String md5;
+
+	/**
+	 * The name of the client the content was loaded from, null for the default one.
+	 */
+	private final String client;
+
+	/**
+	 * The index of the document of the content held, e.g. of a '---' separated YAML
+	 * config, -1 if all the documents are merged.
+	 */
+	private final int document;
+
 	NacosPropertySource(String group, String dataId, Map<String, Object> source,
 			Date timestamp, boolean isRefreshable) {
-		// 创建父类，设置 PropertySource 名称为 dataId,group
-		super(String.join(NacosConfigProperties.COMMAS, dataId, group), source);
+		this(group, dataId, source, timestamp, isRefreshable, null);
+	}
+
+	NacosPropertySource(String group, String dataId, Map<String, Object> source,
+			Date timestamp, boolean isRefreshable, String fileExtension) {
+		this(group, dataId, source, timestamp, isRefreshable, fileExtension, null);
+	}
+
+	NacosPropertySource(String group, String dataId, Map<String, Object> source,
+			Date timestamp, boolean isRefreshable, String fileExtension, String md5) {
+		this(group, dataId, source, timestamp, isRefreshable, fileExtension, md5, null);
+	}
+
+	NacosPropertySource(String group, String dataId, Map<String, Object> source,
+			Date timestamp, boolean isRefreshable, String fileExtension, String md5,
+			String client) {
+		this(group, dataId, source, timestamp, isRefreshable, fileExtension, md5, client,
+				-1);
+	}
+
+	NacosPropertySource(String group, String dataId, Map<String, Object> source,
+			Date timestamp, boolean isRefreshable, String fileExtension, String md5,
+			String client, int document) {
+		// 创建父类，设置 PropertySource 名称为 dataId,group，其他客户端的配置追加客户端名称，单个文档追加文档序号
+		super(getName(dataId, group, client, document), CompactPropertyMap.of(source));
 		this.group = group;
 		this.dataId = dataId;
 		this.timestamp = timestamp;
 		this.isRefreshable = isRefreshable;
+		this.fileExtension = fileExtension;
+		this.md5 = md5;
+		this.client = client;
+		this.document = document;
+	}
+
+	private static String getName(String dataId, String group, String client,
+			int document) {
+		String name = NacosPropertySourceRepository.getMapKey(dataId, group, client);
+		return document < 0 ? name : name + " (document #" + document + ")";
 	}
 
 	public NacosPropertySource(List<PropertySource<?>> propertySources, String group,
 			String dataId, Date timestamp, boolean isRefreshable) {
+		this(propertySources, group, dataId, timestamp, isRefreshable, null);
+	}
+
+	public NacosPropertySource(List<PropertySource<?>> propertySources, String group,
+			String dataId, Date timestamp, boolean isRefreshable, String fileExtension) {
 		this(group, dataId, getSourceMap(group, dataId, propertySources), timestamp,
-				isRefreshable);
+				isRefreshable, fileExtension);
 	}
 
-	private static Map<String, Object> getSourceMap(String group, String dataId,
+	static Map<String, Object> getSourceMap(String group, String dataId,
 			List<PropertySource<?>> propertySources) {
 		if (CollectionUtils.isEmpty(propertySources)) {
 			return Collections.emptyMap();
 		}
-		// If only one, return the internal element, otherwise wrap it.
+		// If only one, return the internal element, otherwise wrap it. Either way it is
+		// copied into a compact map by the constructor.
 		if (propertySources.size() == 1) {
 			PropertySource propertySource = propertySources.get(0);
 			if (propertySource != null && propertySource.getSource() instanceof Map) {
@@ -125,6 +190,13 @@ public class NacosPropertySource extends MapPropertySource {
 		return sourceMap;
 	}
 
+	@Override
+	public String[] getPropertyNames() {
+		return this.source instanceof ShardedPropertyMap
+				? ((ShardedPropertyMap) this.source).getKeys()
+				: ((CompactPropertyMap) this.source).getKeys();
+	}
+
 	public String getGroup() {
 		return this.group;
 	}
@@ -141,4 +213,30 @@ public class NacosPropertySource extends MapPropertySource {
 		return isRefreshable;
 	}
 
+	public String getFileExtension() {
+		return fileExtension;
+	}
+
+	public String getMd5() {
+		return md5;
+	}
+
+	public String getClient() {
+		return client;
+	}
+
+	/**
+	 * @return the index of the document held, -1 if all the documents are merged
+	 */
+	public int getDocument() {
+		return document;
+	}
+
+	@Override
+	public Origin getOrigin(String key) {
+		Object value = this.source.get(key);
+		return value instanceof OriginTrackedValue
+				? ((OriginTrackedValue) value).getOrigin() : null;
+	}
+
 }
@@ -16,20 +16,23 @@
 
 package com.alibaba.cloud.nacos.client;
 
+import java.io.IOException;
 import java.util.Collections;
 import java.util.Date;
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import com.alibaba.cloud.commons.lang.StringUtils;
+import com.alibaba.cloud.nacos.NacosConfigManager;
 import com.alibaba.cloud.nacos.NacosPropertySourceRepository;
-import com.alibaba.cloud.nacos.parser.NacosDataParserHandler;
+import com.alibaba.cloud.nacos.metrics.NacosStartupRecorder;
 import com.alibaba.nacos.api.config.ConfigService;
 import com.alibaba.nacos.api.exception.NacosException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import org.springframework.core.env.PropertySource;
-
 /**
  * @author xiaojing
  * @author pbting
@@ -51,6 +54,11 @@ public class NacosPropertySourceBuilder {
 	 */
 	private long timeout;
 
+	/**
+	 * 获取配置的软超时时间，超时后使用已加载的配置，冷启动时使用 Nacos 客户端的本地快照，0 表示关闭.
+	 */
+	private long softTimeout;
+
 	public NacosPropertySourceBuilder(ConfigService configService, long timeout) {
 		this.configService = configService;
 		this.timeout = timeout;
@@ -64,6 +72,14 @@ public class NacosPropertySourceBuilder {
 		this.timeout = timeout;
 	}
 
+	public long getSoftTimeout() {
+		return softTimeout;
+	}
+
+	public void setSoftTimeout(long softTimeout) {
+		this.softTimeout = softTimeout;
+	}
+
 	public ConfigService getConfigService() {
 		return configService;
 	}
@@ -81,55 +97,189 @@ public class NacosPropertySourceBuilder {
 	 */
 	NacosPropertySource build(String dataId, String group, String fileExtension,
 			boolean isRefreshable) {
-		// 加载 nacos 配置
-		List<PropertySource<?>> propertySources = loadNacosData(dataId, group,
-				fileExtension);
-		// 构建 NacosPropertySource
-		NacosPropertySource nacosPropertySource = new NacosPropertySource(propertySources,
-				group, dataId, new Date(), isRefreshable);
+		return build(dataId, group, fileExtension, isRefreshable, false);
+	}
+
+	/**
+	 * @param dataId Nacos dataId
+	 * @param group Nacos group
+	 * @param sharded whether the dataId is the manifest of a
+	 * {@link NacosShardedConfig}
+	 *
+	 * 构建 NacosPropertySource，分片配置合并为一个 NacosPropertySource
+	 */
+	NacosPropertySource build(String dataId, String group, String fileExtension,
+			boolean isRefreshable, boolean sharded) {
+		// 加载 nacos 配置，构建 NacosPropertySource
+		NacosPropertySource nacosPropertySource = sharded
+				? loadShardedData(dataId, group, fileExtension, isRefreshable)
+				: loadNacosData(dataId, group, fileExtension, isRefreshable);
 		// 将加载的 NacosPropertySource 放入 NacosPropertySourceRepository 中
 		// NacosPropertySourceRepository 中保存所有从 nacos 远程加载的 NacosPropertySource
-		// 将配置缓存到本地缓存中
-		NacosPropertySourceRepository.collectNacosPropertySource(nacosPropertySource);
+		// 每次加载成功都替换缓存，超时或失败时使用的已加载配置始终是最近一次加载的配置
+		if (nacosPropertySource != null) {
+			NacosPropertySourceRepository.updateNacosPropertySource(nacosPropertySource);
+		}
+		else {
+			nacosPropertySource = empty(dataId, group, fileExtension, isRefreshable);
+			NacosPropertySourceRepository.collectNacosPropertySource(nacosPropertySource);
+		}
+		// 记录配置所属的 ConfigService，监听器注册在其上
+		NacosConfigManager.bindConfigService(dataId, group, getClient(),
+				configService);
 		return nacosPropertySource;
 	}
 
 	/**
-	 * 加载 nacos 配置
+	 * 并行加载分片配置，见 {@link NacosShardedConfig}.
+	 * @return NacosPropertySource，加载失败时为 null
+	 */
+	private NacosPropertySource loadShardedData(String dataId, String group,
+			String fileExtension, boolean isRefreshable) {
+		try {
+			return NacosShardedConfig.load(configService, dataId, group, fileExtension,
+					isRefreshable, timeout);
+		}
+		catch (NacosException e) {
+			log.error("get sharded data from Nacos error,dataId:{} ", dataId, e);
+		}
+		catch (Exception e) {
+			log.error("parse sharded data from Nacos error,dataId:{}", dataId, e);
+		}
+		return null;
+	}
+
+	/**
+	 * 加载 nacos 配置，相同内容的解析结果在 JVM 内共享，见 {@link NacosSharedSources}
 	 * @param dataId 配置名
 	 * @param group 分组
 	 * @param fileExtension 配置扩展名
-	 * @return List<PropertySource<?>>
+	 * @param isRefreshable 是否刷新
+	 * @return NacosPropertySource，加载失败时为 null
 	 */
-	private List<PropertySource<?>> loadNacosData(String dataId, String group,
-			String fileExtension) {
+	private NacosPropertySource loadNacosData(String dataId, String group,
+			String fileExtension, boolean isRefreshable) {
 		String data = null;
+		NacosPropertySource cached = NacosPropertySourceRepository
+				.getNacosPropertySource(dataId, group, getClient());
 		try {
-			// 获取配置，此处通过 NacodConfigService.getConfig(dataId, group, timeout) 获取
-			// 源码详见 Nacos 源码
-			data = configService.getConfig(dataId, group, timeout);
+			if (softTimeout > 0 && softTimeout < timeout) {
+				// 超过软超时时间则先使用已加载的配置，冷启动时使用本地快照，在后台继续获取
+				CompletableFuture<String> fetch = NacosConfigRevalidator.fetch(
+						configService, dataId, group, timeout);
+				NacosStartupRecorder.Step step = NacosStartupRecorder
+						.start(NacosStartupRecorder.Phase.FETCH, dataId, group);
+				try {
+					try {
+						data = fetch.get(softTimeout, TimeUnit.MILLISECONDS);
+					}
+					catch (TimeoutException e) {
+						NacosPropertySource served = cached != null
+								? withRefreshable(cached, isRefreshable)
+								: loadSnapshot(dataId, group, fileExtension,
+										isRefreshable);
+						if (served != null) {
+							log.warn(
+									"Get config from Nacos exceeds {} ms, use the {} config and revalidate it, dataId:{}",
+									softTimeout, cached != null ? "loaded" : "snapshot",
+									dataId);
+							NacosConfigRevalidator.revalidate(fetch, served,
+									fileExtension);
+							return served;
+						}
+						// 冷启动且没有本地快照，等待获取完成，getConfig 自身受 timeout 限制
+						data = fetch.get();
+					}
+				}
+				catch (ExecutionException e) {
+					if (e.getCause() instanceof NacosException) {
+						throw (NacosException) e.getCause();
+					}
+					throw e;
+				}
+				finally {
+					step.end(data);
+				}
+			}
+			else {
+				// 获取配置，此处通过 NacodConfigService.getConfig(dataId, group, timeout) 获取
+				// 源码详见 Nacos 源码
+				NacosStartupRecorder.Step step = NacosStartupRecorder
+						.start(NacosStartupRecorder.Phase.FETCH, dataId, group);
+				try {
+					data = configService.getConfig(dataId, group, timeout);
+				}
+				finally {
+					step.end(data);
+				}
+			}
 			if (StringUtils.isEmpty(data)) {
 				log.warn(
 						"Ignore the empty nacos configuration and get it based on dataId[{}] & group[{}]",
 						dataId, group);
-				return Collections.emptyList();
 			}
-			if (log.isDebugEnabled()) {
+			else if (log.isDebugEnabled()) {
 				log.debug(String.format(
 						"Loading nacos data, dataId: '%s', group: '%s', data: %s", dataId,
 						group, data));
 			}
-			// 获取配置后，进行解析
-			return NacosDataParserHandler.getInstance().parseNacosData(dataId, data,
-					fileExtension);
+			// 获取配置后，进行解析，空配置同样记录其 md5
+			return NacosSharedSources.create(dataId, group, data, fileExtension,
+					isRefreshable, getClient());
 		}
 		catch (NacosException e) {
 			log.error("get data from Nacos error,dataId:{} ", dataId, e);
+			if (cached != null && softTimeout > 0) {
+				// 获取失败时同样使用已加载的配置
+				return withRefreshable(cached, isRefreshable);
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			log.error("get data from Nacos interrupted,dataId:{} ", dataId, e);
 		}
 		catch (Exception e) {
 			log.error("parse data from Nacos error,dataId:{},data:{}", dataId, data, e);
 		}
-		return Collections.emptyList();
+		return null;
+	}
+
+	/**
+	 * 解析 Nacos 客户端的本地快照，见 {@link NacosConfigRevalidator#getSnapshot}.
+	 * @return NacosPropertySource，没有快照时为 null
+	 */
+	private NacosPropertySource loadSnapshot(String dataId, String group,
+			String fileExtension, boolean isRefreshable) throws IOException {
+		String snapshot = NacosConfigRevalidator.getSnapshot(configService, dataId,
+				group);
+		if (snapshot == null) {
+			return null;
+		}
+		return NacosSharedSources.create(dataId, group, snapshot, fileExtension,
+				isRefreshable, getClient());
+	}
+
+	private static NacosPropertySource withRefreshable(NacosPropertySource cached,
+			boolean isRefreshable) {
+		if (cached.isRefreshable() == isRefreshable) {
+			return cached;
+		}
+		return new NacosPropertySource(cached.getGroup(), cached.getDataId(),
+				cached.getSource(), cached.getTimestamp(), isRefreshable,
+				cached.getFileExtension(), cached.getMd5(), cached.getClient());
+	}
+
+	private NacosPropertySource empty(String dataId, String group,
+			String fileExtension, boolean isRefreshable) {
+		return new NacosPropertySource(group, dataId, Collections.emptyMap(),
+				new Date(), isRefreshable, fileExtension, null, getClient());
+	}
+
+	/**
+	 * @return 加载配置的客户端名称，默认客户端为 null
+	 */
+	String getClient() {
+		return NacosConfigManager.getClientName(configService);
 	}
 
 }
@@ -22,6 +22,7 @@ import com.alibaba.cloud.commons.lang.StringUtils;
 import com.alibaba.cloud.nacos.NacosConfigManager;
 import com.alibaba.cloud.nacos.NacosConfigProperties;
 import com.alibaba.cloud.nacos.NacosPropertySourceRepository;
+import com.alibaba.cloud.nacos.metrics.NacosStartupRecorder;
 import com.alibaba.cloud.nacos.parser.NacosDataParserHandler;
 import com.alibaba.cloud.nacos.refresh.NacosContextRefresher;
 import com.alibaba.nacos.api.config.ConfigService;
@@ -93,6 +94,17 @@ public class NacosPropertySourceLocator implements PropertySourceLocator {
 	 */
 	@Override
 	public PropertySource<?> locate(Environment env) {
+		NacosStartupRecorder.Step step = NacosStartupRecorder
+				.start(NacosStartupRecorder.Phase.LOCATE, null, null);
+		try {
+			return doLocate(env);
+		}
+		finally {
+			step.end();
+		}
+	}
+
+	private PropertySource<?> doLocate(Environment env) {
 		nacosConfigProperties.setEnvironment(env);
 		// 获取 NacosConfigService
 		ConfigService configService = nacosConfigManager.getConfigService();
@@ -106,6 +118,8 @@ public class NacosPropertySourceLocator implements PropertySourceLocator {
 		// 创建 NacosPropertySourceBuilder
 		nacosPropertySourceBuilder = new NacosPropertySourceBuilder(configService,
 				timeout);
+		nacosPropertySourceBuilder
+				.setSoftTimeout(nacosConfigProperties.getSoftTimeout());
 		// 获取名称
 		String name = nacosConfigProperties.getName();
         // 获取 dataId 前缀
@@ -208,12 +222,29 @@ public class NacosPropertySourceLocator implements PropertySourceLocator {
 			List<NacosConfigProperties.Config> configs) {
 	    // 遍历配置
 		for (NacosConfigProperties.Config config : configs) {
-		    // 如果数据存在，则加载配置
-			loadNacosDataIfPresent(composite, config.getDataId(), config.getGroup(),
+		    // 如果数据存在，则加载配置，可指定其他服务端、命名空间
+			loadNacosDataIfPresent(composite, builderFor(config), config.getDataId(),
+					config.getGroup(),
 					NacosDataParserHandler.getInstance()
 							.getFileExtension(config.getDataId()),
-					config.isRefresh());
+					config.isRefresh(), config.isSharded());
+		}
+	}
+
+	/**
+	 * 配置指定了其他服务端、命名空间时，使用其 ConfigService 加载.
+	 */
+	private NacosPropertySourceBuilder builderFor(NacosConfigProperties.Config config) {
+		ConfigService configService = nacosConfigManager.getConfigService(
+				config.getServerAddr(), config.getNamespace(), config.getUsername(),
+				config.getPassword());
+		if (configService == nacosPropertySourceBuilder.getConfigService()) {
+			return nacosPropertySourceBuilder;
 		}
+		NacosPropertySourceBuilder builder = new NacosPropertySourceBuilder(
+				configService, nacosPropertySourceBuilder.getTimeout());
+		builder.setSoftTimeout(nacosPropertySourceBuilder.getSoftTimeout());
+		return builder;
 	}
 
     /**
@@ -247,6 +278,18 @@ public class NacosPropertySourceLocator implements PropertySourceLocator {
 	private void loadNacosDataIfPresent(final CompositePropertySource composite,
 			final String dataId, final String group, String fileExtension,
 			boolean isRefreshable) {
+		loadNacosDataIfPresent(composite, nacosPropertySourceBuilder, dataId, group,
+				fileExtension, isRefreshable, false);
+	}
+
+	/**
+	 * 加载指定 dataId 的配置.
+	 * @param builder 加载配置的 NacosPropertySourceBuilder
+	 * @param sharded dataId 是否为分片配置的清单，见 {@link NacosShardedConfig}
+	 */
+	private void loadNacosDataIfPresent(final CompositePropertySource composite,
+			NacosPropertySourceBuilder builder, final String dataId, final String group, String fileExtension,
+			boolean isRefreshable, boolean sharded) {
 	    // 校验 dataId
 		if (null == dataId || dataId.trim().length() < 1) {
 			return;
@@ -256,34 +299,37 @@ public class NacosPropertySourceLocator implements PropertySourceLocator {
 			return;
 		}
 		// 加载配置到 NacosPropertySource 中
-		NacosPropertySource propertySource = this.loadNacosPropertySource(dataId, group,
-				fileExtension, isRefreshable);
+		NacosPropertySource propertySource = this.loadNacosPropertySource(builder,
+				dataId, group, fileExtension, isRefreshable, sharded);
 		// 添加 PropertySource
 		this.addFirstPropertySource(composite, propertySource, false);
 	}
 
     /**
      * 加载配置到 NacosPropertySource 中
+     * @param builder 加载配置的 NacosPropertySourceBuilder
      * @param dataId 配置名
      * @param group 分组
      * @param fileExtension 配置扩展名
      * @param isRefreshable 是否刷新
+     * @param sharded 是否为分片配置
      * @return NacosPropertySource
      */
-	private NacosPropertySource loadNacosPropertySource(final String dataId,
-			final String group, String fileExtension, boolean isRefreshable) {
+	private NacosPropertySource loadNacosPropertySource(
+			NacosPropertySourceBuilder builder, final String dataId,
+			final String group, String fileExtension, boolean isRefreshable,
+			boolean sharded) {
 		// 如果 nacos 上下文中配置的动态刷新监听数量
 		if (NacosContextRefresher.getRefreshCount() != 0) {
 		    // 是否支持刷新
 			if (!isRefreshable) {
 			    // 不支持，从缓存中获取配置
 				return NacosPropertySourceRepository.getNacosPropertySource(dataId,
-						group);
+						group, builder.getClient());
 			}
 		}
         // 支持，从 nacos 远程获取配置
-		return nacosPropertySourceBuilder.build(dataId, group, fileExtension,
-				isRefreshable);
+		return builder.build(dataId, group, fileExtension, isRefreshable, sharded);
 	}
 
 	/**
@@ -0,0 +1,372 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.client;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.cloud.commons.lang.StringUtils;
+import com.alibaba.cloud.nacos.NacosConfigManager;
+import com.alibaba.cloud.nacos.NacosPropertySourceRepository;
+import com.alibaba.cloud.nacos.metrics.NacosStartupRecorder;
+import com.alibaba.nacos.api.config.ConfigService;
+import com.alibaba.nacos.api.exception.NacosException;
+import com.alibaba.nacos.common.executor.NameThreadFactory;
+
+/**
+ * A config split into shards: the manifest dataId lists the shard dataIds, one per line,
+ * blank lines and lines starting with '#' are ignored. The shards share the group of the
+ * manifest and are merged in the listed order into one {@link NacosPropertySource}
+ * named after the manifest, a later shard overrides an earlier one.
+ * <p>
+ * The shards are fetched in parallel on a shared pool, and a changed shard is parsed
+ * again on its own, see {@link #update(String, String)}. The merged property source only
+ * refers to the shards, replacing one of them does not copy the others, see
+ * {@link #withShard(NacosPropertySource, NacosPropertySource)}, so that the refresh of a
+ * large config costs the size of the changed shard.
+ *
+ * @author chengrui
+ */
+public final class NacosShardedConfig {
+
+	/**
+	 * The loaded sharded configs, keyed by the dataId, group and client of the
+	 * manifest.
+	 */
+	private static final Map<String, NacosShardedConfig> CONFIGS = new ConcurrentHashMap<>(
+			16);
+
+	/**
+	 * The key of the manifest of a shard, keyed by the dataId, group and client of the
+	 * shard.
+	 */
+	private static final Map<String, String> MANIFESTS = new ConcurrentHashMap<>(16);
+
+	private static final int MAX_FETCH_THREADS = 8;
+
+	private final String dataId;
+
+	private final String group;
+
+	private final String fileExtension;
+
+	private final boolean isRefreshable;
+
+	/**
+	 * The name of the client the shards are loaded from, null for the default one.
+	 */
+	private final String client;
+
+	/**
+	 * The property source of each shard, in the manifest order, replaced as a whole on
+	 * update.
+	 */
+	private volatile Map<String, NacosPropertySource> shards;
+
+	private NacosShardedConfig(String dataId, String group, String fileExtension,
+			boolean isRefreshable, String client,
+			Map<String, NacosPropertySource> shards) {
+		this.dataId = dataId;
+		this.group = group;
+		this.fileExtension = fileExtension;
+		this.isRefreshable = isRefreshable;
+		this.client = client;
+		this.shards = shards;
+	}
+
+	/**
+	 * Fetch the manifest and its shards, and register the sharded config.
+	 * @param configService the config service
+	 * @param dataId the dataId of the manifest
+	 * @param group group
+	 * @param fileExtension the file extension of the shards whose dataId has none, may
+	 * be null
+	 * @param isRefreshable whether the property source is refreshable
+	 * @param timeout the timeout of each fetch
+	 * @return the merged property source
+	 * @throws NacosException thrown if a config cannot be fetched.
+	 * @throws IOException thrown if there is a problem parsing config.
+	 */
+	public static NacosPropertySource load(ConfigService configService, String dataId,
+			String group, String fileExtension, boolean isRefreshable, long timeout)
+			throws NacosException, IOException {
+		String client = NacosConfigManager.getClientName(configService);
+		List<String> shardDataIds = parseManifest(
+				fetch(configService, dataId, group, timeout));
+		Map<String, NacosPropertySource> shards = new LinkedHashMap<>();
+		List<CompletableFuture<NacosPropertySource>> futures = new ArrayList<>();
+		for (String shardDataId : shardDataIds) {
+			futures.add(CompletableFuture.supplyAsync(() -> {
+				try {
+					return createShard(shardDataId, group,
+							fetch(configService, shardDataId, group, timeout),
+							fileExtension, isRefreshable, client);
+				}
+				catch (NacosException | IOException e) {
+					throw new CompletionException(e);
+				}
+			}, Fetchers.POOL));
+		}
+		for (int i = 0; i < shardDataIds.size(); i++) {
+			shards.put(shardDataIds.get(i), join(futures.get(i)));
+		}
+		NacosConfigManager.bindConfigService(dataId, group, client, configService);
+		for (String shardDataId : shardDataIds) {
+			NacosConfigManager.bindConfigService(shardDataId, group, client,
+					configService);
+		}
+		NacosShardedConfig config = new NacosShardedConfig(dataId, group, fileExtension,
+				isRefreshable, client, shards);
+		register(config);
+		return config.toPropertySource();
+	}
+
+	private static String fetch(ConfigService configService, String dataId,
+			String group, long timeout) throws NacosException {
+		String content = null;
+		NacosStartupRecorder.Step step = NacosStartupRecorder
+				.start(NacosStartupRecorder.Phase.FETCH, dataId, group);
+		try {
+			content = configService.getConfig(dataId, group, timeout);
+			return content;
+		}
+		finally {
+			step.end(content);
+		}
+	}
+
+	/**
+	 * @param dataId the dataId of a manifest
+	 * @param group group
+	 * @return the sharded config, or null if the dataId is not a manifest
+	 */
+	public static NacosShardedConfig get(String dataId, String group) {
+		return get(dataId, group, null);
+	}
+
+	/**
+	 * @param dataId the dataId of a manifest
+	 * @param group group
+	 * @param client the name of the client, null for the default one
+	 * @return the sharded config, or null if the dataId is not a manifest
+	 */
+	public static NacosShardedConfig get(String dataId, String group, String client) {
+		return CONFIGS
+				.get(NacosPropertySourceRepository.getMapKey(dataId, group, client));
+	}
+
+	/**
+	 * @param dataId the dataId of a shard
+	 * @param group group
+	 * @return the sharded config the shard belongs to, or null if the dataId is not a
+	 * shard
+	 */
+	public static NacosShardedConfig getByShard(String dataId, String group) {
+		return getByShard(dataId, group, null);
+	}
+
+	/**
+	 * @param dataId the dataId of a shard
+	 * @param group group
+	 * @param client the name of the client, null for the default one
+	 * @return the sharded config the shard belongs to, or null if the dataId is not a
+	 * shard
+	 */
+	public static NacosShardedConfig getByShard(String dataId, String group,
+			String client) {
+		String manifest = MANIFESTS
+				.get(NacosPropertySourceRepository.getMapKey(dataId, group, client));
+		return manifest == null ? null : CONFIGS.get(manifest);
+	}
+
+	/**
+	 * Parse a changed shard again, the other shards are kept as they are. A content
+	 * already applied, e.g. by the refresh of another context, is not parsed again.
+	 * @param shardDataId the dataId of the shard
+	 * @param content the new content of the shard
+	 * @return the new property source of the shard
+	 * @throws IOException thrown if there is a problem parsing config.
+	 */
+	public synchronized NacosPropertySource update(String shardDataId, String content)
+			throws IOException {
+		NacosPropertySource current = shards.get(shardDataId);
+		if (current == null) {
+			throw new IllegalArgumentException(
+					"[" + shardDataId + "] is not a shard of [" + dataId + "]");
+		}
+		if (NacosSharedSources.md5(content).equals(current.getMd5())) {
+			return current;
+		}
+		NacosPropertySource shard = createShard(shardDataId, group, content,
+				fileExtension, isRefreshable, client);
+		Map<String, NacosPropertySource> updated = new LinkedHashMap<>(shards);
+		updated.put(shardDataId, shard);
+		this.shards = updated;
+		return shard;
+	}
+
+	/**
+	 * @return the shards merged into one property source named after the manifest
+	 */
+	public NacosPropertySource toPropertySource() {
+		return toPropertySource(new ShardedPropertyMap(
+				shards.values().toArray(new NacosPropertySource[0])));
+	}
+
+	/**
+	 * Replace a shard in a merged property source of this config, the other shards of
+	 * it are kept, whatever the shards currently registered.
+	 * @param merged a property source created by this config
+	 * @param shard the new property source of the shard
+	 * @return the merged property source with the shard replaced, or all the current
+	 * shards merged if the shard is not part of it
+	 */
+	public NacosPropertySource withShard(NacosPropertySource merged,
+			NacosPropertySource shard) {
+		ShardedPropertyMap replaced = merged.getSource() instanceof ShardedPropertyMap
+				? ((ShardedPropertyMap) merged.getSource()).withShard(shard) : null;
+		return replaced != null ? toPropertySource(replaced) : toPropertySource();
+	}
+
+	private NacosPropertySource toPropertySource(ShardedPropertyMap source) {
+		return new NacosPropertySource(group, dataId, source, new Date(), isRefreshable,
+				fileExtension, null, client);
+	}
+
+	/**
+	 * @param merged a merged property source of a sharded config
+	 * @param shardDataId the dataId of a shard
+	 * @return the property source of the shard merged into it, or null if it is not
+	 * part of it
+	 */
+	public static NacosPropertySource getShard(NacosPropertySource merged,
+			String shardDataId) {
+		return merged.getSource() instanceof ShardedPropertyMap
+				? ((ShardedPropertyMap) merged.getSource()).getShard(shardDataId) : null;
+	}
+
+	/**
+	 * @param shardDataId the dataId of a shard
+	 * @return the property source of the shard, or null if it is not a shard
+	 */
+	public NacosPropertySource getShard(String shardDataId) {
+		return shards.get(shardDataId);
+	}
+
+	/**
+	 * @return the dataIds of the shards, in the manifest order
+	 */
+	public List<String> getShardDataIds() {
+		return new ArrayList<>(shards.keySet());
+	}
+
+	public String getDataId() {
+		return dataId;
+	}
+
+	public String getGroup() {
+		return group;
+	}
+
+	public String getClient() {
+		return client;
+	}
+
+	static List<String> parseManifest(String manifest) {
+		if (StringUtils.isEmpty(manifest)) {
+			return Collections.emptyList();
+		}
+		List<String> shardDataIds = new ArrayList<>();
+		for (String line : manifest.split("\r?\n")) {
+			String shardDataId = line.trim();
+			if (!shardDataId.isEmpty() && !shardDataId.startsWith("#")
+					&& !shardDataIds.contains(shardDataId)) {
+				shardDataIds.add(shardDataId);
+			}
+		}
+		return shardDataIds;
+	}
+
+	private static NacosPropertySource createShard(String shardDataId, String group,
+			String content, String fileExtension, boolean isRefreshable, String client)
+			throws IOException {
+		// a shard named with an extension is parsed by it, like a shared config.
+		return NacosSharedSources.create(shardDataId, group, content,
+				shardDataId.contains(".") ? null : fileExtension, isRefreshable, client);
+	}
+
+	private static NacosPropertySource join(CompletableFuture<NacosPropertySource> future)
+			throws NacosException, IOException {
+		try {
+			return future.join();
+		}
+		catch (CompletionException e) {
+			if (e.getCause() instanceof NacosException) {
+				throw (NacosException) e.getCause();
+			}
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	private static synchronized void register(NacosShardedConfig config) {
+		String key = NacosPropertySourceRepository.getMapKey(config.dataId,
+				config.group, config.client);
+		NacosShardedConfig previous = CONFIGS.put(key, config);
+		if (previous != null) {
+			for (String shardDataId : previous.shards.keySet()) {
+				MANIFESTS.remove(NacosPropertySourceRepository.getMapKey(shardDataId,
+						config.group, config.client), key);
+			}
+		}
+		for (String shardDataId : config.shards.keySet()) {
+			MANIFESTS.put(NacosPropertySourceRepository.getMapKey(shardDataId,
+					config.group, config.client), key);
+		}
+	}
+
+	/**
+	 * The pool fetching the shards, shared by the loads, created on first use, its idle
+	 * threads end.
+	 */
+	private static final class Fetchers {
+
+		private static final ThreadPoolExecutor POOL;
+
+		static {
+			POOL = new ThreadPoolExecutor(MAX_FETCH_THREADS, MAX_FETCH_THREADS, 60,
+					TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+					new NameThreadFactory("com.alibaba.cloud.nacos.shard"));
+			POOL.allowCoreThreadTimeOut(true);
+		}
+
+	}
+
+}
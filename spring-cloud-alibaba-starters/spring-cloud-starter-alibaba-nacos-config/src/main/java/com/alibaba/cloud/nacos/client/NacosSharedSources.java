@@ -0,0 +1,242 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.client;
+
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.alibaba.cloud.commons.lang.StringUtils;
+import com.alibaba.cloud.nacos.NacosConfigProperties;
+import com.alibaba.cloud.nacos.metrics.NacosStartupRecorder;
+import com.alibaba.cloud.nacos.parser.NacosDataParserHandler;
+import com.alibaba.nacos.common.utils.MD5Utils;
+
+import org.springframework.core.env.PropertySource;
+
+/**
+ * JVM wide cache of parsed Nacos config content.
+ * <p>
+ * The parsed properties are keyed by dataId, group, file extension and the md5 of the
+ * content, so every Spring context of the JVM reading the same content shares one
+ * read-only map and the content is parsed once per change. An entry lives as long as a
+ * {@link NacosPropertySource} refers to its properties.
+ *
+ * @author chengrui
+ */
+public final class NacosSharedSources {
+
+	private static final Map<String, SourceReference> SOURCES = new ConcurrentHashMap<>(
+			16);
+
+	private static final ReferenceQueue<Map<String, Object>> QUEUE = new ReferenceQueue<>();
+
+	private static final AtomicLong HIT_COUNT = new AtomicLong();
+
+	private static final AtomicLong PARSE_COUNT = new AtomicLong();
+
+	private NacosSharedSources() {
+
+	}
+
+	/**
+	 * Create a property source of the content, sharing the parsed properties.
+	 * @param dataId dataId
+	 * @param group group
+	 * @param content the config content, may be empty
+	 * @param fileExtension the file extension, may be null
+	 * @param isRefreshable whether the property source is refreshable
+	 * @return the property source
+	 * @throws IOException thrown if there is a problem parsing config.
+	 */
+	public static NacosPropertySource create(String dataId, String group,
+			String content, String fileExtension, boolean isRefreshable)
+			throws IOException {
+		return create(dataId, group, content, fileExtension, isRefreshable, null);
+	}
+
+	/**
+	 * Create a property source of the content loaded from a client, sharing the parsed
+	 * properties.
+	 * @param dataId dataId
+	 * @param group group
+	 * @param content the config content, may be empty
+	 * @param fileExtension the file extension, may be null
+	 * @param isRefreshable whether the property source is refreshable
+	 * @param client the name of the client, null for the default one
+	 * @return the property source
+	 * @throws IOException thrown if there is a problem parsing config.
+	 */
+	public static NacosPropertySource create(String dataId, String group,
+			String content, String fileExtension, boolean isRefreshable, String client)
+			throws IOException {
+		String md5 = md5(content);
+		return new NacosPropertySource(group, dataId,
+				getSource(dataId, group, content, fileExtension, md5), new Date(),
+				isRefreshable, fileExtension, md5, client);
+	}
+
+	/**
+	 * Create a property source per document of the content, e.g. of a '---' separated
+	 * YAML config, so that each keeps its own name, origins and
+	 * {@code spring.config.activate.*} properties. The documents are parsed on each
+	 * call, they are not shared.
+	 * @param dataId dataId
+	 * @param group group
+	 * @param content the config content, may be empty
+	 * @param fileExtension the file extension, may be null
+	 * @param isRefreshable whether the property sources are refreshable
+	 * @param client the name of the client, null for the default one
+	 * @return the property sources in the document order, empty if the content is
+	 * empty
+	 * @throws IOException thrown if there is a problem parsing config.
+	 */
+	public static List<NacosPropertySource> createDocuments(String dataId,
+			String group, String content, String fileExtension, boolean isRefreshable,
+			String client) throws IOException {
+		if (StringUtils.isEmpty(content)) {
+			return Collections.emptyList();
+		}
+		String md5 = md5(content);
+		List<PropertySource<?>> parsed;
+		PARSE_COUNT.incrementAndGet();
+		NacosStartupRecorder.Step step = NacosStartupRecorder
+				.start(NacosStartupRecorder.Phase.PARSE, dataId, group);
+		try {
+			parsed = NacosDataParserHandler.getInstance().parseNacosData(dataId, content,
+					fileExtension);
+		}
+		finally {
+			step.end(content);
+		}
+		Date timestamp = new Date();
+		List<NacosPropertySource> documents = new ArrayList<>(parsed.size());
+		for (PropertySource<?> propertySource : parsed) {
+			documents.add(new NacosPropertySource(group, dataId,
+					NacosPropertySource.getSourceMap(group, dataId,
+							Collections.singletonList(propertySource)),
+					timestamp, isRefreshable, fileExtension, md5, client,
+					documents.size()));
+		}
+		return documents;
+	}
+
+	/**
+	 * Merge the documents of a content, a later document overrides an earlier one.
+	 * @param documents the property sources created by {@link #createDocuments}, not
+	 * empty
+	 * @return the property source of all the documents
+	 */
+	public static NacosPropertySource merge(List<NacosPropertySource> documents) {
+		NacosPropertySource first = documents.get(0);
+		Map<String, Object> source = new LinkedHashMap<>();
+		for (NacosPropertySource document : documents) {
+			source.putAll(document.getSource());
+		}
+		return new NacosPropertySource(first.getGroup(), first.getDataId(), source,
+				first.getTimestamp(), first.isRefreshable(), first.getFileExtension(),
+				first.getMd5(), first.getClient());
+	}
+
+	/**
+	 * @param content the config content, may be null
+	 * @return the md5 of the content, a missing content is an empty one
+	 */
+	public static String md5(String content) {
+		return MD5Utils.md5Hex(content == null ? "" : content, "UTF-8");
+	}
+
+	/**
+	 * @return the number of property sources created without parsing
+	 */
+	public static long getHitCount() {
+		return HIT_COUNT.get();
+	}
+
+	/**
+	 * @return the number of parsed contents
+	 */
+	public static long getParseCount() {
+		return PARSE_COUNT.get();
+	}
+
+	/**
+	 * @return the number of cached contents
+	 */
+	public static int size() {
+		purge();
+		return SOURCES.size();
+	}
+
+	private static Map<String, Object> getSource(String dataId, String group,
+			String content, String fileExtension, String md5) throws IOException {
+		if (StringUtils.isEmpty(content)) {
+			return Collections.emptyMap();
+		}
+		purge();
+		String key = String.join(NacosConfigProperties.COMMAS, dataId, group,
+				String.valueOf(fileExtension), md5);
+		SourceReference reference = SOURCES.get(key);
+		Map<String, Object> source = reference == null ? null : reference.get();
+		if (source != null) {
+			HIT_COUNT.incrementAndGet();
+			return source;
+		}
+		PARSE_COUNT.incrementAndGet();
+		NacosStartupRecorder.Step step = NacosStartupRecorder
+				.start(NacosStartupRecorder.Phase.PARSE, dataId, group);
+		try {
+			source = CompactPropertyMap.of(NacosPropertySource.getSourceMap(group,
+					dataId, NacosDataParserHandler.getInstance().parseNacosData(dataId,
+							content, fileExtension)));
+		}
+		finally {
+			step.end(content);
+		}
+		SOURCES.put(key, new SourceReference(key, source));
+		return source;
+	}
+
+	private static void purge() {
+		Reference<? extends Map<String, Object>> reference;
+		while ((reference = QUEUE.poll()) != null) {
+			SourceReference sourceReference = (SourceReference) reference;
+			SOURCES.remove(sourceReference.key, sourceReference);
+		}
+	}
+
+	private static final class SourceReference extends WeakReference<Map<String, Object>> {
+
+		private final String key;
+
+		private SourceReference(String key, Map<String, Object> source) {
+			super(source, QUEUE);
+			this.key = key;
+		}
+
+	}
+
+}
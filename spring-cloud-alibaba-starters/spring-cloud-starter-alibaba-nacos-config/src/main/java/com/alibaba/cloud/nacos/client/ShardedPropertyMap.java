@@ -0,0 +1,133 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.client;
+
+import java.util.AbstractMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A read-only map of the properties of a {@link NacosShardedConfig}, a later shard
+ * overrides an earlier one.
+ * <p>
+ * A lookup asks the shards from the last to the first, the shards are only merged into
+ * a {@link CompactPropertyMap} the first time the map is enumerated. Replacing a shard
+ * only copies the array of shards, see {@link #withShard(NacosPropertySource)}.
+ *
+ * @author chengrui
+ */
+final class ShardedPropertyMap extends AbstractMap<String, Object> {
+
+	private final NacosPropertySource[] shards;
+
+	private volatile CompactPropertyMap merged;
+
+	ShardedPropertyMap(NacosPropertySource[] shards) {
+		this.shards = shards;
+	}
+
+	/**
+	 * @param shard the new property source of a shard of this map
+	 * @return a map with the shard replaced, or null if it is not a shard of this map
+	 */
+	ShardedPropertyMap withShard(NacosPropertySource shard) {
+		for (int i = 0; i < shards.length; i++) {
+			if (shards[i].getDataId().equals(shard.getDataId())) {
+				NacosPropertySource[] replaced = shards.clone();
+				replaced[i] = shard;
+				return new ShardedPropertyMap(replaced);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param shardDataId the dataId of a shard
+	 * @return the property source of the shard, or null if it is not a shard of this map
+	 */
+	NacosPropertySource getShard(String shardDataId) {
+		for (NacosPropertySource shard : shards) {
+			if (shard.getDataId().equals(shardDataId)) {
+				return shard;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return a copy of the merged keys, in the manifest order
+	 */
+	String[] getKeys() {
+		return merged().getKeys();
+	}
+
+	private CompactPropertyMap merged() {
+		CompactPropertyMap merged = this.merged;
+		if (merged == null) {
+			int size = 0;
+			for (NacosPropertySource shard : shards) {
+				size += shard.getSource().size();
+			}
+			Map<String, Object> source = new LinkedHashMap<>((int) (size / 0.75f) + 1);
+			for (NacosPropertySource shard : shards) {
+				source.putAll(shard.getSource());
+			}
+			merged = (CompactPropertyMap) CompactPropertyMap.of(source);
+			this.merged = merged;
+		}
+		return merged;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		for (int i = shards.length - 1; i >= 0; i--) {
+			if (shards[i].getSource().containsKey(key)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public Object get(Object key) {
+		for (int i = shards.length - 1; i >= 0; i--) {
+			Map<String, Object> source = shards[i].getSource();
+			Object value = source.get(key);
+			if (value != null || source.containsKey(key)) {
+				return value;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public int size() {
+		return merged().size();
+	}
+
+	@Override
+	public Set<String> keySet() {
+		return merged().keySet();
+	}
+
+	@Override
+	public Set<Map.Entry<String, Object>> entrySet() {
+		return merged().entrySet();
+	}
+
+}
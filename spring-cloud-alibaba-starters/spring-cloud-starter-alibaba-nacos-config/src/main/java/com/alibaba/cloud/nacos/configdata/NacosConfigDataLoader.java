@@ -16,16 +16,17 @@
 
 package com.alibaba.cloud.nacos.configdata;
 
-import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Collections;
 import java.util.List;
 
 import com.alibaba.cloud.nacos.NacosConfigManager;
 import com.alibaba.cloud.nacos.NacosConfigProperties;
 import com.alibaba.cloud.nacos.NacosPropertySourceRepository;
 import com.alibaba.cloud.nacos.client.NacosPropertySource;
-import com.alibaba.cloud.nacos.parser.NacosDataParserHandler;
+import com.alibaba.cloud.nacos.client.NacosShardedConfig;
+import com.alibaba.cloud.nacos.client.NacosSharedSources;
+import com.alibaba.cloud.nacos.metrics.NacosStartupRecorder;
 import com.alibaba.nacos.api.config.ConfigService;
 import com.alibaba.nacos.api.exception.NacosException;
 import org.apache.commons.logging.Log;
@@ -36,7 +37,6 @@ import org.springframework.boot.context.config.ConfigDataLoaderContext;
 import org.springframework.boot.context.config.ConfigDataResourceNotFoundException;
 import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.boot.logging.DeferredLogFactory;
-import org.springframework.core.env.PropertySource;
 
 import static com.alibaba.cloud.nacos.configdata.ConfigPreference.LOCAL;
 import static com.alibaba.cloud.nacos.configdata.ConfigPreference.REMOTE;
@@ -66,29 +66,60 @@ public class NacosConfigDataLoader implements ConfigDataLoader<NacosConfigDataRe
 	@Override
 	public ConfigData load(ConfigDataLoaderContext context,
 			NacosConfigDataResource resource) {
-		return doLoad(context, resource);
+		NacosItemConfig config = resource.getConfig();
+		NacosStartupRecorder.Step step = NacosStartupRecorder.start(
+				NacosStartupRecorder.Phase.LOAD, config.getDataId(), config.getGroup());
+		try {
+			return doLoad(context, resource);
+		}
+		finally {
+			step.end();
+		}
 	}
 
 	public ConfigData doLoad(ConfigDataLoaderContext context,
 			NacosConfigDataResource resource) {
 		try {
+			NacosItemConfig config = resource.getConfig();
+			// the import may name another server or namespace.
 			ConfigService configService = getBean(context, NacosConfigManager.class)
-					.getConfigService();
+					.getConfigService(config.getServerAddr(), config.getNamespace(),
+							config.getUsername(), config.getPassword());
 			NacosConfigProperties properties = getBean(context,
 					NacosConfigProperties.class);
+			String client = NacosConfigManager.getClientName(configService);
+
+			NacosPropertySource propertySource;
+			List<NacosPropertySource> propertySources;
+			if (config.isSharded()) {
+				// pull the manifest and its shards in parallel.
+				propertySource = NacosShardedConfig.load(configService,
+						config.getDataId(), config.getGroup(), config.getSuffix(),
+						config.isRefreshEnabled(), properties.getTimeout());
+				propertySources = Collections.singletonList(propertySource);
+			}
+			else {
+				// pull config from nacos, one property source per document, so that
+				// each keeps its own spring.config.activate.* properties.
+				String content = pullConfig(configService, config.getGroup(),
+						config.getDataId(), properties.getTimeout());
+				propertySources = NacosSharedSources.createDocuments(config.getDataId(),
+						config.getGroup(), content, config.getSuffix(),
+						config.isRefreshEnabled(), client);
+				propertySource = propertySources.isEmpty()
+						? NacosSharedSources.create(config.getDataId(),
+								config.getGroup(), content, config.getSuffix(),
+								config.isRefreshEnabled(), client)
+						: NacosSharedSources.merge(propertySources);
+			}
 
-			NacosItemConfig config = resource.getConfig();
-			// pull config from nacos
-			List<PropertySource<?>> propertySources = pullConfig(configService,
-					config.getGroup(), config.getDataId(), config.getSuffix(),
-					properties.getTimeout());
-
-			NacosPropertySource propertySource = new NacosPropertySource(propertySources,
-					config.getGroup(), config.getDataId(), new Date(),
-					config.isRefreshEnabled());
-
-			NacosPropertySourceRepository.collectNacosPropertySource(propertySource);
+			// replaced on every load, so the repository holds the latest content.
+			NacosPropertySourceRepository.updateNacosPropertySource(propertySource);
+			NacosConfigManager.bindConfigService(config.getDataId(), config.getGroup(),
+					client, configService);
 
+			// expose the NacosPropertySources themselves, so that a changed dataId can
+			// be swapped in place, see NacosPropertySourceRefresher.
 			return new ConfigData(propertySources, getOptions(context, resource));
 		}
 		catch (Exception e) {
@@ -135,13 +166,19 @@ public class NacosConfigDataLoader implements ConfigDataLoader<NacosConfigDataRe
 		return preference;
 	}
 
-	private List<PropertySource<?>> pullConfig(ConfigService configService, String group,
-			String dataId, String suffix, long timeout)
-			throws NacosException, IOException {
-		String config = configService.getConfig(dataId, group, timeout);
+	private String pullConfig(ConfigService configService, String group,
+			String dataId, long timeout) throws NacosException {
+		String config = null;
+		NacosStartupRecorder.Step step = NacosStartupRecorder
+				.start(NacosStartupRecorder.Phase.FETCH, dataId, group);
+		try {
+			config = configService.getConfig(dataId, group, timeout);
+		}
+		finally {
+			step.end(config);
+		}
 		logLoadInfo(group, dataId, config);
-		return NacosDataParserHandler.getInstance().parseNacosData(dataId, config,
-				suffix);
+		return config;
 	}
 
 	private void logLoadInfo(String group, String dataId, String config) {
@@ -23,10 +23,12 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.alibaba.cloud.commons.lang.StringUtils;
 import com.alibaba.cloud.nacos.NacosConfigManager;
 import com.alibaba.cloud.nacos.NacosConfigProperties;
+import com.alibaba.cloud.nacos.metrics.NacosStartupRecorder;
 import org.apache.commons.logging.Log;
 
 import org.springframework.boot.BootstrapRegistry.InstanceSupplier;
@@ -70,6 +72,16 @@ public class NacosConfigDataLocationResolver
 
 	private static final String PREFERENCE = "preference";
 
+	private static final String SHARDED = "sharded";
+
+	private static final String SERVER_ADDR = "serverAddr";
+
+	private static final String NAMESPACE = "namespace";
+
+	private static final String USERNAME = "username";
+
+	private static final String PASSWORD = "password";
+
 	public NacosConfigDataLocationResolver(DeferredLogFactory logFactory) {
 		this.log = logFactory.getLog(getClass());
 	}
@@ -142,6 +154,19 @@ public class NacosConfigDataLocationResolver
 			ConfigDataLocationResolverContext resolverContext,
 			ConfigDataLocation location, Profiles profiles)
 			throws ConfigDataLocationNotFoundException {
+		NacosStartupRecorder.Step step = NacosStartupRecorder
+				.start(NacosStartupRecorder.Phase.RESOLVE, null, null);
+		try {
+			return doResolveProfileSpecific(resolverContext, location, profiles);
+		}
+		finally {
+			step.end();
+		}
+	}
+
+	private List<NacosConfigDataResource> doResolveProfileSpecific(
+			ConfigDataLocationResolverContext resolverContext,
+			ConfigDataLocation location, Profiles profiles) {
 		NacosConfigProperties properties = loadProperties(resolverContext);
 
 		ConfigurableBootstrapContext bootstrapContext = resolverContext
@@ -152,36 +177,53 @@ public class NacosConfigDataLocationResolver
 
 		registerConfigManager(properties, bootstrapContext);
 
-		return loadConfigDataResources(location, profiles, properties);
+		return loadConfigDataResources(location, profiles, properties,
+				getLocationPlans(bootstrapContext));
 	}
 
 	private List<NacosConfigDataResource> loadConfigDataResources(
 			ConfigDataLocation location, Profiles profiles,
-			NacosConfigProperties properties) {
+			NacosConfigProperties properties, LocationPlans locationPlans) {
 		List<NacosConfigDataResource> result = new ArrayList<>();
-		URI uri = getUri(location, properties);
-
-		if (StringUtils.isBlank(dataIdFor(uri))) {
-			throw new IllegalArgumentException("dataId must be specified");
-		}
+		// the properties of a bootstrap context do not change, neither do the plans.
+		String path = location.getNonPrefixedValue(getPrefix());
+		LocationPlan plan = locationPlans == null ? createPlan(path, properties)
+				: locationPlans.plans.computeIfAbsent(path,
+						key -> createPlan(key, properties));
 
 		NacosConfigDataResource resource = new NacosConfigDataResource(properties,
-				location.isOptional(), profiles, log,
-				new NacosItemConfig().setGroup(groupFor(uri, properties))
-						.setDataId(dataIdFor(uri)).setSuffix(suffixFor(uri, properties))
-						.setRefreshEnabled(refreshEnabledFor(uri, properties))
-						.setPreference(preferenceFor(uri)));
+				location.isOptional(), profiles, log, plan.toItemConfig());
 		result.add(resource);
 
 		return result;
 	}
 
-	private String preferenceFor(URI uri) {
-		return getQueryMap(uri).get(PREFERENCE);
+	/**
+	 * Parse a location, its query is split once.
+	 */
+	private LocationPlan createPlan(String path, NacosConfigProperties properties) {
+		URI uri = getUri(path, properties);
+		String dataId = dataIdFor(uri);
+		if (StringUtils.isBlank(dataId)) {
+			throw new IllegalArgumentException("dataId must be specified");
+		}
+		Map<String, String> queryMap = getQueryMap(uri);
+		return new LocationPlan(dataId, groupFor(queryMap, properties),
+				suffixFor(dataId, properties),
+				refreshEnabledFor(queryMap, properties), queryMap.get(PREFERENCE),
+				Boolean.parseBoolean(queryMap.get(SHARDED)), queryMap.get(SERVER_ADDR),
+				queryMap.get(NAMESPACE), queryMap.get(USERNAME),
+				queryMap.get(PASSWORD));
+	}
+
+	private LocationPlans getLocationPlans(
+			ConfigurableBootstrapContext bootstrapContext) {
+		bootstrapContext.registerIfAbsent(LocationPlans.class,
+				InstanceSupplier.from(LocationPlans::new));
+		return bootstrapContext.getOrElse(LocationPlans.class, null);
 	}
 
-	private URI getUri(ConfigDataLocation location, NacosConfigProperties properties) {
-		String path = location.getNonPrefixedValue(getPrefix());
+	private URI getUri(String path, NacosConfigProperties properties) {
 		if (StringUtils.isBlank(path)) {
 			path = "/";
 		}
@@ -214,8 +256,8 @@ public class NacosConfigDataLocationResolver
 		return uri;
 	}
 
-	private String groupFor(URI uri, NacosConfigProperties properties) {
-		Map<String, String> queryMap = getQueryMap(uri);
+	private String groupFor(Map<String, String> queryMap,
+			NacosConfigProperties properties) {
 		return queryMap.containsKey(GROUP) ? queryMap.get(GROUP) : properties.getGroup();
 	}
 
@@ -234,16 +276,15 @@ public class NacosConfigDataLocationResolver
 		return result;
 	}
 
-	private String suffixFor(URI uri, NacosConfigProperties properties) {
-		String dataId = dataIdFor(uri);
+	private String suffixFor(String dataId, NacosConfigProperties properties) {
 		if (dataId != null && dataId.contains(".")) {
 			return dataId.substring(dataId.lastIndexOf('.') + 1);
 		}
 		return properties.getFileExtension();
 	}
 
-	private boolean refreshEnabledFor(URI uri, NacosConfigProperties properties) {
-		Map<String, String> queryMap = getQueryMap(uri);
+	private boolean refreshEnabledFor(Map<String, String> queryMap,
+			NacosConfigProperties properties) {
 		return queryMap.containsKey(REFRESH_ENABLED)
 				? Boolean.parseBoolean(queryMap.get(REFRESH_ENABLED))
 				: properties.isRefreshEnabled();
@@ -262,4 +303,64 @@ public class NacosConfigDataLocationResolver
 		return parts[0];
 	}
 
+	/**
+	 * A parsed location, the resources of every profile specific resolution round are
+	 * created from it.
+	 */
+	private static final class LocationPlan {
+
+		private final String dataId;
+
+		private final String group;
+
+		private final String suffix;
+
+		private final boolean refreshEnabled;
+
+		private final String preference;
+
+		private final boolean sharded;
+
+		private final String serverAddr;
+
+		private final String namespace;
+
+		private final String username;
+
+		private final String password;
+
+		private LocationPlan(String dataId, String group, String suffix,
+				boolean refreshEnabled, String preference, boolean sharded,
+				String serverAddr, String namespace, String username, String password) {
+			this.dataId = dataId;
+			this.group = group;
+			this.suffix = suffix;
+			this.refreshEnabled = refreshEnabled;
+			this.preference = preference;
+			this.sharded = sharded;
+			this.serverAddr = serverAddr;
+			this.namespace = namespace;
+			this.username = username;
+			this.password = password;
+		}
+
+		private NacosItemConfig toItemConfig() {
+			return new NacosItemConfig().setGroup(group).setDataId(dataId)
+					.setSuffix(suffix).setRefreshEnabled(refreshEnabled)
+					.setPreference(preference).setSharded(sharded)
+					.setServerAddr(serverAddr).setNamespace(namespace)
+					.setUsername(username).setPassword(password);
+		}
+
+	}
+
+	/**
+	 * The plans of the locations resolved in a bootstrap context, keyed by location.
+	 */
+	private static final class LocationPlans {
+
+		private final Map<String, LocationPlan> plans = new ConcurrentHashMap<>(8);
+
+	}
+
 }
@@ -106,6 +106,11 @@ public class NacosConfigDataResource extends ConfigDataResource {
 		private String suffix;
 		private boolean refreshEnabled;
 		private String preference;
+		private boolean sharded;
+		private String serverAddr;
+		private String namespace;
+		private String username;
+		private String password;
 
 		public NacosItemConfig() {
 		}
@@ -144,6 +149,31 @@ public class NacosConfigDataResource extends ConfigDataResource {
 			return this;
 		}
 
+		public NacosItemConfig setSharded(boolean sharded) {
+			this.sharded = sharded;
+			return this;
+		}
+
+		public NacosItemConfig setServerAddr(String serverAddr) {
+			this.serverAddr = serverAddr;
+			return this;
+		}
+
+		public NacosItemConfig setNamespace(String namespace) {
+			this.namespace = namespace;
+			return this;
+		}
+
+		public NacosItemConfig setUsername(String username) {
+			this.username = username;
+			return this;
+		}
+
+		public NacosItemConfig setPassword(String password) {
+			this.password = password;
+			return this;
+		}
+
 		public String getGroup() {
 			return group;
 		}
@@ -164,6 +194,26 @@ public class NacosConfigDataResource extends ConfigDataResource {
 			return preference;
 		}
 
+		public boolean isSharded() {
+			return sharded;
+		}
+
+		public String getServerAddr() {
+			return serverAddr;
+		}
+
+		public String getNamespace() {
+			return namespace;
+		}
+
+		public String getUsername() {
+			return username;
+		}
+
+		public String getPassword() {
+			return password;
+		}
+
 		@Override
 		public boolean equals(Object o) {
 			if (this == o) {
@@ -177,19 +227,27 @@ public class NacosConfigDataResource extends ConfigDataResource {
 					&& Objects.equals(group, that.group)
 					&& Objects.equals(dataId, that.dataId)
 					&& Objects.equals(suffix, that.suffix)
-					&& Objects.equals(preference, that.preference);
+					&& Objects.equals(preference, that.preference)
+					&& sharded == that.sharded
+					&& Objects.equals(serverAddr, that.serverAddr)
+					&& Objects.equals(namespace, that.namespace)
+					&& Objects.equals(username, that.username)
+					&& Objects.equals(password, that.password);
 		}
 
 		@Override
 		public int hashCode() {
-			return Objects.hash(group, dataId, suffix, refreshEnabled, preference);
+			return Objects.hash(group, dataId, suffix, refreshEnabled, preference,
+					sharded, serverAddr, namespace, username, password);
 		}
 
 		@Override
 		public String toString() {
 			return "NacosItemConfig{" + "group='" + group + '\'' + ", dataId='" + dataId
 					+ '\'' + ", suffix='" + suffix + '\'' + ", refreshEnabled="
-					+ refreshEnabled + ", preference=" + preference + '}';
+					+ refreshEnabled + ", preference=" + preference + ", sharded="
+					+ sharded + ", serverAddr='" + serverAddr + '\'' + ", namespace='"
+					+ namespace + '\'' + ", username='" + username + '\'' + '}';
 		}
 	}
 
@@ -26,6 +26,9 @@ import java.util.Map;
 import com.alibaba.cloud.nacos.NacosConfigProperties;
 import com.alibaba.cloud.nacos.NacosPropertySourceRepository;
 import com.alibaba.cloud.nacos.client.NacosPropertySource;
+import com.alibaba.cloud.nacos.metrics.NacosConfigMetrics;
+import com.alibaba.cloud.nacos.metrics.NacosStartupRecorder;
+import com.alibaba.cloud.nacos.refresh.NacosContextRefresher;
 import com.alibaba.cloud.nacos.refresh.NacosRefreshHistory;
 
 import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
@@ -43,13 +46,21 @@ public class NacosConfigEndpoint {
 
 	private final NacosRefreshHistory refreshHistory;
 
+	private final NacosConfigMetrics metrics;
+
 	private ThreadLocal<DateFormat> dateFormat = ThreadLocal
 			.withInitial(() -> new SimpleDateFormat("yyyy-MM-dd HH:mm:ss"));
 
 	public NacosConfigEndpoint(NacosConfigProperties properties,
 			NacosRefreshHistory refreshHistory) {
+		this(properties, refreshHistory, null);
+	}
+
+	public NacosConfigEndpoint(NacosConfigProperties properties,
+			NacosRefreshHistory refreshHistory, NacosConfigMetrics metrics) {
 		this.properties = properties;
 		this.refreshHistory = refreshHistory;
+		this.metrics = metrics;
 	}
 
 	@ReadOperation
@@ -69,6 +80,16 @@ public class NacosConfigEndpoint {
 		result.put("Sources", sources);
 		result.put("RefreshHistory", refreshHistory.getRecords());
 
+		Map<String, Object> refreshStats = new HashMap<>(8);
+		refreshStats.put("notifications", NacosContextRefresher.getRefreshCount());
+		refreshStats.put("refreshes", NacosContextRefresher.getFiredRefreshCount());
+		refreshStats.put("collapsed", NacosContextRefresher.getCollapsedRefreshCount());
+		result.put("RefreshStats", refreshStats);
+		if (metrics != null) {
+			result.put("RefreshMetrics", metrics.getSummary());
+		}
+		result.put("Startup", NacosStartupRecorder.getSummary());
+
 		return result;
 	}
 
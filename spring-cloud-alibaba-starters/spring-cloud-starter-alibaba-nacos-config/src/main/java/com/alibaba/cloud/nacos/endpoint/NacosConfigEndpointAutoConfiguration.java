@@ -17,6 +17,7 @@
 package com.alibaba.cloud.nacos.endpoint;
 
 import com.alibaba.cloud.nacos.NacosConfigManager;
+import com.alibaba.cloud.nacos.metrics.NacosConfigMetrics;
 import com.alibaba.cloud.nacos.refresh.NacosRefreshHistory;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -43,19 +44,30 @@ public class NacosConfigEndpointAutoConfiguration {
 	@Autowired
 	private NacosRefreshHistory nacosRefreshHistory;
 
+	@Autowired
+	private NacosConfigMetrics nacosConfigMetrics;
+
 	@ConditionalOnMissingBean
 	@ConditionalOnAvailableEndpoint
 	@Bean
 	public NacosConfigEndpoint nacosConfigEndpoint() {
 		return new NacosConfigEndpoint(nacosConfigManager.getNacosConfigProperties(),
-				nacosRefreshHistory);
+				nacosRefreshHistory, nacosConfigMetrics);
+	}
+
+	@Bean
+	@ConditionalOnMissingBean
+	@ConditionalOnEnabledHealthIndicator("nacos-config")
+	public NacosConfigHealthIndicator nacosConfigHealthIndicator(
+			NacosConfigHealthCache nacosConfigHealthCache) {
+		return new NacosConfigHealthIndicator(nacosConfigHealthCache);
 	}
 
 	@Bean
 	@ConditionalOnMissingBean
 	@ConditionalOnEnabledHealthIndicator("nacos-config")
-	public NacosConfigHealthIndicator nacosConfigHealthIndicator() {
-		return new NacosConfigHealthIndicator(nacosConfigManager.getConfigService());
+	public NacosConfigHealthCache nacosConfigHealthCache() {
+		return new NacosConfigHealthCache(nacosConfigManager, nacosConfigMetrics);
 	}
 
 }
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.endpoint;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.cloud.nacos.NacosConfigManager;
+import com.alibaba.cloud.nacos.NacosConfigProperties;
+import com.alibaba.cloud.nacos.client.NacosSharedSources;
+import com.alibaba.cloud.nacos.metrics.NacosConfigMetrics;
+import com.alibaba.nacos.api.config.ConfigService;
+import com.alibaba.nacos.api.exception.NacosException;
+import com.alibaba.nacos.common.executor.NameThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+/**
+ * Background refreshed state of the Nacos config clients, the
+ * {@link NacosConfigHealthIndicator} answers the probes from it without calling Nacos.
+ * <p>
+ * The status of every client is refreshed every
+ * {@link NacosConfigProperties#getHealthRefreshInterval()}. The comparison with the
+ * server is opt-in: when {@link NacosConfigProperties#getHealthCheckInterval()} is set,
+ * the listened configs are fetched at that interval and their md5 compared with the one
+ * of the local content. A config differing for longer than
+ * {@link NacosConfigProperties#getHealthMaxStaleness()} is stale, by default it is only
+ * reported in the details.
+ *
+ * @author chengrui
+ */
+public class NacosConfigHealthCache implements InitializingBean, DisposableBean {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(NacosConfigHealthCache.class);
+
+	private final NacosConfigManager nacosConfigManager;
+
+	private final NacosConfigMetrics metrics;
+
+	private volatile Map<String, String> clientStatuses = Collections.emptyMap();
+
+	private volatile long refreshedAt = -1;
+
+	private ScheduledExecutorService executor;
+
+	public NacosConfigHealthCache(NacosConfigManager nacosConfigManager,
+			NacosConfigMetrics metrics) {
+		this.nacosConfigManager = nacosConfigManager;
+		this.metrics = metrics;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		refreshStatuses();
+		NacosConfigProperties properties = nacosConfigManager
+				.getNacosConfigProperties();
+		ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(2,
+				new NameThreadFactory("com.alibaba.cloud.nacos.health"));
+		executor.setRemoveOnCancelPolicy(true);
+		long refreshInterval = properties.getHealthRefreshInterval();
+		if (refreshInterval > 0) {
+			executor.scheduleWithFixedDelay(this::refreshStatuses, refreshInterval,
+					refreshInterval, TimeUnit.MILLISECONDS);
+		}
+		long checkInterval = properties.getHealthCheckInterval();
+		if (checkInterval > 0) {
+			executor.scheduleWithFixedDelay(this::checkConfigs, checkInterval,
+					checkInterval, TimeUnit.MILLISECONDS);
+		}
+		this.executor = executor;
+	}
+
+	@Override
+	public void destroy() {
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * @return the last refreshed status of every client
+	 */
+	public Map<String, String> getClientStatuses() {
+		return clientStatuses;
+	}
+
+	/**
+	 * @return when the statuses were last refreshed in milliseconds
+	 */
+	public long getRefreshedAt() {
+		return refreshedAt;
+	}
+
+	/**
+	 * @return the configs differing from the server for longer than the max
+	 * staleness, empty if it is 0
+	 */
+	public List<String> getStaleConfigs() {
+		long maxStaleness = nacosConfigManager.getNacosConfigProperties()
+				.getHealthMaxStaleness();
+		if (maxStaleness <= 0) {
+			return Collections.emptyList();
+		}
+		long now = System.currentTimeMillis();
+		List<String> stale = new ArrayList<>();
+		for (NacosConfigMetrics.DataIdStats stats : metrics.getDataIdStats()) {
+			if (stats.isListened() && stats.getStaleness(now) > maxStaleness) {
+				stale.add(stats.getKey());
+			}
+		}
+		return stale;
+	}
+
+	/**
+	 * @return the sync state of every listened config
+	 */
+	public Map<String, Object> getConfigDetails() {
+		long now = System.currentTimeMillis();
+		Map<String, Object> configs = new LinkedHashMap<>(16);
+		for (NacosConfigMetrics.DataIdStats stats : metrics.getDataIdStats()) {
+			if (!stats.isListened()) {
+				continue;
+			}
+			Map<String, Object> details = new LinkedHashMap<>(8);
+			long lastSyncTime = stats.getLastSyncTime();
+			details.put("lastSyncTime",
+					lastSyncTime < 0 ? null : new Date(lastSyncTime));
+			details.put("md5", stats.getMd5());
+			details.put("stalenessMillis", stats.getStaleness(now));
+			details.put("fetchFailures", stats.getFetchFailures());
+			details.put("refreshFailures", stats.getFailures());
+			configs.put(stats.getKey(), details);
+		}
+		return configs;
+	}
+
+	void refreshStatuses() {
+		Map<String, ConfigService> services = NacosConfigManager.getConfigServices();
+		Map<String, String> statuses = new LinkedHashMap<>(services.size());
+		for (Map.Entry<String, ConfigService> entry : services.entrySet()) {
+			String status;
+			try {
+				status = entry.getValue().getServerStatus();
+			}
+			catch (RuntimeException e) {
+				log.warn("[Nacos Config] Failed to get the status of client {}",
+						entry.getKey(), e);
+				status = "DOWN";
+			}
+			statuses.put(entry.getKey(), status);
+		}
+		this.clientStatuses = Collections.unmodifiableMap(statuses);
+		this.refreshedAt = System.currentTimeMillis();
+	}
+
+	void checkConfigs() {
+		int timeout = nacosConfigManager.getNacosConfigProperties().getTimeout();
+		for (NacosConfigMetrics.DataIdStats stats : metrics.getDataIdStats()) {
+			String localMd5 = stats.getMd5();
+			if (!stats.isListened() || localMd5 == null) {
+				continue;
+			}
+			String dataId = stats.getDataId();
+			String group = stats.getGroup();
+			ConfigService bound = NacosConfigManager.getBoundConfigService(dataId,
+					group, stats.getClient());
+			ConfigService configService = bound != null ? bound
+					: nacosConfigManager.getConfigService();
+			try {
+				String content = configService.getConfig(dataId, group, timeout);
+				stats.recordServerMd5(localMd5, NacosSharedSources.md5(content),
+						System.currentTimeMillis());
+			}
+			catch (NacosException | RuntimeException e) {
+				stats.recordFetchFailure();
+				log.warn("[Nacos Config] Failed to check config, dataId={}, group={}",
+						dataId, group, e);
+			}
+		}
+	}
+
+}
@@ -16,6 +16,12 @@
 
 package com.alibaba.cloud.nacos.endpoint;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
 import com.alibaba.nacos.api.config.ConfigService;
 
 import org.springframework.boot.actuate.health.AbstractHealthIndicator;
@@ -24,13 +30,22 @@ import org.springframework.boot.actuate.health.HealthIndicator;
 
 /**
  * The {@link HealthIndicator} for Nacos Config.
+ * <p>
+ * When config is read from more than one client, the status of every client is a
+ * detail and the indicator is down as soon as one of them is down.
+ * <p>
+ * Built with a {@link NacosConfigHealthCache}, the probes are answered from its last
+ * refresh and the sync state of the listened configs is a detail too, the indicator is
+ * down while one of them is stale.
  *
  * @author xiaojing
  * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
  */
 public class NacosConfigHealthIndicator extends AbstractHealthIndicator {
 
-	private final ConfigService configService;
+	private final Supplier<Map<String, ConfigService>> configServices;
+
+	private final NacosConfigHealthCache healthCache;
 
 	/**
 	 * status up .
@@ -43,13 +58,39 @@ public class NacosConfigHealthIndicator extends AbstractHealthIndicator {
 	private final String STATUS_DOWN = "DOWN";
 
 	public NacosConfigHealthIndicator(ConfigService configService) {
-		this.configService = configService;
+		this(() -> Collections.singletonMap("default", configService));
+	}
+
+	public NacosConfigHealthIndicator(
+			Supplier<Map<String, ConfigService>> configServices) {
+		this.configServices = configServices;
+		this.healthCache = null;
+	}
+
+	public NacosConfigHealthIndicator(NacosConfigHealthCache healthCache) {
+		this.configServices = null;
+		this.healthCache = healthCache;
 	}
 
 	@Override
 	protected void doHealthCheck(Health.Builder builder) throws Exception {
-		// Just return "UP" or "DOWN"
-		String status = configService.getServerStatus();
+		String status;
+		if (healthCache != null) {
+			status = getStatus(healthCache.getClientStatuses(), builder);
+			List<String> staleConfigs = healthCache.getStaleConfigs();
+			if (!staleConfigs.isEmpty()) {
+				status = STATUS_DOWN;
+				builder.withDetail("staleConfigs", staleConfigs);
+			}
+			builder.withDetail("configs", healthCache.getConfigDetails());
+		}
+		else {
+			Map<String, ConfigService> services = configServices.get();
+			// Just return "UP" or "DOWN"
+			status = services.size() == 1
+					? services.values().iterator().next().getServerStatus()
+					: getStatus(getStatuses(services), builder);
+		}
 		// Set the status to Builder
 		builder.status(status);
 		switch (status) {
@@ -65,4 +106,27 @@ public class NacosConfigHealthIndicator extends AbstractHealthIndicator {
 		}
 	}
 
+	private static Map<String, String> getStatuses(
+			Map<String, ConfigService> services) {
+		Map<String, String> statuses = new LinkedHashMap<>(services.size());
+		for (Map.Entry<String, ConfigService> entry : services.entrySet()) {
+			statuses.put(entry.getKey(), entry.getValue().getServerStatus());
+		}
+		return statuses;
+	}
+
+	private String getStatus(Map<String, String> clients, Health.Builder builder) {
+		String status = STATUS_UP;
+		for (String clientStatus : clients.values()) {
+			if (STATUS_DOWN.equals(clientStatus)) {
+				status = STATUS_DOWN;
+			}
+			else if (!STATUS_UP.equals(clientStatus) && STATUS_UP.equals(status)) {
+				status = clientStatus;
+			}
+		}
+		builder.withDetail("clients", clients);
+		return status;
+	}
+
 }
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.cloud.nacos.NacosConfigManager;
+import com.alibaba.cloud.nacos.refresh.NacosContextRefresher;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Bind {@link NacosConfigMetrics} to Micrometer.
+ * <ul>
+ * <li>{@code nacos.config.refresh.latency}, a timer per refresh stage.</li>
+ * <li>{@code nacos.config.refresh.latency.max}, the max latency per refresh stage.</li>
+ * <li>{@code nacos.config.refreshes} and {@code nacos.config.refresh.failures},
+ * counters per dataId and client.</li>
+ * <li>{@code nacos.config.listened}, the number of listened dataIds.</li>
+ * <li>{@code nacos.config.client.status}, 1 when a config client is up, per client.</li>
+ * </ul>
+ *
+ * @author chengrui
+ */
+public class NacosConfigMeterBinder implements MeterBinder {
+
+	private final NacosConfigMetrics metrics;
+
+	private final NacosContextRefresher nacosContextRefresher;
+
+	public NacosConfigMeterBinder(NacosConfigMetrics metrics,
+			NacosContextRefresher nacosContextRefresher) {
+		this.metrics = metrics;
+		this.nacosContextRefresher = nacosContextRefresher;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		for (NacosConfigMetrics.Stage stage : NacosConfigMetrics.Stage.values()) {
+			NacosConfigMetrics.StageStats stats = metrics.getStageStats(stage);
+			FunctionTimer
+					.builder("nacos.config.refresh.latency", stats,
+							NacosConfigMetrics.StageStats::getCount,
+							NacosConfigMetrics.StageStats::getTotalNanos,
+							TimeUnit.NANOSECONDS)
+					.tag("stage", stage.getTag())
+					.description("Latency of the Nacos config refresh stages")
+					.register(registry);
+			TimeGauge
+					.builder("nacos.config.refresh.latency.max", stats,
+							TimeUnit.NANOSECONDS,
+							NacosConfigMetrics.StageStats::getMaxNanos)
+					.tag("stage", stage.getTag())
+					.description("Max latency of the Nacos config refresh stages")
+					.register(registry);
+		}
+		Gauge.builder("nacos.config.listened", nacosContextRefresher,
+				NacosContextRefresher::getListenerCount)
+				.description("The number of listened Nacos dataIds").register(registry);
+		NacosConfigManager.getConfigServices().forEach((name, configService) -> Gauge
+				.builder("nacos.config.client.status", configService,
+						service -> "UP".equals(service.getServerStatus()) ? 1 : 0)
+				.tag("client", name)
+				.description("Whether the Nacos config client is up")
+				.register(registry));
+		metrics.onNewDataId(stats -> bindDataId(registry, stats));
+		for (NacosConfigMetrics.DataIdStats stats : metrics.getDataIdStats()) {
+			bindDataId(registry, stats);
+		}
+	}
+
+	private void bindDataId(MeterRegistry registry,
+			NacosConfigMetrics.DataIdStats stats) {
+		String client = stats.getClient() != null ? stats.getClient()
+				: NacosConfigManager.DEFAULT_CLIENT;
+		FunctionCounter
+				.builder("nacos.config.refreshes", stats,
+						NacosConfigMetrics.DataIdStats::getRefreshes)
+				.tag("dataId", stats.getDataId()).tag("group", stats.getGroup())
+				.tag("client", client)
+				.description("Successful refreshes of a Nacos dataId")
+				.register(registry);
+		FunctionCounter
+				.builder("nacos.config.refresh.failures", stats,
+						NacosConfigMetrics.DataIdStats::getFailures)
+				.tag("dataId", stats.getDataId()).tag("group", stats.getGroup())
+				.tag("client", client)
+				.description("Failed refreshes of a Nacos dataId").register(registry);
+	}
+
+}
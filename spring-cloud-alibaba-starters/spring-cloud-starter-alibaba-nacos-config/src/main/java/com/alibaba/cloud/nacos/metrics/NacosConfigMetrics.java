@@ -0,0 +1,504 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.metrics;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import com.alibaba.cloud.nacos.NacosPropertySourceRepository;
+import com.alibaba.cloud.nacos.client.NacosPropertySource;
+import com.alibaba.cloud.nacos.client.NacosSharedSources;
+
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.event.SmartApplicationListener;
+import org.springframework.core.Ordered;
+
+/**
+ * Latency of the refresh pipeline, refresh outcome and sync state of every dataId.
+ * <p>
+ * A refresh is traced on the thread running it: the {@link EnvironmentChangeEvent} marks
+ * the environment as updated, the rebind is timed by the
+ * {@link com.alibaba.cloud.nacos.refresh.SmartConfigurationPropertiesRebinder}, or else
+ * around the publishing of the event of a targeted refresh, see
+ * {@link #recordRebind(long)}, and the {@link RefreshScopeRefreshedEvent} marks the
+ * refresh scope as refreshed. The refresh scope is timed from the end of the rebind, so
+ * neither is recorded when the rebind is not timed, e.g. by the stock
+ * {@link org.springframework.cloud.context.properties.ConfigurationPropertiesRebinder}.
+ * It has no dependency on Micrometer, see {@link NacosConfigMeterBinder}.
+ * <p>
+ * The same dataId may be loaded from several clients, its stats are kept per client.
+ *
+ * @author chengrui
+ */
+public class NacosConfigMetrics implements SmartApplicationListener {
+
+	private static final ThreadLocal<Trace> TRACE = new ThreadLocal<>();
+
+	private final Map<Stage, StageStats> stages = new EnumMap<>(Stage.class);
+
+	private final Map<String, DataIdStats> dataIds = new ConcurrentHashMap<>(16);
+
+	private final List<Consumer<DataIdStats>> dataIdCallbacks = new CopyOnWriteArrayList<>();
+
+	public NacosConfigMetrics() {
+		for (Stage stage : Stage.values()) {
+			stages.put(stage, new StageStats());
+		}
+	}
+
+	/**
+	 * Start tracing a refresh on the current thread.
+	 * @return the trace, to be passed to {@link #finishTrace(Trace)}
+	 */
+	public Trace startTrace() {
+		Trace trace = new Trace();
+		TRACE.set(trace);
+		return trace;
+	}
+
+	/**
+	 * Stop tracing and record the stages the refresh went through.
+	 * @param trace the trace of the refresh
+	 */
+	public void finishTrace(Trace trace) {
+		TRACE.remove();
+		if (trace.environmentAt >= 0) {
+			record(Stage.ENVIRONMENT, trace.environmentAt);
+		}
+		if (trace.rebindAt >= 0) {
+			record(Stage.REBIND, trace.reboundAt - trace.rebindAt);
+			if (trace.refreshScopeAt >= 0) {
+				record(Stage.REFRESH_SCOPE, trace.refreshScopeAt - trace.reboundAt);
+			}
+		}
+		record(Stage.REFRESH, trace.elapsed());
+	}
+
+	/**
+	 * Record the rebind of the refresh traced on the current thread, only the first one
+	 * of a refresh is kept.
+	 * @param startNanos when the rebind started, from {@link System#nanoTime()}
+	 */
+	public static void recordRebind(long startNanos) {
+		Trace trace = TRACE.get();
+		if (trace != null && trace.rebindAt < 0) {
+			trace.rebindAt = Math.max(0, startNanos - trace.start);
+			trace.reboundAt = trace.elapsed();
+		}
+	}
+
+	/**
+	 * Record the outcome of a refresh for one dataId.
+	 * @param dataId dataId
+	 * @param group group
+	 * @param client the name of the client the dataId is loaded from, null for the
+	 * default one
+	 * @param success whether the refresh succeeded
+	 * @param receivedAt when the change was received, in milliseconds
+	 * @param parseTime the time to parse the change in milliseconds, -1 if unknown
+	 * @param trace the trace of the refresh
+	 */
+	public void recordRefresh(String dataId, String group, String client,
+			boolean success, long receivedAt, long parseTime, Trace trace) {
+		DataIdStats stats = getDataIdStats(dataId, group, client);
+		(success ? stats.refreshes : stats.failures).increment();
+		if (parseTime >= 0) {
+			record(Stage.PARSE, TimeUnit.MILLISECONDS.toNanos(parseTime));
+		}
+		record(Stage.QUEUED,
+				TimeUnit.MILLISECONDS.toNanos(Math.max(0, trace.startMillis - receivedAt)));
+		record(Stage.TOTAL, TimeUnit.MILLISECONDS
+				.toNanos(Math.max(0, System.currentTimeMillis() - receivedAt)));
+	}
+
+	/**
+	 * Record a dataId as listened, synced with the loaded property source.
+	 * @param dataId dataId
+	 * @param group group
+	 * @param client the name of the client the dataId is loaded from, null for the
+	 * default one
+	 * @param propertySource the loaded property source, may be null
+	 */
+	public void recordListened(String dataId, String group, String client,
+			NacosPropertySource propertySource) {
+		DataIdStats stats = getDataIdStats(dataId, group, client);
+		stats.listened = true;
+		if (propertySource != null && stats.getLastSyncTime() < 0) {
+			stats.sync(propertySource.getMd5(),
+					propertySource.getTimestamp().getTime());
+		}
+	}
+
+	/**
+	 * Record the content of a dataId received from the server.
+	 * @param dataId dataId
+	 * @param group group
+	 * @param client the name of the client the dataId is loaded from, null for the
+	 * default one
+	 * @param content the content, may be null
+	 */
+	public void recordSync(String dataId, String group, String client,
+			String content) {
+		getDataIdStats(dataId, group, client).sync(NacosSharedSources.md5(content),
+				System.currentTimeMillis());
+	}
+
+	public StageStats getStageStats(Stage stage) {
+		return stages.get(stage);
+	}
+
+	public Iterable<DataIdStats> getDataIdStats() {
+		return dataIds.values();
+	}
+
+	/**
+	 * @param callback called with every dataId seen from now on
+	 */
+	public void onNewDataId(Consumer<DataIdStats> callback) {
+		dataIdCallbacks.add(callback);
+	}
+
+	/**
+	 * @return a summary for the endpoint
+	 */
+	public Map<String, Object> getSummary() {
+		Map<String, Object> stageSummary = new LinkedHashMap<>(16);
+		for (Map.Entry<Stage, StageStats> entry : stages.entrySet()) {
+			StageStats stats = entry.getValue();
+			Map<String, Object> summary = new LinkedHashMap<>(8);
+			long count = stats.getCount();
+			summary.put("count", count);
+			summary.put("meanMillis", count == 0 ? 0
+					: TimeUnit.NANOSECONDS.toMillis(stats.getTotalNanos() / count));
+			summary.put("maxMillis", TimeUnit.NANOSECONDS.toMillis(stats.getMaxNanos()));
+			stageSummary.put(entry.getKey().getTag(), summary);
+		}
+		Map<String, Object> dataIdSummary = new LinkedHashMap<>(16);
+		for (DataIdStats stats : dataIds.values()) {
+			Map<String, Object> summary = new LinkedHashMap<>(4);
+			summary.put("refreshes", stats.getRefreshes());
+			summary.put("failures", stats.getFailures());
+			dataIdSummary.put(stats.getKey(), summary);
+		}
+		Map<String, Object> result = new LinkedHashMap<>(4);
+		result.put("stages", stageSummary);
+		result.put("dataIds", dataIdSummary);
+		return result;
+	}
+
+	@Override
+	public boolean supportsEventType(Class<? extends ApplicationEvent> eventType) {
+		return EnvironmentChangeEvent.class.isAssignableFrom(eventType)
+				|| RefreshScopeRefreshedEvent.class.isAssignableFrom(eventType);
+	}
+
+	@Override
+	public void onApplicationEvent(ApplicationEvent event) {
+		Trace trace = TRACE.get();
+		if (trace == null) {
+			return;
+		}
+		if (event instanceof EnvironmentChangeEvent) {
+			if (trace.environmentAt < 0) {
+				trace.environmentAt = trace.elapsed();
+			}
+		}
+		else {
+			trace.refreshScopeAt = trace.elapsed();
+		}
+	}
+
+	@Override
+	public int getOrder() {
+		return Ordered.HIGHEST_PRECEDENCE;
+	}
+
+	private void record(Stage stage, long nanos) {
+		stages.get(stage).record(nanos);
+	}
+
+	private DataIdStats getDataIdStats(String dataId, String group, String client) {
+		String key = NacosPropertySourceRepository.getMapKey(dataId, group, client);
+		DataIdStats stats = dataIds.get(key);
+		if (stats != null) {
+			return stats;
+		}
+		DataIdStats created = new DataIdStats(dataId, group, client);
+		stats = dataIds.putIfAbsent(key, created);
+		if (stats != null) {
+			return stats;
+		}
+		for (Consumer<DataIdStats> callback : dataIdCallbacks) {
+			callback.accept(created);
+		}
+		return created;
+	}
+
+	/**
+	 * The stages of the refresh pipeline.
+	 */
+	public enum Stage {
+
+		/**
+		 * From the change received to the refresh started, debounce and queueing
+		 * included.
+		 */
+		QUEUED("queued"),
+
+		/**
+		 * Parsing a changed dataId, only known for the targeted refresh.
+		 */
+		PARSE("parse"),
+
+		/**
+		 * From the refresh started to the environment updated.
+		 */
+		ENVIRONMENT("environment"),
+
+		/**
+		 * Rebinding the configuration properties beans.
+		 */
+		REBIND("rebind"),
+
+		/**
+		 * Refreshing the refresh scope, its beans are recreated on next access. Only
+		 * known when the rebind is timed.
+		 */
+		REFRESH_SCOPE("refresh-scope"),
+
+		/**
+		 * The whole refresh.
+		 */
+		REFRESH("refresh"),
+
+		/**
+		 * From the change received to the refresh finished.
+		 */
+		TOTAL("total");
+
+		private final String tag;
+
+		Stage(String tag) {
+			this.tag = tag;
+		}
+
+		public String getTag() {
+			return tag;
+		}
+
+	}
+
+	/**
+	 * Count, total and max latency of a stage.
+	 */
+	public static final class StageStats {
+
+		private final LongAdder count = new LongAdder();
+
+		private final LongAdder totalNanos = new LongAdder();
+
+		private final AtomicLong maxNanos = new AtomicLong();
+
+		private void record(long nanos) {
+			count.increment();
+			totalNanos.add(nanos);
+			maxNanos.accumulateAndGet(nanos, Math::max);
+		}
+
+		public long getCount() {
+			return count.sum();
+		}
+
+		public long getTotalNanos() {
+			return totalNanos.sum();
+		}
+
+		public long getMaxNanos() {
+			return maxNanos.get();
+		}
+
+	}
+
+	/**
+	 * Refresh outcome and sync state of a dataId.
+	 */
+	public static final class DataIdStats {
+
+		private final String dataId;
+
+		private final String group;
+
+		private final String client;
+
+		private final LongAdder refreshes = new LongAdder();
+
+		private final LongAdder failures = new LongAdder();
+
+		private final LongAdder fetchFailures = new LongAdder();
+
+		private volatile boolean listened;
+
+		/**
+		 * When the content was last loaded or received, -1 if never.
+		 */
+		private volatile long lastSyncTime = -1;
+
+		/**
+		 * The md5 of the local content, null if unknown.
+		 */
+		private volatile String md5;
+
+		/**
+		 * Since when the server md5 is known to differ from the local one, -1 if not.
+		 */
+		private long staleSince = -1;
+
+		private DataIdStats(String dataId, String group, String client) {
+			this.dataId = dataId;
+			this.group = group;
+			this.client = client;
+		}
+
+		public String getDataId() {
+			return dataId;
+		}
+
+		public String getGroup() {
+			return group;
+		}
+
+		/**
+		 * @return the name of the client the dataId is loaded from, null for the
+		 * default one
+		 */
+		public String getClient() {
+			return client;
+		}
+
+		/**
+		 * @return dataId,group, followed by the client unless it is the default one, see
+		 * {@link NacosPropertySourceRepository#getMapKey(String, String, String)}
+		 */
+		public String getKey() {
+			return NacosPropertySourceRepository.getMapKey(dataId, group, client);
+		}
+
+		public long getRefreshes() {
+			return refreshes.sum();
+		}
+
+		public long getFailures() {
+			return failures.sum();
+		}
+
+		public long getFetchFailures() {
+			return fetchFailures.sum();
+		}
+
+		public boolean isListened() {
+			return listened;
+		}
+
+		public long getLastSyncTime() {
+			return lastSyncTime;
+		}
+
+		public String getMd5() {
+			return md5;
+		}
+
+		/**
+		 * Compare the server md5 with the local one.
+		 * @param localMd5 the local md5 read before fetching the server content, the
+		 * comparison is skipped if a content was received meanwhile
+		 * @param serverMd5 the md5 of the server content
+		 * @param now the time of the comparison in milliseconds
+		 */
+		public synchronized void recordServerMd5(String localMd5, String serverMd5,
+				long now) {
+			if (localMd5 == null || !localMd5.equals(md5)) {
+				return;
+			}
+			if (localMd5.equals(serverMd5)) {
+				staleSince = -1;
+			}
+			else if (staleSince < 0) {
+				staleSince = now;
+			}
+		}
+
+		public void recordFetchFailure() {
+			fetchFailures.increment();
+		}
+
+		/**
+		 * @param now the current time in milliseconds
+		 * @return for how long the local content is known to differ from the server
+		 * one, 0 if it does not
+		 */
+		public synchronized long getStaleness(long now) {
+			return staleSince < 0 ? 0 : Math.max(0, now - staleSince);
+		}
+
+		private synchronized void sync(String md5, long time) {
+			this.md5 = md5;
+			this.lastSyncTime = time;
+			this.staleSince = -1;
+		}
+
+	}
+
+	/**
+	 * A refresh traced on the current thread.
+	 */
+	public static final class Trace {
+
+		private final long start = System.nanoTime();
+
+		private final long startMillis = System.currentTimeMillis();
+
+		/**
+		 * Nanoseconds since the start, -1 if not reached.
+		 */
+		private long environmentAt = -1;
+
+		private long rebindAt = -1;
+
+		private long reboundAt = -1;
+
+		private long refreshScopeAt = -1;
+
+		private Trace() {
+		}
+
+		private long elapsed() {
+			return System.nanoTime() - start;
+		}
+
+	}
+
+}
@@ -0,0 +1,452 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.alibaba.cloud.nacos.NacosPropertySourceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.boot.context.event.ApplicationFailedEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.event.ApplicationStartingEvent;
+import org.springframework.cloud.bootstrap.BootstrapApplicationListener;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.event.GenericApplicationListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+
+/**
+ * Time spent by Nacos config while the application starts: resolving the
+ * {@code spring.config.import} locations, loading them, locating the bootstrap property
+ * sources, and fetching and parsing every dataId.
+ * <p>
+ * Every phase is a {@link StartupStep} of the {@link ApplicationStartup} of the
+ * starting application, named {@code spring.cloud.nacos.config.<phase>}, so it shows
+ * in the startup endpoint when a buffering {@link ApplicationStartup} is configured. The
+ * recorder stops when the application is ready, logs a summary, and keeps it for the
+ * {@code nacosconfig} endpoint. The phases run before the application context exists,
+ * hence the static state, like {@link NacosPropertySourceRepository}.
+ *
+ * @author chengrui
+ */
+public final class NacosStartupRecorder {
+
+	private static final Logger log = LoggerFactory.getLogger(NacosStartupRecorder.class);
+
+	private static final String STEP_PREFIX = "spring.cloud.nacos.config.";
+
+	/**
+	 * The number of dataIds named in the summary log.
+	 */
+	private static final int SLOWEST_LIMIT = 5;
+
+	private static volatile ApplicationStartup applicationStartup = ApplicationStartup.DEFAULT;
+
+	private static volatile boolean recording = true;
+
+	private static volatile boolean started;
+
+	private static final Map<Phase, PhaseStats> PHASES = new EnumMap<>(Phase.class);
+
+	private static final Map<String, DataIdStats> DATA_IDS = new ConcurrentHashMap<>(16);
+
+	static {
+		for (Phase phase : Phase.values()) {
+			PHASES.put(phase, new PhaseStats());
+		}
+	}
+
+	private NacosStartupRecorder() {
+
+	}
+
+	/**
+	 * Start a phase.
+	 * @param phase the phase
+	 * @param dataId the dataId the phase works on, may be null
+	 * @param group the group the phase works on, may be null
+	 * @return the step to end when the phase is over
+	 */
+	public static Step start(Phase phase, String dataId, String group) {
+		if (!recording) {
+			return Step.NONE;
+		}
+		StartupStep startupStep = applicationStartup.start(STEP_PREFIX + phase.getTag());
+		if (dataId != null) {
+			startupStep.tag("dataId", dataId);
+		}
+		if (group != null) {
+			startupStep.tag("group", group);
+		}
+		return new Step(phase, dataId, group, startupStep);
+	}
+
+	/**
+	 * @return whether the application is still starting
+	 */
+	public static boolean isRecording() {
+		return recording;
+	}
+
+	/**
+	 * @return a summary for the endpoint
+	 */
+	public static Map<String, Object> getSummary() {
+		Map<String, Object> phaseSummary = new LinkedHashMap<>(8);
+		for (Map.Entry<Phase, PhaseStats> entry : PHASES.entrySet()) {
+			PhaseStats stats = entry.getValue();
+			Map<String, Object> summary = new LinkedHashMap<>(4);
+			summary.put("count", stats.count.sum());
+			summary.put("totalMillis", toMillis(stats.totalNanos.sum()));
+			summary.put("maxMillis", toMillis(stats.maxNanos.get()));
+			phaseSummary.put(entry.getKey().getTag(), summary);
+		}
+		Map<String, Object> dataIdSummary = new LinkedHashMap<>(16);
+		for (DataIdStats stats : getDataIdStats()) {
+			Map<String, Object> summary = new LinkedHashMap<>(4);
+			summary.put("fetchMillis", toMillis(stats.fetchNanos.get()));
+			summary.put("parseMillis", toMillis(stats.parseNanos.get()));
+			summary.put("bytes", stats.bytes.get());
+			dataIdSummary.put(
+					NacosPropertySourceRepository.getMapKey(stats.dataId, stats.group),
+					summary);
+		}
+		Map<String, Object> result = new LinkedHashMap<>(4);
+		result.put("phases", phaseSummary);
+		result.put("dataIds", dataIdSummary);
+		return result;
+	}
+
+	/**
+	 * @return the dataIds seen while starting, the slowest first
+	 */
+	public static List<DataIdStats> getDataIdStats() {
+		List<DataIdStats> stats = new ArrayList<>(DATA_IDS.values());
+		stats.sort(Comparator.comparingLong(DataIdStats::getTotalNanos).reversed());
+		return stats;
+	}
+
+	/**
+	 * Forget the recorded phases and record again.
+	 * @param startup the application startup of the starting application
+	 */
+	static void reset(ApplicationStartup startup) {
+		for (PhaseStats stats : PHASES.values()) {
+			stats.reset();
+		}
+		DATA_IDS.clear();
+		applicationStartup = startup;
+		started = true;
+		recording = true;
+	}
+
+	/**
+	 * Stop recording, the summary is kept.
+	 * @param logSummary whether to log the summary
+	 */
+	static void stop(boolean logSummary) {
+		recording = false;
+		started = false;
+		applicationStartup = ApplicationStartup.DEFAULT;
+		if (logSummary && log.isInfoEnabled() && !DATA_IDS.isEmpty()) {
+			log.info(summaryMessage());
+		}
+	}
+
+	private static String summaryMessage() {
+		StringBuilder message = new StringBuilder("[Nacos Config] startup took");
+		for (Map.Entry<Phase, PhaseStats> entry : PHASES.entrySet()) {
+			long count = entry.getValue().count.sum();
+			if (count > 0) {
+				message.append(' ').append(entry.getKey().getTag()).append('=')
+						.append(toMillis(entry.getValue().totalNanos.sum()))
+						.append("ms/").append(count);
+			}
+		}
+		message.append(", slowest dataIds:");
+		List<DataIdStats> stats = getDataIdStats();
+		for (DataIdStats dataIdStats : stats.subList(0,
+				Math.min(SLOWEST_LIMIT, stats.size()))) {
+			message.append(' ').append(dataIdStats.dataId).append('[')
+					.append(dataIdStats.group).append("](fetch=")
+					.append(toMillis(dataIdStats.fetchNanos.get())).append("ms, parse=")
+					.append(toMillis(dataIdStats.parseNanos.get())).append("ms, ")
+					.append(dataIdStats.bytes.get()).append("B)");
+		}
+		return message.toString();
+	}
+
+	private static void record(Step step, long nanos, String content) {
+		PHASES.get(step.phase).record(nanos);
+		if (step.dataId == null
+				|| (step.phase != Phase.FETCH && step.phase != Phase.PARSE)) {
+			return;
+		}
+		long bytes = content == null ? 0 : utf8Length(content);
+		step.startupStep.tag("bytes", String.valueOf(bytes));
+		String group = String.valueOf(step.group);
+		DataIdStats stats = DATA_IDS.computeIfAbsent(
+				NacosPropertySourceRepository.getMapKey(step.dataId, group),
+				key -> new DataIdStats(step.dataId, group));
+		stats.bytes.set(bytes);
+		(step.phase == Phase.FETCH ? stats.fetchNanos : stats.parseNanos)
+				.addAndGet(nanos);
+	}
+
+	/**
+	 * Count the UTF-8 bytes of a text without encoding a copy of it.
+	 */
+	private static long utf8Length(String text) {
+		long length = text.length();
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c < 0x80) {
+				continue;
+			}
+			if (c < 0x800) {
+				length++;
+			}
+			else if (!Character.isSurrogate(c)) {
+				length += 2;
+			}
+			else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+					&& Character.isLowSurrogate(text.charAt(i + 1))) {
+				// 4 bytes for the 2 chars of the pair.
+				length += 2;
+				i++;
+			}
+			// a lone surrogate is encoded as a single '?'.
+		}
+		return length;
+	}
+
+	private static long toMillis(long nanos) {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+
+	/**
+	 * The recorded phases.
+	 */
+	public enum Phase {
+
+		/**
+		 * Resolving the {@code spring.config.import} locations, the config service is
+		 * created meanwhile.
+		 */
+		RESOLVE("resolve"),
+
+		/**
+		 * Loading one resolved location, fetch and parse included.
+		 */
+		LOAD("load"),
+
+		/**
+		 * Locating the bootstrap property sources, fetch and parse included.
+		 */
+		LOCATE("locate"),
+
+		/**
+		 * Fetching the content of a dataId from Nacos.
+		 */
+		FETCH("fetch"),
+
+		/**
+		 * Parsing the content of a dataId.
+		 */
+		PARSE("parse");
+
+		private final String tag;
+
+		Phase(String tag) {
+			this.tag = tag;
+		}
+
+		public String getTag() {
+			return tag;
+		}
+
+	}
+
+	/**
+	 * A started phase.
+	 */
+	public static final class Step {
+
+		private static final Step NONE = new Step(null, null, null, null);
+
+		private final Phase phase;
+
+		private final String dataId;
+
+		private final String group;
+
+		private final StartupStep startupStep;
+
+		private final long start = System.nanoTime();
+
+		private Step(Phase phase, String dataId, String group, StartupStep startupStep) {
+			this.phase = phase;
+			this.dataId = dataId;
+			this.group = group;
+			this.startupStep = startupStep;
+		}
+
+		public void end() {
+			end(null);
+		}
+
+		/**
+		 * End the phase.
+		 * @param content the content fetched or parsed, may be null
+		 */
+		public void end(String content) {
+			if (this == NONE) {
+				return;
+			}
+			record(this, System.nanoTime() - start, content);
+			startupStep.end();
+		}
+
+	}
+
+	/**
+	 * Fetch and parse cost of a dataId.
+	 */
+	public static final class DataIdStats {
+
+		private final String dataId;
+
+		private final String group;
+
+		private final AtomicLong fetchNanos = new AtomicLong();
+
+		private final AtomicLong parseNanos = new AtomicLong();
+
+		private final AtomicLong bytes = new AtomicLong();
+
+		private DataIdStats(String dataId, String group) {
+			this.dataId = dataId;
+			this.group = group;
+		}
+
+		public String getDataId() {
+			return dataId;
+		}
+
+		public String getGroup() {
+			return group;
+		}
+
+		public long getFetchNanos() {
+			return fetchNanos.get();
+		}
+
+		public long getParseNanos() {
+			return parseNanos.get();
+		}
+
+		public long getTotalNanos() {
+			return fetchNanos.get() + parseNanos.get();
+		}
+
+		public long getBytes() {
+			return bytes.get();
+		}
+
+	}
+
+	private static final class PhaseStats {
+
+		private final LongAdder count = new LongAdder();
+
+		private final LongAdder totalNanos = new LongAdder();
+
+		private final AtomicLong maxNanos = new AtomicLong();
+
+		private void record(long nanos) {
+			count.increment();
+			totalNanos.add(nanos);
+			maxNanos.accumulateAndGet(nanos, Math::max);
+		}
+
+		private void reset() {
+			count.reset();
+			totalNanos.reset();
+			maxNanos.set(0);
+		}
+
+	}
+
+	/**
+	 * Start recording when the application starts and stop when it is ready, the
+	 * bootstrap context is ignored.
+	 */
+	public static class Listener implements GenericApplicationListener {
+
+		@Override
+		public boolean supportsEventType(ResolvableType resolvableType) {
+			Class<?> type = resolvableType.getRawClass();
+			return type != null && (ApplicationStartingEvent.class.isAssignableFrom(type)
+					|| ApplicationReadyEvent.class.isAssignableFrom(type)
+					|| ApplicationFailedEvent.class.isAssignableFrom(type));
+		}
+
+		@Override
+		public void onApplicationEvent(ApplicationEvent event) {
+			if (event instanceof ApplicationStartingEvent) {
+				// the bootstrap application starts while the application is starting.
+				if (!started) {
+					reset(((ApplicationStartingEvent) event).getSpringApplication()
+							.getApplicationStartup());
+				}
+			}
+			else if (event instanceof ApplicationReadyEvent) {
+				if (!isBootstrap((ApplicationReadyEvent) event)) {
+					stop(true);
+				}
+			}
+			else if (started) {
+				stop(false);
+			}
+		}
+
+		private static boolean isBootstrap(ApplicationReadyEvent event) {
+			return event.getApplicationContext().getEnvironment().getPropertySources()
+					.contains(BootstrapApplicationListener.BOOTSTRAP_PROPERTY_SOURCE_NAME);
+		}
+
+		@Override
+		public int getOrder() {
+			return Ordered.HIGHEST_PRECEDENCE;
+		}
+
+	}
+
+}
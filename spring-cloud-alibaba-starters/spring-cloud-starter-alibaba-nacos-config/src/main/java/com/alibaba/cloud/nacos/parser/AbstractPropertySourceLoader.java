@@ -40,7 +40,7 @@ import org.springframework.core.io.Resource;
  * {@code org.springframework.boot.env.PropertySourceLoader=..}; <br/>
  * 3.the last step validate.
  * </p>
- * Notice the use of {@link NacosByteArrayResource} .
+ * Notice the use of {@link NacosByteArrayResource} and {@link NacosBinaryResource} .
  *
  * @author zkz
  */
@@ -60,7 +60,17 @@ public abstract class AbstractPropertySourceLoader implements PropertySourceLoad
 	 * @return if the resource can be loaded
 	 */
 	protected boolean canLoad(String name, Resource resource) {
-		return resource instanceof NacosByteArrayResource;
+		return resource instanceof NacosByteArrayResource
+				|| resource instanceof NacosBinaryResource;
+	}
+
+	/**
+	 * Whether the loader reads a binary format, the content of which is stored Base64
+	 * encoded in Nacos and given to the loader as a {@link NacosBinaryResource}.
+	 * @return if the format is binary
+	 */
+	protected boolean isBinaryFormat() {
+		return false;
 	}
 
 	/**
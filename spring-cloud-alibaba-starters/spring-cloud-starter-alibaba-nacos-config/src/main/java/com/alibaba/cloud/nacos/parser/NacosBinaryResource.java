@@ -0,0 +1,109 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Base64;
+
+import org.springframework.core.io.AbstractResource;
+
+/**
+ * Nacos-specific resource of a Base64 encoded binary config content.
+ * <p>
+ * Nacos config content is text, binary formats are stored Base64 encoded. The content is
+ * decoded while the loader reads it, without copying it into a byte array first.
+ *
+ * @author chengrui
+ */
+public class NacosBinaryResource extends AbstractResource {
+
+	private final String content;
+
+	private final String description;
+
+	private String filename;
+
+	/**
+	 * @param content the Base64 encoded content, line breaks are allowed
+	 * @param description where the content comes from
+	 */
+	public NacosBinaryResource(String content, String description) {
+		this.content = content;
+		this.description = description;
+	}
+
+	public void setFilename(String filename) {
+		this.filename = filename;
+	}
+
+	@Override
+	public String getFilename() {
+		return filename == null ? description : filename;
+	}
+
+	@Override
+	public String getDescription() {
+		return "Nacos binary resource [" + description + "]";
+	}
+
+	@Override
+	public boolean exists() {
+		return true;
+	}
+
+	@Override
+	public InputStream getInputStream() throws IOException {
+		return Base64.getMimeDecoder().wrap(new AsciiInputStream(content));
+	}
+
+	/**
+	 * Read the characters of an ASCII string as bytes.
+	 */
+	private static final class AsciiInputStream extends InputStream {
+
+		private final String content;
+
+		private int position;
+
+		private AsciiInputStream(String content) {
+			this.content = content;
+		}
+
+		@Override
+		public int read() {
+			return position < content.length() ? content.charAt(position++) & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (len == 0) {
+				return 0;
+			}
+			if (position >= content.length()) {
+				return -1;
+			}
+			int n = Math.min(len, content.length() - position);
+			for (int i = 0; i < n; i++) {
+				b[off + i] = (byte) content.charAt(position++);
+			}
+			return n;
+		}
+
+	}
+
+}
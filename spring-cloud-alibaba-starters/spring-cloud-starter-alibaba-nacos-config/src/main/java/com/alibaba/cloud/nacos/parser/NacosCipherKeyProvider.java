@@ -0,0 +1,42 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.parser;
+
+import org.springframework.security.crypto.encrypt.TextEncryptor;
+
+/**
+ * Provider of the {@link TextEncryptor}s decrypting the {@code {cipher}} values of the
+ * Nacos configs, see {@link NacosConfigDecryptor}.
+ * <p>
+ * The providers are loaded from {@code META-INF/spring.factories}, the configs are
+ * parsed before any bean exists. Without a provider the values are left encrypted.
+ *
+ * @author chengrui
+ */
+public interface NacosCipherKeyProvider {
+
+	/**
+	 * Get the encryptor of a key by its name. The same instance is expected while the
+	 * key is unchanged, the plain texts decrypted with the key are forgotten when a
+	 * different one is returned.
+	 * @param keyName the name given by {@code {key:name}}, or
+	 * {@link NacosConfigDecryptor#DEFAULT_KEY_NAME} when the value names none
+	 * @return the encryptor, null if this provider does not know the key
+	 */
+	TextEncryptor getEncryptor(String keyName);
+
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Nacos-specific resource of a gzip compressed, Base64 encoded config content.
+ * <p>
+ * The content is decoded and decompressed while the loader reads it, the uncompressed
+ * content is never held as a whole.
+ *
+ * @author chengrui
+ */
+public class NacosCompressedResource extends NacosBinaryResource {
+
+	/**
+	 * The Base64 encoding of the gzip magic number and deflate method.
+	 */
+	private static final String GZIP_BASE64_HEADER = "H4sI";
+
+	private final boolean escapeUnicode;
+
+	/**
+	 * @param content the Base64 encoded gzip content
+	 * @param description where the content comes from
+	 * @param escapeUnicode whether the non ASCII characters are written as unicode
+	 * escapes, for the loaders reading ISO-8859-1
+	 */
+	public NacosCompressedResource(String content, String description,
+			boolean escapeUnicode) {
+		super(content, description);
+		this.escapeUnicode = escapeUnicode;
+	}
+
+	/**
+	 * Whether the content starts like a Base64 encoded gzip stream: the gzip header on
+	 * a first line made of Base64 characters only.
+	 * @param content the config content
+	 * @return whether it looks compressed
+	 */
+	public static boolean isCompressed(String content) {
+		if (content == null || !content.startsWith(GZIP_BASE64_HEADER)) {
+			return false;
+		}
+		for (int i = GZIP_BASE64_HEADER.length(); i < content.length(); i++) {
+			char c = content.charAt(i);
+			if (c == '\r' || c == '\n') {
+				break;
+			}
+			if (!isBase64(c)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isBase64(char c) {
+		return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z')
+				|| (c >= '0' && c <= '9') || c == '+' || c == '/' || c == '=';
+	}
+
+	@Override
+	public String getDescription() {
+		return "Nacos compressed resource [" + super.getDescription() + "]";
+	}
+
+	@Override
+	public InputStream getInputStream() throws IOException {
+		InputStream inputStream = new GZIPInputStream(super.getInputStream(), 8192);
+		return escapeUnicode ? new UnicodeEscapingInputStream(
+				new InputStreamReader(inputStream, StandardCharsets.UTF_8))
+				: inputStream;
+	}
+
+	/**
+	 * Write the characters as ISO-8859-1 bytes, the non ASCII ones as unicode escapes,
+	 * the streaming counterpart of
+	 * {@link com.alibaba.cloud.nacos.utils.NacosConfigUtils#selectiveConvertUnicode}.
+	 */
+	private static final class UnicodeEscapingInputStream extends InputStream {
+
+		private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+		private final Reader reader;
+
+		private final char[] chars = new char[4096];
+
+		private int charPosition;
+
+		private int charLength;
+
+		private final byte[] pending = new byte[6];
+
+		private int pendingPosition;
+
+		private int pendingLength;
+
+		private UnicodeEscapingInputStream(Reader reader) {
+			this.reader = reader;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (pendingPosition < pendingLength) {
+				return pending[pendingPosition++];
+			}
+			int c = nextChar();
+			if (c < 0x80) {
+				return c;
+			}
+			escape(c);
+			return pending[pendingPosition++];
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (off < 0 || len < 0 || len > b.length - off) {
+				throw new IndexOutOfBoundsException();
+			}
+			int n = 0;
+			while (n < len) {
+				if (pendingPosition < pendingLength) {
+					b[off + n++] = pending[pendingPosition++];
+					continue;
+				}
+				// only block for more chars while nothing was read.
+				if (charPosition == charLength && n > 0 && !reader.ready()) {
+					break;
+				}
+				int c = nextChar();
+				if (c < 0) {
+					return n == 0 ? -1 : n;
+				}
+				if (c < 0x80) {
+					b[off + n++] = (byte) c;
+				}
+				else {
+					escape(c);
+				}
+			}
+			return n;
+		}
+
+		private int nextChar() throws IOException {
+			if (charPosition == charLength) {
+				int read = reader.read(chars, 0, chars.length);
+				if (read <= 0) {
+					return -1;
+				}
+				charPosition = 0;
+				charLength = read;
+			}
+			return chars[charPosition++];
+		}
+
+		private void escape(int c) {
+			pending[0] = '\\';
+			pending[1] = 'u';
+			pending[2] = (byte) HEX_DIGITS[(c >> 12) & 0xF];
+			pending[3] = (byte) HEX_DIGITS[(c >> 8) & 0xF];
+			pending[4] = (byte) HEX_DIGITS[(c >> 4) & 0xF];
+			pending[5] = (byte) HEX_DIGITS[c & 0xF];
+			pendingPosition = 0;
+			pendingLength = 6;
+		}
+
+		@Override
+		public void close() throws IOException {
+			reader.close();
+		}
+
+	}
+
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.parser;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.alibaba.nacos.common.executor.NameThreadFactory;
+
+import org.springframework.boot.env.OriginTrackedMapPropertySource;
+import org.springframework.boot.origin.OriginTrackedValue;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.PropertySource;
+import org.springframework.security.crypto.encrypt.TextEncryptor;
+
+/**
+ * Decrypt the {@code {cipher}} values of the parsed Nacos configs.
+ * <p>
+ * A value is {@code {cipher}}, optionally {@code {key:name}}, then the cipher text, the
+ * Spring Cloud convention. It is decrypted by the {@link TextEncryptor} the
+ * {@link NacosCipherKeyProvider}s give for the key, e.g. the hex encoded output of
+ * {@link org.springframework.security.crypto.encrypt.Encryptors#text}. The plain texts
+ * are cached by key name and hash of the cipher text, so a changed config only decrypts
+ * its changed values, and the values of a config holding many of them are decrypted on
+ * a worker pool. The plain texts of a key are forgotten once its provider gives another
+ * encryptor.
+ *
+ * @author chengrui
+ */
+public final class NacosConfigDecryptor {
+
+	/**
+	 * The prefix of an encrypted value.
+	 */
+	public static final String CIPHER_PREFIX = "{cipher}";
+
+	/**
+	 * The name of the key used when a value names none.
+	 */
+	public static final String DEFAULT_KEY_NAME = "default";
+
+	private static final String KEY_PREFIX = "{key:";
+
+	/**
+	 * The number of encrypted values from which a config is decrypted on the worker
+	 * pool.
+	 */
+	private static final int PARALLEL_THRESHOLD = 32;
+
+	private static final int MAX_CACHED = 4096;
+
+	private final List<NacosCipherKeyProvider> keyProviders;
+
+	/**
+	 * The plain texts by key name.
+	 */
+	private final Map<String, PlainTexts> plainTexts = new ConcurrentHashMap<>(8);
+
+	private final LongAdder decryptions = new LongAdder();
+
+	public NacosConfigDecryptor(List<NacosCipherKeyProvider> keyProviders) {
+		this.keyProviders = keyProviders;
+	}
+
+	/**
+	 * @return the number of values decrypted, the cached ones excluded
+	 */
+	public long getDecryptionCount() {
+		return decryptions.sum();
+	}
+
+	/**
+	 * Decrypt the encrypted values of the parsed property sources.
+	 * @param propertySources the parsed property sources
+	 * @return the property sources, the ones holding encrypted values replaced
+	 */
+	public List<PropertySource<?>> decrypt(List<PropertySource<?>> propertySources) {
+		if (keyProviders.isEmpty()) {
+			return propertySources;
+		}
+		List<PropertySource<?>> result = null;
+		for (int i = 0; i < propertySources.size(); i++) {
+			PropertySource<?> propertySource = propertySources.get(i);
+			PropertySource<?> decrypted = propertySource instanceof MapPropertySource
+					? decrypt((MapPropertySource) propertySource) : propertySource;
+			if (decrypted != propertySource && result == null) {
+				result = new ArrayList<>(propertySources);
+			}
+			if (result != null) {
+				result.set(i, decrypted);
+			}
+		}
+		return result == null ? propertySources : result;
+	}
+
+	private PropertySource<?> decrypt(MapPropertySource propertySource) {
+		List<String> names = new ArrayList<>();
+		for (Map.Entry<String, Object> entry : propertySource.getSource().entrySet()) {
+			if (getCipherText(entry.getValue()) != null) {
+				names.add(entry.getKey());
+			}
+		}
+		if (names.isEmpty()) {
+			return propertySource;
+		}
+		Map<String, Object> source = new LinkedHashMap<>(propertySource.getSource());
+		if (names.size() < PARALLEL_THRESHOLD) {
+			decrypt(propertySource.getName(), source, names);
+		}
+		else {
+			int chunks = Math.min(Workers.POOL.getMaximumPoolSize(),
+					names.size() / PARALLEL_THRESHOLD);
+			int chunkSize = (names.size() + chunks - 1) / chunks;
+			List<CompletableFuture<Map<String, Object>>> futures = new ArrayList<>(
+					chunks);
+			for (int from = 0; from < names.size(); from += chunkSize) {
+				List<String> chunk = names.subList(from,
+						Math.min(from + chunkSize, names.size()));
+				// each chunk writes into its own map, merged on the calling thread.
+				Map<String, Object> values = new LinkedHashMap<>(chunk.size() * 2);
+				for (String name : chunk) {
+					values.put(name, source.get(name));
+				}
+				futures.add(CompletableFuture.supplyAsync(() -> {
+					decrypt(propertySource.getName(), values, chunk);
+					return values;
+				}, Workers.POOL));
+			}
+			try {
+				for (CompletableFuture<Map<String, Object>> future : futures) {
+					source.putAll(future.join());
+				}
+			}
+			catch (CompletionException e) {
+				throw e.getCause() instanceof RuntimeException
+						? (RuntimeException) e.getCause() : e;
+			}
+		}
+		return new OriginTrackedMapPropertySource(propertySource.getName(), source, true);
+	}
+
+	private void decrypt(String sourceName, Map<String, Object> source,
+			List<String> names) {
+		for (String name : names) {
+			Object value = source.get(name);
+			String plainText;
+			try {
+				plainText = decrypt(getCipherText(value));
+			}
+			catch (GeneralSecurityException | RuntimeException e) {
+				throw new IllegalStateException(String.format(
+						"Cannot decrypt property '%s' of '%s'", name, sourceName), e);
+			}
+			source.put(name, value instanceof OriginTrackedValue
+					? OriginTrackedValue.of(plainText,
+							((OriginTrackedValue) value).getOrigin())
+					: plainText);
+		}
+	}
+
+	private String decrypt(String value) throws GeneralSecurityException {
+		String keyName = DEFAULT_KEY_NAME;
+		String cipherText = value.substring(CIPHER_PREFIX.length());
+		if (cipherText.startsWith(KEY_PREFIX)) {
+			int end = cipherText.indexOf('}');
+			if (end < 0) {
+				throw new IllegalArgumentException("Unclosed key name");
+			}
+			keyName = cipherText.substring(KEY_PREFIX.length(), end);
+			cipherText = cipherText.substring(end + 1);
+		}
+		TextEncryptor encryptor = getEncryptor(keyName);
+		PlainTexts cached = plainTexts.get(keyName);
+		if (cached == null || cached.encryptor != encryptor) {
+			// first use of the key, or its provider changed it.
+			cached = new PlainTexts(encryptor);
+			plainTexts.put(keyName, cached);
+		}
+		String hash = sha256(cipherText);
+		String plainText = cached.values.get(hash);
+		if (plainText != null) {
+			return plainText;
+		}
+		plainText = encryptor.decrypt(cipherText.trim());
+		decryptions.increment();
+		if (cached.values.size() >= MAX_CACHED) {
+			cached.values.clear();
+		}
+		cached.values.put(hash, plainText);
+		return plainText;
+	}
+
+	private TextEncryptor getEncryptor(String keyName) {
+		for (NacosCipherKeyProvider keyProvider : keyProviders) {
+			TextEncryptor encryptor = keyProvider.getEncryptor(keyName);
+			if (encryptor != null) {
+				return encryptor;
+			}
+		}
+		throw new IllegalArgumentException("No key named " + keyName);
+	}
+
+	private static String getCipherText(Object value) {
+		if (value instanceof OriginTrackedValue) {
+			value = ((OriginTrackedValue) value).getValue();
+		}
+		if (value instanceof CharSequence) {
+			String text = value.toString();
+			return text.startsWith(CIPHER_PREFIX) ? text : null;
+		}
+		return null;
+	}
+
+	private static String sha256(String text) throws GeneralSecurityException {
+		byte[] digest = MessageDigest.getInstance("SHA-256")
+				.digest(text.getBytes(StandardCharsets.UTF_8));
+		StringBuilder sb = new StringBuilder(digest.length * 2);
+		for (byte b : digest) {
+			sb.append(Character.forDigit((b >> 4) & 0xF, 16))
+					.append(Character.forDigit(b & 0xF, 16));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * The plain texts decrypted by an encryptor, by hash of the cipher text.
+	 */
+	private static final class PlainTexts {
+
+		private final TextEncryptor encryptor;
+
+		private final Map<String, String> values = new ConcurrentHashMap<>(64);
+
+		private PlainTexts(TextEncryptor encryptor) {
+			this.encryptor = encryptor;
+		}
+
+	}
+
+	/**
+	 * The worker pool, created on first use, its idle threads end.
+	 */
+	private static final class Workers {
+
+		private static final ThreadPoolExecutor POOL;
+
+		static {
+			int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+			POOL = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<>(),
+					new NameThreadFactory("com.alibaba.cloud.nacos.decrypt"));
+			POOL.allowCoreThreadTimeOut(true);
+		}
+
+	}
+
+}
@@ -32,6 +32,7 @@ import org.springframework.boot.env.PropertiesPropertySourceLoader;
 import org.springframework.boot.env.PropertySourceLoader;
 import org.springframework.core.env.EnumerablePropertySource;
 import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.SpringFactoriesLoader;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
@@ -48,11 +49,23 @@ public final class NacosDataParserHandler {
 	 */
 	private static final String DEFAULT_EXTENSION = "properties";
 
+	/**
+	 * extension of the gzip compressed content.
+	 */
+	private static final String GZIP_EXTENSION = "gz";
+
 	private static List<PropertySourceLoader> propertySourceLoaders;
 
+	/**
+	 * decrypts the {@code {cipher}} values with the key providers of spring.factories.
+	 */
+	private final NacosConfigDecryptor decryptor;
+
 	private NacosDataParserHandler() {
 		propertySourceLoaders = SpringFactoriesLoader
 				.loadFactories(PropertySourceLoader.class, getClass().getClassLoader());
+		decryptor = new NacosConfigDecryptor(SpringFactoriesLoader.loadFactories(
+				NacosCipherKeyProvider.class, getClass().getClassLoader()));
 	}
 
 	/**
@@ -68,13 +81,31 @@ public final class NacosDataParserHandler {
 		if (!StringUtils.hasLength(configValue)) {
 			return Collections.emptyList();
 		}
+		// compressed content is marked by a '.gz' suffix or starts with the gzip header.
+		boolean compressed = isGzip(extension) || (!StringUtils.hasLength(extension)
+				&& isGzip(this.getFileExtension(configName)))
+				|| NacosCompressedResource.isCompressed(configValue);
+		if (isGzip(extension)) {
+			extension = stripGzip(extension);
+		}
 		if (!StringUtils.hasLength(extension)) {
-			extension = this.getFileExtension(configName);
+			extension = this.getFileExtension(stripGzip(configName));
 		}
 		for (PropertySourceLoader propertySourceLoader : propertySourceLoaders) {
 			if (!canLoadFileExtension(propertySourceLoader, extension)) {
 				continue;
 			}
+			if (compressed || isBinaryFormat(propertySourceLoader)) {
+				// binary formats and compressed content are Base64 encoded, decoded
+				// while the loader reads them.
+				NacosBinaryResource binaryResource = compressed
+						? new NacosCompressedResource(configValue, configName,
+								propertySourceLoader instanceof PropertiesPropertySourceLoader)
+						: new NacosBinaryResource(configValue, configName);
+				binaryResource.setFilename(getFileName(stripGzip(configName), extension));
+				return decryptor
+						.decrypt(load(propertySourceLoader, configName, binaryResource));
+			}
 			NacosByteArrayResource nacosByteArrayResource;
 			if (propertySourceLoader instanceof PropertiesPropertySourceLoader) {
 				// PropertiesPropertySourceLoader internal is to use the ISO_8859_1,
@@ -88,31 +119,65 @@ public final class NacosDataParserHandler {
 						configValue.getBytes(), configName);
 			}
 			nacosByteArrayResource.setFilename(getFileName(configName, extension));
-			List<PropertySource<?>> propertySourceList = propertySourceLoader
-					.load(configName, nacosByteArrayResource);
-			if (CollectionUtils.isEmpty(propertySourceList)) {
-				return Collections.emptyList();
-			}
-			return propertySourceList.stream().filter(Objects::nonNull)
-					.map(propertySource -> {
-						if (propertySource instanceof EnumerablePropertySource) {
-							String[] propertyNames = ((EnumerablePropertySource) propertySource)
-									.getPropertyNames();
-							if (propertyNames != null && propertyNames.length > 0) {
-								Map<String, Object> map = new LinkedHashMap<>();
-								Arrays.stream(propertyNames).forEach(name -> {
-									map.put(name, propertySource.getProperty(name));
-								});
-								return new OriginTrackedMapPropertySource(
-										propertySource.getName(), map, true);
-							}
-						}
-						return propertySource;
-					}).collect(Collectors.toList());
+			return decryptor.decrypt(
+					load(propertySourceLoader, configName, nacosByteArrayResource));
 		}
 		return Collections.emptyList();
 	}
 
+	private List<PropertySource<?>> load(PropertySourceLoader propertySourceLoader,
+			String configName, Resource resource) throws IOException {
+		List<PropertySource<?>> propertySourceList = propertySourceLoader
+				.load(configName, resource);
+		if (CollectionUtils.isEmpty(propertySourceList)) {
+			return Collections.emptyList();
+		}
+		if (propertySourceLoader instanceof AbstractPropertySourceLoader) {
+			// nacos loaders already flatten into a fresh map of plain values.
+			return propertySourceList;
+		}
+		return propertySourceList.stream().filter(Objects::nonNull)
+				.map(propertySource -> {
+					if (propertySource instanceof EnumerablePropertySource) {
+						String[] propertyNames = ((EnumerablePropertySource) propertySource)
+								.getPropertyNames();
+						if (propertyNames != null && propertyNames.length > 0) {
+							Map<String, Object> map = new LinkedHashMap<>();
+							Arrays.stream(propertyNames).forEach(name -> {
+								map.put(name, propertySource.getProperty(name));
+							});
+							return new OriginTrackedMapPropertySource(
+									propertySource.getName(), map, true);
+						}
+					}
+					return propertySource;
+				}).collect(Collectors.toList());
+	}
+
+	private static boolean isBinaryFormat(PropertySourceLoader propertySourceLoader) {
+		return propertySourceLoader instanceof AbstractPropertySourceLoader
+				&& ((AbstractPropertySourceLoader) propertySourceLoader).isBinaryFormat();
+	}
+
+	private static boolean isGzip(String extension) {
+		return extension != null
+				&& StringUtils.endsWithIgnoreCase(extension, GZIP_EXTENSION)
+				&& (extension.length() == GZIP_EXTENSION.length() || extension
+						.charAt(extension.length() - GZIP_EXTENSION.length() - 1) == '.');
+	}
+
+	/**
+	 * @param name a name or an extension
+	 * @return the name without its '.gz' suffix, e.g. 'app.yaml' for 'app.yaml.gz'
+	 */
+	private static String stripGzip(String name) {
+		if (!isGzip(name)) {
+			return name;
+		}
+		int length = name.length() - GZIP_EXTENSION.length();
+		return length == 0 ? "" : name.substring(0, length - 1);
+	}
+
 	/**
 	 * check the current extension can be processed.
 	 * @param loader the propertySourceLoader
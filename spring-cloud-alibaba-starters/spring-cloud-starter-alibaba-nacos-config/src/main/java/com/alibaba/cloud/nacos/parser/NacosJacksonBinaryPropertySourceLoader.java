@@ -0,0 +1,78 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.parser;
+
+import com.fasterxml.jackson.core.JsonFactory;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Parsing for the binary JSON formats of the jackson dataformats. The content is stored
+ * Base64 encoded in Nacos and flattened like a json content, the loader is disabled
+ * unless the factory of the format is on the classpath.
+ *
+ * @author chengrui
+ */
+public abstract class NacosJacksonBinaryPropertySourceLoader
+		extends NacosJsonPropertySourceLoader {
+
+	private final String factoryClassName;
+
+	private final String[] fileExtensions;
+
+	private volatile JsonFactory jsonFactory;
+
+	/**
+	 * Create a loader of a binary format.
+	 * @param factoryClassName the name of the {@link JsonFactory} of the format, only
+	 * loaded on first use as the dependency is optional
+	 * @param fileExtensions the file extensions of the format (excluding the '.')
+	 */
+	protected NacosJacksonBinaryPropertySourceLoader(String factoryClassName,
+			String... fileExtensions) {
+		this.factoryClassName = factoryClassName;
+		this.fileExtensions = ClassUtils.isPresent(factoryClassName,
+				getClass().getClassLoader()) ? fileExtensions : new String[0];
+	}
+
+	/**
+	 * Returns the file extensions that the loader supports (excluding the '.').
+	 * @return the file extensions
+	 */
+	@Override
+	public String[] getFileExtensions() {
+		return fileExtensions.clone();
+	}
+
+	@Override
+	protected boolean isBinaryFormat() {
+		return true;
+	}
+
+	@Override
+	protected JsonFactory getJsonFactory() {
+		JsonFactory factory = this.jsonFactory;
+		if (factory == null) {
+			factory = BeanUtils.instantiateClass(ClassUtils.resolveClassName(
+					factoryClassName, getClass().getClassLoader()), JsonFactory.class);
+			this.jsonFactory = factory;
+		}
+		return factory;
+	}
+
+}
@@ -22,13 +22,19 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 
 import org.springframework.boot.env.OriginTrackedMapPropertySource;
 import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
 
 /**
+ * Parsing for JSON, the content is flattened straight from the {@link JsonParser} token
+ * stream into the property map, without building an intermediate tree.
+ *
  * @author zkz
  */
 public class NacosJsonPropertySourceLoader extends AbstractPropertySourceLoader {
@@ -38,6 +44,11 @@ public class NacosJsonPropertySourceLoader extends AbstractPropertySourceLoader
 	 */
 	private static final String VALUE = "value";
 
+	/**
+	 * {@link JsonFactory} is thread-safe once configured, share it between loads.
+	 */
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
 	/**
 	 * Returns the file extensions that the loader supports (excluding the '.').
 	 * @return the file extensions
@@ -61,18 +72,127 @@ public class NacosJsonPropertySourceLoader extends AbstractPropertySourceLoader
 	protected List<PropertySource<?>> doLoad(String name, Resource resource)
 			throws IOException {
 		Map<String, Object> result = new LinkedHashMap<>(32);
-		ObjectMapper mapper = new ObjectMapper();
-		Map<String, Object> nacosDataMap = mapper.readValue(resource.getInputStream(),
-				LinkedHashMap.class);
-		flattenedMap(result, nacosDataMap, null);
+		try (JsonParser parser = createParser(resource)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new IOException(
+						"The json content must be an object, dataId: " + name);
+			}
+			Map<String, Object> valueKeys = parseObject(parser, new StringBuilder(),
+					result, null);
+			if (valueKeys != null) {
+				result.putAll(valueKeys);
+			}
+		}
 		return Collections.singletonList(
-				new OriginTrackedMapPropertySource(name, this.reloadMap(result), true));
+				new OriginTrackedMapPropertySource(name, result, true));
+
+	}
+
+	protected JsonParser createParser(Resource resource) throws IOException {
+		if (resource instanceof ByteArrayResource) {
+			return getJsonFactory()
+					.createParser(((ByteArrayResource) resource).getByteArray());
+		}
+		return getJsonFactory().createParser(resource.getInputStream());
+	}
+
+	protected JsonFactory getJsonFactory() {
+		return JSON_FACTORY;
+	}
+
+	/**
+	 * Flatten the fields of the current object, the parser is positioned at
+	 * {@link JsonToken#START_OBJECT}.
+	 * @param parser json parser
+	 * @param key the key of the current object, shared along the whole parse
+	 * @param result flattened properties
+	 * @param valueKeys keys ending in `value` that need to be reloaded, lazily created
+	 * @return keys ending in `value` that need to be reloaded, maybe null
+	 * @throws IOException if the content is not a valid json
+	 */
+	private Map<String, Object> parseObject(JsonParser parser, StringBuilder key,
+			Map<String, Object> result, Map<String, Object> valueKeys)
+			throws IOException {
+		int parentLength = key.length();
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String fieldName = parser.getCurrentName();
+			if (parentLength > 0 && !fieldName.startsWith("[")) {
+				key.append(DOT);
+			}
+			key.append(fieldName);
+			valueKeys = parseValue(parser, parser.nextToken(), key, result, valueKeys);
+			key.setLength(parentLength);
+		}
+		return valueKeys;
+	}
 
+	private Map<String, Object> parseArray(JsonParser parser, StringBuilder key,
+			Map<String, Object> result, Map<String, Object> valueKeys)
+			throws IOException {
+		int parentLength = key.length();
+		int index = 0;
+		JsonToken token;
+		while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+			key.append('[').append(index++).append(']');
+			valueKeys = parseValue(parser, token, key, result, valueKeys);
+			key.setLength(parentLength);
+		}
+		return valueKeys;
+	}
+
+	private Map<String, Object> parseValue(JsonParser parser, JsonToken token,
+			StringBuilder key, Map<String, Object> result, Map<String, Object> valueKeys)
+			throws IOException {
+		if (token == null) {
+			throw new IOException("Unexpected end of the json content.");
+		}
+		switch (token) {
+		case START_OBJECT:
+			return parseObject(parser, key, result, valueKeys);
+		case START_ARRAY:
+			return parseArray(parser, key, result, valueKeys);
+		default:
+			String fullKey = key.toString();
+			Object value = scalarValue(parser, token);
+			result.put(fullKey, value);
+			// Reload the key ending in `value`.
+			int idx = fullKey.lastIndexOf(DOT);
+			if (idx >= 0 && VALUE.equalsIgnoreCase(fullKey.substring(idx + 1))) {
+				if (valueKeys == null) {
+					valueKeys = new LinkedHashMap<>();
+				}
+				valueKeys.put(fullKey.substring(0, idx), value);
+			}
+			return valueKeys;
+		}
+	}
+
+	private Object scalarValue(JsonParser parser, JsonToken token) throws IOException {
+		switch (token) {
+		case VALUE_STRING:
+			return parser.getText();
+		case VALUE_NUMBER_INT:
+		case VALUE_NUMBER_FLOAT:
+			return parser.getNumberValue();
+		case VALUE_TRUE:
+			return Boolean.TRUE;
+		case VALUE_FALSE:
+			return Boolean.FALSE;
+		case VALUE_NULL:
+			return null;
+		default:
+			return parser.getEmbeddedObject();
+		}
 	}
 
 	/**
 	 * Reload the key ending in `value` if need.
+	 * @param map flattened properties
+	 * @return reloaded properties
+	 * @deprecated keys ending in `value` are reloaded while parsing, it's no longer
+	 * necessary to copy the map once more
 	 */
+	@Deprecated
 	protected Map<String, Object> reloadMap(Map<String, Object> map) {
 		if (map == null || map.isEmpty()) {
 			return null;
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.parser;
+
+/**
+ * Parsing for Smile, the binary JSON format of jackson-dataformat-smile. The content is
+ * stored Base64 encoded in Nacos and flattened like a json content, the loader is
+ * disabled unless jackson-dataformat-smile is on the classpath.
+ *
+ * @author chengrui
+ */
+public class NacosSmilePropertySourceLoader
+		extends NacosJacksonBinaryPropertySourceLoader {
+
+	public NacosSmilePropertySourceLoader() {
+		super("com.fasterxml.jackson.dataformat.smile.SmileFactory", "smile");
+	}
+
+}
@@ -17,19 +17,19 @@
 package com.alibaba.cloud.nacos.parser;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import com.alibaba.cloud.commons.lang.StringUtils;
-import org.w3c.dom.Document;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
 import org.springframework.boot.env.OriginTrackedMapPropertySource;
 import org.springframework.boot.env.PropertiesPropertySourceLoader;
@@ -42,12 +42,30 @@ import org.springframework.core.io.Resource;
  * {@link PropertiesPropertySourceLoader}, because it internally rigorously validates
  * ({@conde DOCTYPE}) THE XML in a way that makes it difficult to customize the
  * configuration; at finally, make sure it's in the first place.
+ * <p>
+ * The content is read with StAX and flattened while streaming, comments and processing
+ * instructions are ignored.
  *
  * @author zkz
  */
 public class NacosXmlPropertySourceLoader extends AbstractPropertySourceLoader
 		implements Ordered {
 
+	/**
+	 * {@link XMLInputFactory} is thread-safe once configured, share it between loads. It
+	 * is not namespace aware, like the former DOM parsing: an undeclared prefix is
+	 * accepted, and a name keeps its prefix, e.g. {@code android:label}.
+	 */
+	private static final XMLInputFactory XML_INPUT_FACTORY = createXmlInputFactory();
+
+	private static XMLInputFactory createXmlInputFactory() {
+		XMLInputFactory factory = XMLInputFactory.newFactory();
+		factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+		factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		return factory;
+	}
+
 	/**
 	 * Get the order value of this object.
 	 * <p>
@@ -95,73 +113,84 @@ public class NacosXmlPropertySourceLoader extends AbstractPropertySourceLoader
 
 	private Map<String, Object> parseXml2Map(Resource resource) throws IOException {
 		Map<String, Object> map = new LinkedHashMap<>(32);
-		try {
-			DocumentBuilder documentBuilder = DocumentBuilderFactory.newInstance()
-					.newDocumentBuilder();
-			Document document = documentBuilder.parse(resource.getInputStream());
-			if (null == document) {
-				return null;
+		try (InputStream inputStream = resource.getInputStream()) {
+			XMLStreamReader reader = XML_INPUT_FACTORY
+					.createXMLStreamReader(inputStream);
+			try {
+				parseElements(reader, map);
+			}
+			finally {
+				reader.close();
 			}
-			parseNodeList(document.getChildNodes(), map, "");
 		}
-		catch (Exception e) {
-			throw new IOException("The xml content parse error.", e.getCause());
+		catch (XMLStreamException e) {
+			throw new IOException("The xml content parse error.", e);
 		}
 		return map;
 	}
 
-	private void parseNodeList(NodeList nodeList, Map<String, Object> map,
-			String parentKey) {
-		if (nodeList == null || nodeList.getLength() < 1) {
-			return;
-		}
-		parentKey = parentKey == null ? "" : parentKey;
-		for (int i = 0; i < nodeList.getLength(); i++) {
-			Node node = nodeList.item(i);
-			String value = node.getNodeValue();
-			value = value == null ? "" : value.trim();
-			String name = node.getNodeName();
-			name = name == null ? "" : name.trim();
-
-			if (StringUtils.isEmpty(name)) {
-				continue;
+	private void parseElements(XMLStreamReader reader, Map<String, Object> map)
+			throws XMLStreamException {
+		StringBuilder key = new StringBuilder();
+		int[] parentLengths = new int[16];
+		int depth = 0;
+		while (reader.hasNext()) {
+			switch (reader.next()) {
+			case XMLStreamConstants.START_ELEMENT:
+				if (depth == parentLengths.length) {
+					int[] lengths = new int[depth << 1];
+					System.arraycopy(parentLengths, 0, lengths, 0, depth);
+					parentLengths = lengths;
+				}
+				parentLengths[depth++] = key.length();
+				if (key.length() > 0) {
+					key.append(DOT);
+				}
+				appendName(key, reader.getName());
+				parseNodeAttr(reader, map, key);
+				break;
+			case XMLStreamConstants.END_ELEMENT:
+				key.setLength(parentLengths[--depth]);
+				break;
+			case XMLStreamConstants.CHARACTERS:
+			case XMLStreamConstants.CDATA:
+				String value = reader.getText().trim();
+				if (depth > 0 && value.length() > 0) {
+					map.put(key.toString(), value);
+				}
+				break;
+			default:
+				break;
 			}
+		}
+	}
 
-			String key = StringUtils.isEmpty(parentKey) ? name : parentKey + DOT + name;
-			NamedNodeMap nodeMap = node.getAttributes();
-			parseNodeAttr(nodeMap, map, key);
-			if (node.getNodeType() == Node.ELEMENT_NODE && node.hasChildNodes()) {
-				parseNodeList(node.getChildNodes(), map, key);
-				continue;
-			}
-			if (value.length() < 1) {
+	private void parseNodeAttr(XMLStreamReader reader, Map<String, Object> map,
+			StringBuilder key) {
+		int parentLength = key.length();
+		// the namespace declarations are attributes too, e.g. xmlns:android.
+		for (int i = 0; i < reader.getAttributeCount(); i++) {
+			QName name = reader.getAttributeName(i);
+			String value = reader.getAttributeValue(i);
+			if (StringUtils.isEmpty(name.getLocalPart()) || StringUtils.isEmpty(value)) {
 				continue;
 			}
-			map.put(parentKey, value);
+			key.append(DOT);
+			appendName(key, name);
+			map.put(key.toString(), value);
+			key.setLength(parentLength);
 		}
 	}
 
-	private void parseNodeAttr(NamedNodeMap nodeMap, Map<String, Object> map,
-			String parentKey) {
-		if (null == nodeMap || nodeMap.getLength() < 1) {
-			return;
-		}
-		for (int i = 0; i < nodeMap.getLength(); i++) {
-			Node node = nodeMap.item(i);
-			if (null == node) {
-				continue;
-			}
-			if (node.getNodeType() == Node.ATTRIBUTE_NODE) {
-				if (StringUtils.isEmpty(node.getNodeName())) {
-					continue;
-				}
-				if (StringUtils.isEmpty(node.getNodeValue())) {
-					continue;
-				}
-				map.put(String.join(DOT, parentKey, node.getNodeName()),
-						node.getNodeValue());
-			}
+	/**
+	 * Append the qualified name, the local part holds the prefix already when the
+	 * factory is not namespace aware.
+	 */
+	private void appendName(StringBuilder key, QName name) {
+		if (!StringUtils.isEmpty(name.getPrefix())) {
+			key.append(name.getPrefix()).append(':');
 		}
+		key.append(name.getLocalPart());
 	}
 
 }
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.refresh;
+
+/**
+ * Callback for the raw content of a changed dataId, registered through
+ * {@link NacosContextRefresher#addChangeListener}. It is called on the Nacos notify
+ * thread before the context is refreshed, so it must not block.
+ *
+ * @author chengrui
+ */
+@FunctionalInterface
+public interface NacosConfigChangeListener {
+
+	/**
+	 * Receive the new content of a dataId.
+	 * @param dataId dataId
+	 * @param group group
+	 * @param configInfo the new content
+	 */
+	void onChange(String dataId, String group, String configInfo);
+
+}
@@ -16,28 +16,47 @@
 
 package com.alibaba.cloud.nacos.refresh;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
 import com.alibaba.cloud.nacos.NacosConfigManager;
 import com.alibaba.cloud.nacos.NacosConfigProperties;
 import com.alibaba.cloud.nacos.NacosPropertySourceRepository;
+import com.alibaba.cloud.nacos.client.NacosConfigRevalidator;
 import com.alibaba.cloud.nacos.client.NacosPropertySource;
+import com.alibaba.cloud.nacos.client.NacosShardedConfig;
+import com.alibaba.cloud.nacos.metrics.NacosConfigMetrics;
 import com.alibaba.nacos.api.config.ConfigService;
-import com.alibaba.nacos.api.config.listener.AbstractSharedListener;
 import com.alibaba.nacos.api.config.listener.Listener;
 import com.alibaba.nacos.api.exception.NacosException;
+import com.alibaba.nacos.common.executor.NameThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.cloud.context.refresh.ContextRefresher;
 import org.springframework.cloud.endpoint.event.RefreshEvent;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
 
 /**
  * On application start up, NacosContextRefresher add nacos listeners to all application
@@ -52,8 +71,8 @@ import org.springframework.context.ApplicationListener;
  * 在应用程序启动时，NacosContextRefresher 将 nacos 监听器添加到所有应用程序级别的 dataId 中，
  * 当数据发生变化时，监听器会刷新配置。
  */
-public class NacosContextRefresher
-		implements ApplicationListener<ApplicationReadyEvent>, ApplicationContextAware {
+public class NacosContextRefresher implements ApplicationListener<ApplicationReadyEvent>,
+		ApplicationContextAware, DisposableBean {
 
 	private final static Logger log = LoggerFactory
 			.getLogger(NacosContextRefresher.class);
@@ -63,6 +82,16 @@ public class NacosContextRefresher
 	 */
 	private static final AtomicLong REFRESH_COUNT = new AtomicLong(0);
 
+	/**
+	 * 实际触发的刷新数量，防抖窗口内的多次变更只触发一次刷新.
+	 */
+	private static final AtomicLong FIRED_REFRESH_COUNT = new AtomicLong(0);
+
+	/**
+	 * 被合并到待执行刷新中的变更通知数量.
+	 */
+	private static final AtomicLong COLLAPSED_REFRESH_COUNT = new AtomicLong(0);
+
 	/**
 	 * NacosConfigProperties nacos 配置属性
 	 */
@@ -94,16 +123,77 @@ public class NacosContextRefresher
 	private AtomicBoolean ready = new AtomicBoolean(false);
 
 	/**
-	 * 监听的集合
+	 * 监听的集合，key 为 dataId、group 及客户端名称
 	 */
 	private Map<String, Listener> listenerMap = new ConcurrentHashMap<>(16);
 
+	/**
+	 * Refresh a single changed dataId in place, may be null.
+	 */
+	private final NacosPropertySourceRefresher propertySourceRefresher;
+
+	/**
+	 * Changes waiting for the debounce window to close, keyed by dataId, group and
+	 * client.
+	 */
+	private final Map<String, ConfigChange> pendingChanges = new LinkedHashMap<>();
+
+	private long pendingSince;
+
+	private ScheduledFuture<?> pendingFlush;
+
+	private ScheduledExecutorService debounceExecutor;
+
+	/**
+	 * Runs the listeners off the Nacos notify thread, null to run them on it.
+	 */
+	private volatile NacosListenerExecutor listenerExecutor;
+
+	/**
+	 * Latency and outcome of the refreshes.
+	 */
+	private final NacosConfigMetrics metrics;
+
+	/**
+	 * The keys of the dataIds that are part of the environment and refresh it, see
+	 * {@link NacosPropertySourceRepository#getMapKey(String, String, String)}.
+	 */
+	private final Set<String> refreshKeys = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Raw change listeners, keyed by dataId, group and client, see
+	 * {@link NacosPropertySourceRepository#getMapKey(String, String, String)}.
+	 */
+	private final Map<String, ChangeListeners> changeListeners = new ConcurrentHashMap<>(
+			16);
+
+	/**
+	 * Receives the configs revalidated after a soft timeout.
+	 */
+	private final NacosConfigRevalidator.Listener revalidationListener = this::revalidated;
+
 	public NacosContextRefresher(NacosConfigManager nacosConfigManager,
 			NacosRefreshHistory refreshHistory) {
+		this(nacosConfigManager, refreshHistory, null);
+	}
+
+	public NacosContextRefresher(NacosConfigManager nacosConfigManager,
+			NacosRefreshHistory refreshHistory,
+			NacosPropertySourceRefresher propertySourceRefresher) {
+		this(nacosConfigManager, refreshHistory, propertySourceRefresher,
+				new NacosConfigMetrics());
+	}
+
+	public NacosContextRefresher(NacosConfigManager nacosConfigManager,
+			NacosRefreshHistory refreshHistory,
+			NacosPropertySourceRefresher propertySourceRefresher,
+			NacosConfigMetrics metrics) {
+		this.metrics = metrics;
 		this.nacosConfigProperties = nacosConfigManager.getNacosConfigProperties();
 		this.nacosRefreshHistory = refreshHistory;
 		this.configService = nacosConfigManager.getConfigService();
 		this.isRefreshEnabled = this.nacosConfigProperties.isRefreshEnabled();
+		this.propertySourceRefresher = propertySourceRefresher;
 	}
 
 	/**
@@ -114,8 +204,18 @@ public class NacosContextRefresher
 	public void onApplicationEvent(ApplicationReadyEvent event) {
 		// many Spring context
 		if (this.ready.compareAndSet(false, true)) {
+			if (nacosConfigProperties != null) {
+				this.listenerExecutor = NacosListenerExecutor
+						.create(nacosConfigProperties);
+			}
 			// 注册 nacos 监听器
-			this.registerNacosListenersForApplications();
+			if (nacosConfigProperties != null
+					&& nacosConfigProperties.isAsyncListenerRegistration()) {
+				this.registerNacosListenersAsync();
+			}
+			else {
+				this.registerNacosListenersForApplications();
+			}
 		}
 	}
 
@@ -130,6 +230,7 @@ public class NacosContextRefresher
 	 * 注册 nacos 监听器
 	 */
 	private void registerNacosListenersForApplications() {
+		int count = 0;
 		// 开启动态刷新
 		if (isRefreshEnabled()) {
 			// 获取所有 NacosPropertySource
@@ -139,10 +240,125 @@ public class NacosContextRefresher
 				if (!propertySource.isRefreshable()) {
 					continue;
 				}
-				// 获取 dataId
+				// 获取 dataId 及其所属的客户端
 				String dataId = propertySource.getDataId();
+				String client = propertySource.getClient();
+				refreshKeys.add(NacosPropertySourceRepository.getMapKey(dataId,
+						propertySource.getGroup(), client));
 				// 注册监听
-				registerNacosListener(propertySource.getGroup(), dataId);
+				if (registerNacosListener(propertySource.getGroup(), dataId, client)) {
+					count++;
+				}
+				// 分片配置同时监听每个分片
+				count += registerShardListeners(dataId, propertySource.getGroup(),
+						client);
+			}
+		}
+		for (ChangeListeners listeners : changeListeners.values()) {
+			if (registerNacosListener(listeners.group, listeners.dataId,
+					listeners.client)) {
+				count++;
+			}
+		}
+		log.info("[Nacos Config] Listening {} config(s)", count);
+		// 软超时后使用缓存加载的配置，在后台获取到新内容时按变更刷新
+		NacosConfigRevalidator.addListener(revalidationListener);
+	}
+
+	/**
+	 * Listen to the shards of a {@link NacosShardedConfig} not listened yet.
+	 * @param dataId the dataId of the manifest
+	 * @param group group
+	 * @param client the name of the client, null for the default one
+	 * @return the number of registered listeners
+	 */
+	private int registerShardListeners(String dataId, String group, String client) {
+		NacosShardedConfig shardedConfig = NacosShardedConfig.get(dataId, group,
+				client);
+		if (shardedConfig == null) {
+			return 0;
+		}
+		int count = 0;
+		for (String shardDataId : shardedConfig.getShardDataIds()) {
+			if (refreshKeys.add(
+					NacosPropertySourceRepository.getMapKey(shardDataId, group, client))
+					&& registerNacosListener(group, shardDataId, client)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Register the listeners on a background thread, the readiness state is held at
+	 * {@link ReadinessState#REFUSING_TRAFFIC} until they are all registered.
+	 */
+	private void registerNacosListenersAsync() {
+		ReadinessGate readinessGate = new ReadinessGate();
+		if (applicationContext instanceof ConfigurableApplicationContext) {
+			// added after the ApplicationAvailability bean, so it sees the readiness
+			// change after the bean did.
+			((ConfigurableApplicationContext) applicationContext)
+					.addApplicationListener(readinessGate);
+		}
+		new NameThreadFactory("com.alibaba.cloud.nacos.refresh.register")
+				.newThread(() -> {
+					try {
+						registerNacosListenersForApplications();
+					}
+					finally {
+						readinessGate.open();
+					}
+				}).start();
+	}
+
+	/**
+	 * Listen to the raw content of a dataId, whether or not it is part of the
+	 * environment. The Nacos listener is registered once the application is ready.
+	 * @param dataId dataId
+	 * @param group group
+	 * @param listener the listener
+	 */
+	public void addChangeListener(String dataId, String group,
+			NacosConfigChangeListener listener) {
+		addChangeListener(dataId, group, null, listener);
+	}
+
+	/**
+	 * Listen to the raw content of a dataId on a client, whether or not it is part of
+	 * the environment. The Nacos listener is registered once the application is ready.
+	 * @param dataId dataId
+	 * @param group group
+	 * @param client the name of the client, null for the default one, see
+	 * {@link NacosConfigManager#getConfigServices()}
+	 * @param listener the listener
+	 */
+	public void addChangeListener(String dataId, String group, String client,
+			NacosConfigChangeListener listener) {
+		String key = NacosPropertySourceRepository.getMapKey(dataId, group, client);
+		ChangeListeners listeners = changeListeners.computeIfAbsent(key,
+				k -> new ChangeListeners(dataId, group, client));
+		listeners.listeners.add(listener);
+		if (ready.get() && !listenerMap.containsKey(key)) {
+			registerNacosListener(group, dataId, client);
+		}
+	}
+
+	private void dispatchChange(String dataId, String group, String client,
+			String configInfo) {
+		ChangeListeners listeners = changeListeners
+				.get(NacosPropertySourceRepository.getMapKey(dataId, group, client));
+		if (listeners == null) {
+			return;
+		}
+		for (NacosConfigChangeListener listener : listeners.listeners) {
+			try {
+				listener.onChange(dataId, group, configInfo);
+			}
+			catch (Exception e) {
+				log.warn(String.format(
+						"change listener fail for nacos config ,dataId=[%s],group=[%s]",
+						dataId, group), e);
 			}
 		}
 	}
@@ -151,46 +367,243 @@ public class NacosContextRefresher
 	 * 注册 nacos 监听
 	 * @param groupKey group
 	 * @param dataKey dateId
+	 * @param client 加载配置的客户端名称，默认客户端为 null
 	 *
 	 * 最终刷新时发布 {@link RefreshEvent}, 由 {@link org.springframework.cloud.endpoint.event.RefreshEventListener#handle(RefreshEvent)}
 	 * 进行处理，委托给 {@link ContextRefresher#refresh()} 进行刷新
 	 */
-	private void registerNacosListener(final String groupKey, final String dataKey) {
-		// 获取 key
-		String key = NacosPropertySourceRepository.getMapKey(dataKey, groupKey);
-		// 对 key 绑定监听事件
+	private boolean registerNacosListener(final String groupKey, final String dataKey,
+			final String client) {
+		// 获取 key，同一 dataId 从不同客户端加载时各自监听
+		String key = NacosPropertySourceRepository.getMapKey(dataKey, groupKey,
+				client);
+		// 对 key 绑定监听事件，所有监听器共享同一个分发入口
 		Listener listener = listenerMap.computeIfAbsent(key,
-				lst -> new AbstractSharedListener() {
-					@Override
-					public void innerReceive(String dataId, String group,
-							String configInfo) {
-						// 递增刷新数量
-						refreshCountIncrement();
-						// 添加刷新记录，提供端点访问
-						nacosRefreshHistory.addRefreshRecord(dataId, group, configInfo);
-						// 发布一个刷新事件，用于同步 @Value 注解配置的属性值
-						applicationContext.publishEvent(
-								new RefreshEvent(this, null, "Refresh Nacos config"));
-						if (log.isDebugEnabled()) {
-							log.debug(String.format(
-									"Refresh Nacos config group=%s,dataId=%s,configInfo=%s",
-									group, dataId, configInfo));
-						}
-					}
-				});
+				lst -> new DataIdListener(dataKey, groupKey, client));
 		try {
 			// 注册监听器
-			configService.addListener(dataKey, groupKey, listener);
-			log.info("[Nacos Config] Listening config: dataId={}, group={}", dataKey,
-					groupKey);
+			// 从其他服务端、命名空间加载的配置，在其 ConfigService 上监听
+			ConfigService bound = NacosConfigManager.getBoundConfigService(dataKey,
+					groupKey, client);
+			if (bound == null && client != null) {
+				// 仅通过 addChangeListener 监听、未从该客户端加载的配置
+				bound = NacosConfigManager.getConfigServices().get(client);
+			}
+			(bound != null ? bound : configService).addListener(dataKey, groupKey,
+					listener);
+			metrics.recordListened(dataKey, groupKey, client,
+					NacosPropertySourceRepository.getNacosPropertySource(dataKey,
+							groupKey, client));
+			if (log.isDebugEnabled()) {
+				log.debug("[Nacos Config] Listening config: dataId={}, group={}",
+						dataKey, groupKey);
+			}
+			return true;
 		}
 		catch (NacosException e) {
 			log.warn(String.format(
 					"register fail for nacos listener ,dataId=[%s],group=[%s]", dataKey,
 					groupKey), e);
+			return false;
 		}
 	}
 
+	/**
+	 * The shared dispatcher of all the Nacos listeners.
+	 */
+	private void receive(String dataId, String group, String client,
+			String configInfo) {
+		metrics.recordSync(dataId, group, client, configInfo);
+		dispatchChange(dataId, group, client, configInfo);
+		if (!refreshKeys.contains(
+				NacosPropertySourceRepository.getMapKey(dataId, group, client))) {
+			return;
+		}
+		// 递增刷新数量
+		refreshCountIncrement();
+		// 刷新完成后添加刷新记录，提供端点访问
+		submitRefresh(new ConfigChange(dataId, group, client, configInfo));
+		if (log.isDebugEnabled()) {
+			log.debug(String.format(
+					"Refresh Nacos config group=%s,dataId=%s,configInfo=%s", group,
+					dataId, configInfo));
+		}
+	}
+
+	/**
+	 * A config served from cache after a soft timeout was fetched with a different
+	 * content, handle it like a pushed change.
+	 */
+	private void revalidated(NacosPropertySource fetched, String configInfo) {
+		String dataId = fetched.getDataId();
+		String group = fetched.getGroup();
+		String client = fetched.getClient();
+		Listener listener = listenerMap
+				.get(NacosPropertySourceRepository.getMapKey(dataId, group, client));
+		Executor executor = listener == null ? null : listener.getExecutor();
+		if (executor != null) {
+			executor.execute(() -> receive(dataId, group, client, configInfo));
+		}
+		else {
+			receive(dataId, group, client, configInfo);
+		}
+	}
+
+	/**
+	 * Refresh at once, or merge the change into the pending refresh when a debounce
+	 * window is configured.
+	 */
+	private void submitRefresh(ConfigChange change) {
+		long window = nacosConfigProperties == null ? 0
+				: nacosConfigProperties.getRefreshDebounceWindow();
+		if (window <= 0) {
+			refresh(Collections.singletonList(change));
+			return;
+		}
+		synchronized (pendingChanges) {
+			long now = System.currentTimeMillis();
+			if (pendingChanges.isEmpty()) {
+				pendingSince = now;
+			}
+			else {
+				COLLAPSED_REFRESH_COUNT.incrementAndGet();
+			}
+			// the latest content of a dataId wins.
+			pendingChanges.remove(change.getKey());
+			pendingChanges.put(change.getKey(), change);
+			if (pendingFlush != null) {
+				pendingFlush.cancel(false);
+			}
+			long delay = window;
+			long maxDelay = nacosConfigProperties.getRefreshMaxDelay();
+			if (maxDelay > 0) {
+				delay = Math.max(0, Math.min(window, pendingSince + maxDelay - now));
+			}
+			pendingFlush = getDebounceExecutor().schedule(this::flushPendingChanges,
+					delay, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private void flushPendingChanges() {
+		List<ConfigChange> changes;
+		synchronized (pendingChanges) {
+			changes = new ArrayList<>(pendingChanges.values());
+			pendingChanges.clear();
+			pendingFlush = null;
+		}
+		if (changes.isEmpty()) {
+			return;
+		}
+		try {
+			refresh(changes);
+		}
+		catch (Exception e) {
+			log.warn("refresh fail for nacos config changes " + changes, e);
+		}
+	}
+
+	private ScheduledExecutorService getDebounceExecutor() {
+		if (debounceExecutor == null) {
+			debounceExecutor = Executors.newSingleThreadScheduledExecutor(
+					new NameThreadFactory("com.alibaba.cloud.nacos.refresh.debounce"));
+		}
+		return debounceExecutor;
+	}
+
+	/**
+	 * One refresh covering all the changed dataIds.
+	 */
+	private void refresh(List<ConfigChange> changes) {
+		FIRED_REFRESH_COUNT.incrementAndGet();
+		long start = System.currentTimeMillis();
+		NacosConfigMetrics.Trace trace = metrics.startTrace();
+		boolean success = false;
+		try {
+			if (!targetedRefresh(changes)) {
+				// 发布一个刷新事件，用于同步 @Value 注解配置的属性值
+				applicationContext.publishEvent(
+						new RefreshEvent(this, null, "Refresh Nacos config"));
+				// a changed manifest may list new shards.
+				for (ConfigChange change : changes) {
+					registerShardListeners(change.dataId, change.group, change.client);
+				}
+			}
+			success = true;
+		}
+		finally {
+			long duration = System.currentTimeMillis() - start;
+			metrics.finishTrace(trace);
+			for (ConfigChange change : changes) {
+				metrics.recordRefresh(change.dataId, change.group, change.client,
+						success, change.receivedAt, change.parseTime, trace);
+				nacosRefreshHistory.addRefreshRecord(change.dataId, change.group,
+						change.configInfo, change.receivedAt, change.changedKeys,
+						change.parseTime, duration);
+			}
+		}
+	}
+
+	/**
+	 * Try to refresh only the changed dataIds, see {@link NacosPropertySourceRefresher}.
+	 * @return false if a {@link RefreshEvent} is still required
+	 */
+	private boolean targetedRefresh(List<ConfigChange> changes) {
+		if (propertySourceRefresher == null || nacosConfigProperties == null
+				|| !nacosConfigProperties.isTargetedRefreshEnabled()) {
+			return false;
+		}
+		synchronized (propertySourceRefresher.getLock()) {
+			Set<String> keys = new LinkedHashSet<>();
+			for (ConfigChange change : changes) {
+				Set<String> changedKeys;
+				try {
+					long start = System.currentTimeMillis();
+					changedKeys = propertySourceRefresher.apply(change.dataId,
+							change.group, change.client, change.configInfo);
+					change.parseTime = System.currentTimeMillis() - start;
+					change.changedKeys = changedKeys == null ? -1 : changedKeys.size();
+				}
+				catch (Exception e) {
+					log.warn(String.format(
+							"targeted refresh fail, fall back to refresh event ,dataId=[%s],group=[%s]",
+							change.dataId, change.group), e);
+					changedKeys = null;
+				}
+				if (changedKeys == null) {
+					// the property sources swapped so far are already in the
+					// environment, a full refresh would no longer see their keys.
+					propertySourceRefresher.publish(keys);
+					return false;
+				}
+				keys.addAll(changedKeys);
+			}
+			propertySourceRefresher.publish(keys);
+			return true;
+		}
+	}
+
+	@Override
+	public void destroy() {
+		NacosConfigRevalidator.removeListener(revalidationListener);
+		if (debounceExecutor != null) {
+			debounceExecutor.shutdownNow();
+		}
+		if (listenerExecutor != null) {
+			listenerExecutor.shutdown();
+		}
+	}
+
+	/**
+	 * @return the number of listened dataIds
+	 */
+	public int getListenerCount() {
+		return listenerMap.size();
+	}
+
+	public NacosConfigMetrics getMetrics() {
+		return metrics;
+	}
+
 	public NacosConfigProperties getNacosConfigProperties() {
 		return nacosConfigProperties;
 	}
@@ -220,4 +633,142 @@ public class NacosContextRefresher
 		REFRESH_COUNT.incrementAndGet();
 	}
 
+	/**
+	 * @return the number of refreshes fired, several notifications may be merged into
+	 * one refresh.
+	 */
+	public static long getFiredRefreshCount() {
+		return FIRED_REFRESH_COUNT.get();
+	}
+
+	/**
+	 * @return the number of notifications merged into an already pending refresh.
+	 */
+	public static long getCollapsedRefreshCount() {
+		return COLLAPSED_REFRESH_COUNT.get();
+	}
+
+	/**
+	 * A lightweight Nacos listener of one dataId, it only forwards to the shared
+	 * dispatcher.
+	 */
+	private final class DataIdListener implements Listener {
+
+		private final String dataId;
+
+		private final String group;
+
+		private final String client;
+
+		private DataIdListener(String dataId, String group, String client) {
+			this.dataId = dataId;
+			this.group = group;
+			this.client = client;
+		}
+
+		@Override
+		public Executor getExecutor() {
+			NacosListenerExecutor executor = listenerExecutor;
+			return executor == null ? null
+					: executor.forKey(NacosPropertySourceRepository.getMapKey(dataId,
+							group, client));
+		}
+
+		@Override
+		public void receiveConfigInfo(String configInfo) {
+			receive(dataId, group, client, configInfo);
+		}
+
+	}
+
+	/**
+	 * Hold the readiness state at {@link ReadinessState#REFUSING_TRAFFIC} while the
+	 * listeners are being registered.
+	 */
+	private final class ReadinessGate
+			implements ApplicationListener<AvailabilityChangeEvent<ReadinessState>> {
+
+		private boolean registering = true;
+
+		private boolean refused;
+
+		@Override
+		public synchronized void onApplicationEvent(
+				AvailabilityChangeEvent<ReadinessState> event) {
+			if (registering && event.getState() == ReadinessState.ACCEPTING_TRAFFIC) {
+				refused = true;
+				AvailabilityChangeEvent.publish(applicationContext,
+						ReadinessState.REFUSING_TRAFFIC);
+			}
+		}
+
+		private synchronized void open() {
+			registering = false;
+			if (refused) {
+				AvailabilityChangeEvent.publish(applicationContext,
+						ReadinessState.ACCEPTING_TRAFFIC);
+			}
+		}
+
+	}
+
+	/**
+	 * The raw change listeners of a dataId on a client.
+	 */
+	private static final class ChangeListeners {
+
+		private final String dataId;
+
+		private final String group;
+
+		private final String client;
+
+		private final List<NacosConfigChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+		private ChangeListeners(String dataId, String group, String client) {
+			this.dataId = dataId;
+			this.group = group;
+			this.client = client;
+		}
+
+	}
+
+	/**
+	 * A change notification waiting for its refresh.
+	 */
+	private static final class ConfigChange {
+
+		private final String dataId;
+
+		private final String group;
+
+		private final String client;
+
+		private final String configInfo;
+
+		private final long receivedAt = System.currentTimeMillis();
+
+		private int changedKeys = -1;
+
+		private long parseTime = -1;
+
+		private ConfigChange(String dataId, String group, String client,
+				String configInfo) {
+			this.dataId = dataId;
+			this.group = group;
+			this.client = client;
+			this.configInfo = configInfo;
+		}
+
+		private String getKey() {
+			return NacosPropertySourceRepository.getMapKey(dataId, group, client);
+		}
+
+		@Override
+		public String toString() {
+			return getKey();
+		}
+
+	}
+
 }
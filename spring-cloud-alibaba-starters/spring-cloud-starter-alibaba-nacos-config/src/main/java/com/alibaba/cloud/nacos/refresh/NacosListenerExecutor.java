@@ -0,0 +1,179 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.refresh;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.cloud.nacos.NacosConfigProperties;
+import com.alibaba.nacos.common.executor.NameThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the Nacos config listeners off the Nacos notify thread.
+ * <p>
+ * Each dataId gets a serial executor, so the changes of one dataId are handled in the
+ * order they were pushed while different dataIds are handled concurrently. The number
+ * of queued changes is bounded, once it is reached the Nacos notify thread waits until
+ * a queued change has been handled.
+ *
+ * @author chengrui
+ */
+final class NacosListenerExecutor {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(NacosListenerExecutor.class);
+
+	private static final String THREAD_PREFIX = "com.alibaba.cloud.nacos.refresh.listener";
+
+	private final ExecutorService delegate;
+
+	private final Semaphore permits;
+
+	private final Map<String, SerialExecutor> serialExecutors = new ConcurrentHashMap<>(
+			16);
+
+	NacosListenerExecutor(ExecutorService delegate, int capacity) {
+		this.delegate = delegate;
+		this.permits = new Semaphore(Math.max(1, capacity));
+	}
+
+	/**
+	 * Create the executor configured by the properties.
+	 * @param properties nacos config properties
+	 * @return the executor, or null if the listeners run on the Nacos notify thread
+	 */
+	static NacosListenerExecutor create(NacosConfigProperties properties) {
+		ExecutorService delegate = null;
+		if (properties.isRefreshExecutorVirtualThreads()) {
+			delegate = newVirtualThreadPerTaskExecutor();
+		}
+		if (delegate == null && properties.getRefreshExecutorThreads() > 0) {
+			int threads = properties.getRefreshExecutorThreads();
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60,
+					TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+					new NameThreadFactory(THREAD_PREFIX));
+			executor.allowCoreThreadTimeOut(true);
+			delegate = executor;
+		}
+		return delegate == null ? null
+				: new NacosListenerExecutor(delegate,
+						properties.getRefreshExecutorQueueCapacity());
+	}
+
+	/**
+	 * {@code Executors.newVirtualThreadPerTaskExecutor()}, looked up reflectively as it
+	 * needs JDK 21.
+	 */
+	private static ExecutorService newVirtualThreadPerTaskExecutor() {
+		try {
+			return (ExecutorService) Executors.class
+					.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		}
+		catch (Exception e) {
+			log.warn("[Nacos Config] virtual threads are not available on this JVM, "
+					+ "fall back to spring.cloud.nacos.config.refresh-executor-threads");
+			return null;
+		}
+	}
+
+	/**
+	 * @param key the key of a dataId and group
+	 * @return the serial executor of the key
+	 */
+	Executor forKey(String key) {
+		return serialExecutors.computeIfAbsent(key, k -> new SerialExecutor());
+	}
+
+	void shutdown() {
+		delegate.shutdownNow();
+	}
+
+	private final class SerialExecutor implements Executor {
+
+		private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+		private boolean running;
+
+		@Override
+		public void execute(Runnable task) {
+			try {
+				permits.acquire();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RejectedExecutionException(e);
+			}
+			synchronized (this) {
+				tasks.add(task);
+				if (running) {
+					return;
+				}
+				running = true;
+			}
+			try {
+				delegate.execute(this::drain);
+			}
+			catch (RejectedExecutionException e) {
+				// only after shutdown, drop what is queued.
+				int dropped;
+				synchronized (this) {
+					dropped = tasks.size();
+					tasks.clear();
+					running = false;
+				}
+				permits.release(dropped);
+				throw e;
+			}
+		}
+
+		private void drain() {
+			while (true) {
+				Runnable task;
+				synchronized (this) {
+					task = tasks.poll();
+					if (task == null) {
+						running = false;
+						return;
+					}
+				}
+				try {
+					task.run();
+				}
+				catch (Throwable e) {
+					log.error("[Nacos Config] listener fail", e);
+				}
+				finally {
+					permits.release();
+				}
+			}
+		}
+
+	}
+
+}
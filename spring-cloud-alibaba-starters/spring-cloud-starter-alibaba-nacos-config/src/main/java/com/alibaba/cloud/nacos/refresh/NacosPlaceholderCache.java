@@ -0,0 +1,266 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.refresh;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.alibaba.cloud.nacos.client.NacosPropertySource;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.RandomValuePropertySource;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.context.event.SmartApplicationListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.PropertySource;
+import org.springframework.util.SystemPropertyUtils;
+
+/**
+ * Cache of the resolved values of the Nacos properties holding placeholders.
+ * <p>
+ * A property source answering the resolved values is added first to the environment.
+ * When the property source winning a key is a
+ * {@link com.alibaba.cloud.nacos.client.NacosPropertySource} and its value holds
+ * placeholders, the value is resolved once against the whole environment and served
+ * from the cache until the next {@link EnvironmentChangeEvent}, which the Nacos refresh
+ * publishes once the changed property sources are swapped. The keys holding
+ * placeholders in a Nacos property source are collected on each of these events, any
+ * other key is left to the other property sources without looking it up.
+ * <p>
+ * The cache listens before any other listener, so the rebound beans see the new values.
+ * A property source added to the environment without an {@link EnvironmentChangeEvent}
+ * is not seen until the next one. Only the placeholders resolving against the Nacos
+ * property sources are safe to cache: a value referring to another source, e.g. a
+ * system property changed at runtime, is not resolved again until the next refresh. A
+ * value depending on {@code random.*} is never cached.
+ *
+ * @author chengrui
+ */
+public class NacosPlaceholderCache
+		implements SmartApplicationListener, EnvironmentAware, InitializingBean {
+
+	/**
+	 * The name of the property source of the resolved values.
+	 */
+	public static final String PROPERTY_SOURCE_NAME = "nacosResolvedValues";
+
+	private static final Object NONE = new Object();
+
+	/**
+	 * The prefix of the keys of {@link RandomValuePropertySource}, a value depending on
+	 * one of them is resolved on every lookup.
+	 */
+	private static final String RANDOM_PREFIX = RandomValuePropertySource.RANDOM_PROPERTY_SOURCE_NAME
+			+ ".";
+
+	/**
+	 * The keys resolved on the current thread, a placeholder referring to one of them
+	 * is left to the environment, which reports the circular reference.
+	 */
+	private static final ThreadLocal<Set<String>> RESOLVING = ThreadLocal
+			.withInitial(HashSet::new);
+
+	/**
+	 * Set when the resolutions on the current thread looked a {@code random.*} key up,
+	 * the keys being resolved are then not cached.
+	 */
+	private static final ThreadLocal<Boolean> RANDOM = new ThreadLocal<>();
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder resolutions = new LongAdder();
+
+	private volatile Set<String> keys = Collections.emptySet();
+
+	private volatile Map<String, Object> values = new ConcurrentHashMap<>(64);
+
+	private ConfigurableEnvironment environment;
+
+	@Override
+	public void setEnvironment(Environment environment) {
+		if (environment instanceof ConfigurableEnvironment) {
+			this.environment = (ConfigurableEnvironment) environment;
+		}
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		if (environment != null
+				&& !environment.getPropertySources().contains(PROPERTY_SOURCE_NAME)) {
+			this.keys = collectKeys();
+			environment.getPropertySources().addFirst(new ResolvedPropertySource(this));
+		}
+	}
+
+	@Override
+	public boolean supportsEventType(Class<? extends ApplicationEvent> eventType) {
+		return EnvironmentChangeEvent.class.isAssignableFrom(eventType);
+	}
+
+	@Override
+	public void onApplicationEvent(ApplicationEvent event) {
+		invalidate();
+	}
+
+	@Override
+	public int getOrder() {
+		return Ordered.HIGHEST_PRECEDENCE;
+	}
+
+	/**
+	 * Forget all the resolved values, a resolution in progress is not cached.
+	 */
+	public void invalidate() {
+		if (environment != null) {
+			this.keys = collectKeys();
+		}
+		this.values = new ConcurrentHashMap<>(64);
+	}
+
+	/**
+	 * @return the number of values served from the cache
+	 */
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return the number of resolved values
+	 */
+	public long getResolutionCount() {
+		return resolutions.sum();
+	}
+
+	Object getResolvedValue(String name) {
+		if (!keys.contains(name)) {
+			if (name.startsWith(RANDOM_PREFIX) && !RESOLVING.get().isEmpty()) {
+				RANDOM.set(Boolean.TRUE);
+			}
+			return null;
+		}
+		Map<String, Object> values = this.values;
+		Object value = values.get(name);
+		if (value != null) {
+			if (value == NONE) {
+				return null;
+			}
+			hits.increment();
+			return value;
+		}
+		Set<String> resolving = RESOLVING.get();
+		if (!resolving.add(name)) {
+			return null;
+		}
+		boolean random;
+		try {
+			value = resolve(name);
+		}
+		finally {
+			resolving.remove(name);
+			random = RANDOM.get() != null;
+			if (resolving.isEmpty()) {
+				RANDOM.remove();
+			}
+		}
+		if (value != null) {
+			resolutions.increment();
+		}
+		if (!random) {
+			values.put(name, value != null ? value : NONE);
+		}
+		return value;
+	}
+
+	/**
+	 * @return the keys whose value holds placeholders in a Nacos property source
+	 */
+	private Set<String> collectKeys() {
+		Set<String> keys = new HashSet<>();
+		for (PropertySource<?> propertySource : environment.getPropertySources()) {
+			NacosPropertySource nacosPropertySource = NacosPropertySourceRefresher
+					.unwrap(propertySource);
+			if (nacosPropertySource == null) {
+				continue;
+			}
+			for (String name : nacosPropertySource.getPropertyNames()) {
+				Object value = nacosPropertySource.getProperty(name);
+				if (value instanceof String && ((String) value)
+						.contains(SystemPropertyUtils.PLACEHOLDER_PREFIX)) {
+					keys.add(name);
+				}
+			}
+		}
+		return keys;
+	}
+
+	/**
+	 * @return the resolved value if the winning property source of the key is a Nacos
+	 * one and its value holds placeholders, null otherwise
+	 */
+	private Object resolve(String name) {
+		for (PropertySource<?> propertySource : environment.getPropertySources()) {
+			if (propertySource instanceof ResolvedPropertySource
+					|| ConfigurationPropertySources
+							.isAttachedConfigurationPropertySource(propertySource)) {
+				continue;
+			}
+			Object value = propertySource.getProperty(name);
+			if (value == null) {
+				continue;
+			}
+			if (NacosPropertySourceRefresher.unwrap(propertySource) == null
+					|| !(value instanceof String) || !((String) value)
+							.contains(SystemPropertyUtils.PLACEHOLDER_PREFIX)) {
+				return null;
+			}
+			try {
+				String resolved = environment.resolvePlaceholders((String) value);
+				// unresolvable placeholders are left to the environment to report.
+				return resolved.contains(SystemPropertyUtils.PLACEHOLDER_PREFIX) ? null
+						: resolved;
+			}
+			catch (IllegalArgumentException e) {
+				return null;
+			}
+		}
+		return null;
+	}
+
+	private static final class ResolvedPropertySource
+			extends PropertySource<NacosPlaceholderCache> {
+
+		private ResolvedPropertySource(NacosPlaceholderCache cache) {
+			super(PROPERTY_SOURCE_NAME, cache);
+		}
+
+		@Override
+		public Object getProperty(String name) {
+			return getSource().getResolvedValue(name);
+		}
+
+	}
+
+}
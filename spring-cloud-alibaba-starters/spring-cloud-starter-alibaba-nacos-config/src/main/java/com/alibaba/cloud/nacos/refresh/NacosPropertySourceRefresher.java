@@ -0,0 +1,362 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.refresh;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import com.alibaba.cloud.nacos.NacosPropertySourceRepository;
+import com.alibaba.cloud.nacos.client.NacosPropertySource;
+import com.alibaba.cloud.nacos.client.NacosShardedConfig;
+import com.alibaba.cloud.nacos.client.NacosSharedSources;
+import com.alibaba.cloud.nacos.metrics.NacosConfigMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.boot.cloud.CloudPlatform;
+import org.springframework.cloud.bootstrap.config.BootstrapPropertySource;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.cloud.context.refresh.ContextRefresher;
+import org.springframework.cloud.context.scope.refresh.RefreshScope;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.Profiles;
+import org.springframework.core.env.PropertySource;
+import org.springframework.util.StringUtils;
+
+/**
+ * Refresh a single Nacos dataId in place: the pushed content is parsed, the matching
+ * {@link NacosPropertySource} is swapped in the environment, and an
+ * {@link EnvironmentChangeEvent} holding only the changed keys is published.
+ * <p>
+ * Unlike a {@link org.springframework.cloud.endpoint.event.RefreshEvent}, the property
+ * source locators are not run again, so no other dataId is fetched from the server. A
+ * changed shard of a {@link NacosShardedConfig} is parsed on its own and merged into the
+ * property source of its manifest. The documents of a dataId imported by
+ * {@code spring.config.import} are swapped as a group, each in place.
+ * <p>
+ * Once the keys are published, the whole {@link RefreshScope} is still refreshed, the
+ * keys its beans read cannot be told, so they are recreated on next access. Its cost is
+ * reported by the {@code refresh-scope} stage of
+ * {@link com.alibaba.cloud.nacos.metrics.NacosConfigMetrics}.
+ *
+ * @author chengrui
+ */
+public class NacosPropertySourceRefresher implements ApplicationContextAware {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(NacosPropertySourceRefresher.class);
+
+	private static final String ON_PROFILE = "spring.config.activate.on-profile";
+
+	private static final String ON_CLOUD_PLATFORM = "spring.config.activate.on-cloud-platform";
+
+	private ApplicationContext applicationContext;
+
+	@Override
+	public void setApplicationContext(ApplicationContext applicationContext) {
+		this.applicationContext = applicationContext;
+	}
+
+	/**
+	 * Apply the content pushed by Nacos for a dataId.
+	 * @param dataId dataId
+	 * @param group group
+	 * @param configInfo the new content
+	 * @return the changed keys, or {@code null} if the dataId is not present in the
+	 * environment and a full refresh is required
+	 * @throws IOException thrown if there is a problem parsing config.
+	 */
+	public Set<String> refresh(String dataId, String group, String configInfo)
+			throws IOException {
+		return refresh(dataId, group, null, configInfo);
+	}
+
+	/**
+	 * Apply the content pushed by Nacos for a dataId loaded from a client.
+	 * @param dataId dataId
+	 * @param group group
+	 * @param client the name of the client, null for the default one
+	 * @param configInfo the new content
+	 * @return the changed keys, or {@code null} if the dataId is not present in the
+	 * environment and a full refresh is required
+	 * @throws IOException thrown if there is a problem parsing config.
+	 */
+	public Set<String> refresh(String dataId, String group, String client,
+			String configInfo) throws IOException {
+		synchronized (getLock()) {
+			Set<String> keys = apply(dataId, group, client, configInfo);
+			if (keys != null) {
+				publish(keys);
+			}
+			return keys;
+		}
+	}
+
+	/**
+	 * Swap the property source of a dataId without publishing anything, so that several
+	 * dataIds can be published at once, see {@link #publish(Set)}.
+	 * @param dataId dataId
+	 * @param group group
+	 * @param client the name of the client, null for the default one
+	 * @param configInfo the new content
+	 * @return the changed keys, or {@code null} if the dataId is not present in the
+	 * environment
+	 * @throws IOException thrown if there is a problem parsing config.
+	 */
+	Set<String> apply(String dataId, String group, String client, String configInfo)
+			throws IOException {
+		if (!(applicationContext
+				.getEnvironment() instanceof ConfigurableEnvironment)) {
+			return null;
+		}
+		if (NacosShardedConfig.get(dataId, group, client) != null) {
+			// the shard list changed, the shards have to be fetched again.
+			return null;
+		}
+		MutablePropertySources propertySources = ((ConfigurableEnvironment) applicationContext
+				.getEnvironment()).getPropertySources();
+		NacosShardedConfig shardedConfig = NacosShardedConfig.getByShard(dataId, group,
+				client);
+		if (shardedConfig != null) {
+			return applyShard(propertySources, shardedConfig, dataId, configInfo);
+		}
+		PropertySource<?> current = findPropertySource(propertySources, dataId, group,
+				client);
+		if (current == null) {
+			return null;
+		}
+		NacosPropertySource previous = unwrap(current);
+		if (previous.getDocument() >= 0) {
+			return applyDocuments((ConfigurableEnvironment) applicationContext
+					.getEnvironment(), previous, configInfo);
+		}
+		NacosPropertySource replacement = NacosSharedSources.create(dataId, group,
+				configInfo, previous.getFileExtension(), previous.isRefreshable(),
+				client);
+
+		Set<String> keys = changedKeys(previous.getSource(), replacement.getSource());
+		replace(propertySources, current, replacement);
+		if (log.isDebugEnabled()) {
+			log.debug("Refresh Nacos config group={},dataId={},keys={}", group, dataId,
+					keys);
+		}
+		return keys;
+	}
+
+	/**
+	 * Parse the changed shard only, and swap the merged property source of its
+	 * manifest. The changed keys are the ones of the shard, compared with the shard
+	 * merged into the environment of this context, the registered sharded config is
+	 * shared by all the contexts and may already hold the new content.
+	 */
+	private Set<String> applyShard(MutablePropertySources propertySources,
+			NacosShardedConfig shardedConfig, String dataId, String configInfo)
+			throws IOException {
+		PropertySource<?> current = findPropertySource(propertySources,
+				shardedConfig.getDataId(), shardedConfig.getGroup(),
+				shardedConfig.getClient());
+		if (current == null) {
+			return null;
+		}
+		NacosPropertySource merged = unwrap(current);
+		NacosPropertySource previous = NacosShardedConfig.getShard(merged, dataId);
+		if (previous == null) {
+			return null;
+		}
+		NacosPropertySource shard = shardedConfig.update(dataId, configInfo);
+
+		Set<String> keys = changedKeys(previous.getSource(), shard.getSource());
+		replace(propertySources, current, shardedConfig.withShard(merged, shard));
+		if (log.isDebugEnabled()) {
+			log.debug("Refresh Nacos config shard group={},dataId={},keys={}",
+					shardedConfig.getGroup(), dataId, keys);
+		}
+		return keys;
+	}
+
+	/**
+	 * Parse the documents of the content and swap each active one in place. The
+	 * changed keys are the ones of every document. A document activated or deactivated
+	 * by the change, or by a profile change, requires a full refresh.
+	 */
+	private Set<String> applyDocuments(ConfigurableEnvironment environment,
+			NacosPropertySource previous, String configInfo) throws IOException {
+		MutablePropertySources propertySources = environment.getPropertySources();
+		Map<String, PropertySource<?>> currents = new LinkedHashMap<>();
+		for (PropertySource<?> propertySource : propertySources) {
+			NacosPropertySource nacosPropertySource = unwrap(propertySource);
+			if (nacosPropertySource != null && matches(nacosPropertySource,
+					previous.getDataId(), previous.getGroup(), previous.getClient())) {
+				currents.put(nacosPropertySource.getName(), propertySource);
+			}
+		}
+		List<NacosPropertySource> documents = NacosSharedSources.createDocuments(
+				previous.getDataId(), previous.getGroup(), configInfo,
+				previous.getFileExtension(), previous.isRefreshable(),
+				previous.getClient());
+		Map<String, NacosPropertySource> active = new LinkedHashMap<>();
+		for (NacosPropertySource document : documents) {
+			if (isActive(document, environment)) {
+				active.put(document.getName(), document);
+			}
+		}
+		if (!active.keySet().equals(currents.keySet())) {
+			return null;
+		}
+
+		Set<String> keys = new LinkedHashSet<>();
+		for (NacosPropertySource document : active.values()) {
+			keys.addAll(changedKeys(unwrap(currents.get(document.getName())).getSource(),
+					document.getSource()));
+		}
+		for (NacosPropertySource document : active.values()) {
+			swap(propertySources, currents.get(document.getName()), document);
+		}
+		NacosPropertySourceRepository
+				.updateNacosPropertySource(NacosSharedSources.merge(documents));
+		if (log.isDebugEnabled()) {
+			log.debug("Refresh Nacos config documents group={},dataId={},keys={}",
+					previous.getGroup(), previous.getDataId(), keys);
+		}
+		return keys;
+	}
+
+	/**
+	 * Evaluate the {@code spring.config.activate.*} properties of a document, like the
+	 * config data environment did when loading it.
+	 */
+	private static boolean isActive(NacosPropertySource document,
+			ConfigurableEnvironment environment) {
+		Object onProfile = document.getProperty(ON_PROFILE);
+		if (onProfile != null) {
+			String[] profiles = StringUtils.tokenizeToStringArray(onProfile.toString(),
+					",");
+			if (profiles.length > 0
+					&& !environment.acceptsProfiles(Profiles.of(profiles))) {
+				return false;
+			}
+		}
+		Object onCloudPlatform = document.getProperty(ON_CLOUD_PLATFORM);
+		if (onCloudPlatform != null) {
+			CloudPlatform cloudPlatform = CloudPlatform.getActive(environment);
+			return cloudPlatform != null && cloudPlatform.name()
+					.equalsIgnoreCase(onCloudPlatform.toString().trim());
+		}
+		return true;
+	}
+
+	private static void replace(MutablePropertySources propertySources,
+			PropertySource<?> current, NacosPropertySource replacement) {
+		swap(propertySources, current, replacement);
+		NacosPropertySourceRepository.updateNacosPropertySource(replacement);
+	}
+
+	private static void swap(MutablePropertySources propertySources,
+			PropertySource<?> current, NacosPropertySource replacement) {
+		propertySources.replace(current.getName(),
+				current instanceof BootstrapPropertySource
+						? new BootstrapPropertySource<>(replacement) : replacement);
+	}
+
+	/**
+	 * Publish the keys changed by {@link #apply(String, String, String, String)}.
+	 * @param keys the changed keys
+	 */
+	void publish(Set<String> keys) {
+		if (keys.isEmpty()) {
+			return;
+		}
+		long start = System.nanoTime();
+		applicationContext
+				.publishEvent(new EnvironmentChangeEvent(applicationContext, keys));
+		// kept only if no SmartConfigurationPropertiesRebinder timed the rebind itself.
+		NacosConfigMetrics.recordRebind(start);
+		RefreshScope refreshScope = applicationContext.getBeanProvider(RefreshScope.class)
+				.getIfAvailable();
+		if (refreshScope != null) {
+			refreshScope.refreshAll();
+		}
+	}
+
+	/**
+	 * Serialize with {@link ContextRefresher#refresh()}, which is synchronized on the
+	 * refresher itself.
+	 */
+	Object getLock() {
+		ContextRefresher contextRefresher = applicationContext
+				.getBeanProvider(ContextRefresher.class).getIfAvailable();
+		return contextRefresher != null ? contextRefresher : this;
+	}
+
+	private static PropertySource<?> findPropertySource(
+			MutablePropertySources propertySources, String dataId, String group,
+			String client) {
+		for (PropertySource<?> propertySource : propertySources) {
+			NacosPropertySource nacosPropertySource = unwrap(propertySource);
+			if (nacosPropertySource != null
+					&& matches(nacosPropertySource, dataId, group, client)) {
+				return propertySource;
+			}
+		}
+		return null;
+	}
+
+	private static boolean matches(NacosPropertySource nacosPropertySource,
+			String dataId, String group, String client) {
+		return Objects.equals(dataId, nacosPropertySource.getDataId())
+				&& Objects.equals(group, nacosPropertySource.getGroup())
+				&& Objects.equals(client, nacosPropertySource.getClient());
+	}
+
+	static NacosPropertySource unwrap(PropertySource<?> propertySource) {
+		if (propertySource instanceof BootstrapPropertySource) {
+			propertySource = ((BootstrapPropertySource<?>) propertySource).getDelegate();
+		}
+		return propertySource instanceof NacosPropertySource
+				? (NacosPropertySource) propertySource : null;
+	}
+
+	static Set<String> changedKeys(Map<String, Object> before,
+			Map<String, Object> after) {
+		if (before.isEmpty() && after.isEmpty()) {
+			return Collections.emptySet();
+		}
+		Set<String> keys = new LinkedHashSet<>();
+		for (Map.Entry<String, Object> entry : after.entrySet()) {
+			if (!before.containsKey(entry.getKey())
+					|| !Objects.equals(entry.getValue(), before.get(entry.getKey()))) {
+				keys.add(entry.getKey());
+			}
+		}
+		for (String key : before.keySet()) {
+			if (!after.containsKey(key)) {
+				keys.add(key);
+			}
+		}
+		return keys;
+	}
+
+}
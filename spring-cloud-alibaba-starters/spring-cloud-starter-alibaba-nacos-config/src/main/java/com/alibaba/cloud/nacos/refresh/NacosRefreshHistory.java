@@ -16,7 +16,10 @@
 
 package com.alibaba.cloud.nacos.refresh;
 
-import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -25,45 +28,45 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import com.alibaba.cloud.commons.lang.StringUtils;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 /**
  * nacos 配置刷新历史记录
+ * <p>
+ * Records are kept in a lock-free ring buffer: writers claim a slot with a sequence
+ * number, readers take a snapshot of the latest records without blocking them.
  */
 public class NacosRefreshHistory {
 
-	private final static Logger log = LoggerFactory.getLogger(NacosRefreshHistory.class);
-
 	/**
 	 * 历史记录最大数量，默认 20
 	 */
 	private static final int MAX_SIZE = 20;
 
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	/**
+	 * 记录环形缓冲区
+	 */
+	private final AtomicReferenceArray<Record> records = new AtomicReferenceArray<>(
+			MAX_SIZE);
+
 	/**
-	 * 记录列表
+	 * 下一条记录的序号
 	 */
-	private final LinkedList<Record> records = new LinkedList<>();
+	private final AtomicLong sequence = new AtomicLong();
 
 	private final ThreadLocal<DateFormat> DATE_FORMAT = ThreadLocal
 			.withInitial(() -> new SimpleDateFormat("yyyy-MM-dd HH:mm:ss"));
 
 	/**
-	 * 加密方式
+	 * 每个线程独立的 md5 计算器
 	 */
-	private MessageDigest md;
-
-	public NacosRefreshHistory() {
-		try {
-			// md5
-			md = MessageDigest.getInstance("MD5");
-		}
-		catch (NoSuchAlgorithmException e) {
-			log.error("failed to initialize MessageDigest : ", e);
-		}
-	}
+	private final ThreadLocal<Md5Digester> digester = ThreadLocal
+			.withInitial(Md5Digester::new);
 
 	/**
 	 * recommend to use
@@ -73,11 +76,8 @@ public class NacosRefreshHistory {
 	 */
 	@Deprecated
 	public void add(String dataId, String md5) {
-		records.addFirst(
-				new Record(DATE_FORMAT.get().format(new Date()), dataId, "", md5, null));
-		if (records.size() > MAX_SIZE) {
-			records.removeLast();
-		}
+		addRecord(new Record(DATE_FORMAT.get().format(new Date()), dataId, "", md5,
+				null));
 	}
 
 	/**
@@ -87,31 +87,111 @@ public class NacosRefreshHistory {
 	 * @param data data
 	 */
 	public void addRefreshRecord(String dataId, String group, String data) {
-		records.addFirst(new Record(DATE_FORMAT.get().format(new Date()), dataId, group,
+		addRecord(new Record(DATE_FORMAT.get().format(new Date()), dataId, group,
 				md5(data), null));
-		if (records.size() > MAX_SIZE) {
-			records.removeLast();
-		}
 	}
 
+	/**
+	 * Add a refresh record carrying the outcome of the refresh.
+	 * @param dataId dataId
+	 * @param group group
+	 * @param data data
+	 * @param timestamp the time the change was received
+	 * @param changedKeys the number of changed keys, -1 if unknown
+	 * @param parseTime the time in milliseconds spent parsing and diffing the content,
+	 * -1 if unknown
+	 * @param refreshDuration the time in milliseconds spent on the refresh
+	 */
+	public void addRefreshRecord(String dataId, String group, String data,
+			long timestamp, int changedKeys, long parseTime, long refreshDuration) {
+		addRecord(new Record(DATE_FORMAT.get().format(new Date(timestamp)), dataId,
+				group, md5(data), changedKeys, parseTime, refreshDuration));
+	}
+
+	private void addRecord(Record record) {
+		long seq = sequence.getAndIncrement();
+		record.sequence = seq;
+		records.set((int) (seq % MAX_SIZE), record);
+	}
+
+	/**
+	 * @return a snapshot of the latest records, the newest first.
+	 */
 	public LinkedList<Record> getRecords() {
-		return records;
+		LinkedList<Record> snapshot = new LinkedList<>();
+		long end = sequence.get();
+		for (long seq = end - 1; seq >= 0 && seq >= end - MAX_SIZE; seq--) {
+			Record record = records.get((int) (seq % MAX_SIZE));
+			// skip a slot that is overwritten by a newer record, or not written yet.
+			if (record != null && record.sequence == seq) {
+				snapshot.add(record);
+			}
+		}
+		return snapshot;
 	}
 
 	private String md5(String data) {
 		if (StringUtils.isEmpty(data)) {
 			return null;
 		}
-		if (null == md) {
+		return digester.get().digest(data);
+	}
+
+	/**
+	 * Compute the md5 of a string by encoding it chunk by chunk into a reusable buffer,
+	 * instead of copying the whole content into a byte array.
+	 */
+	private static final class Md5Digester {
+
+		private final MessageDigest md;
+
+		private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+
+		private final ByteBuffer buffer = ByteBuffer.allocate(8192);
+
+		private Md5Digester() {
+			MessageDigest messageDigest;
 			try {
-				md = MessageDigest.getInstance("MD5");
+				messageDigest = MessageDigest.getInstance("MD5");
+			}
+			catch (NoSuchAlgorithmException e) {
+				messageDigest = null;
 			}
-			catch (NoSuchAlgorithmException ignored) {
+			this.md = messageDigest;
+		}
+
+		private String digest(String data) {
+			if (md == null) {
 				return "unable to get md5";
 			}
+			md.reset();
+			encoder.reset();
+			CharBuffer chars = CharBuffer.wrap(data);
+			CoderResult result;
+			do {
+				result = encoder.encode(chars, buffer, true);
+				update();
+			}
+			while (result.isOverflow());
+			while (encoder.flush(buffer).isOverflow()) {
+				update();
+			}
+			update();
+			byte[] bytes = md.digest();
+			char[] hex = new char[bytes.length << 1];
+			for (int i = 0; i < bytes.length; i++) {
+				hex[i << 1] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+				hex[(i << 1) + 1] = HEX_DIGITS[bytes[i] & 0xF];
+			}
+			return new String(hex);
+		}
+
+		private void update() {
+			buffer.flip();
+			md.update(buffer);
+			buffer.clear();
 		}
-		return new BigInteger(1, md.digest(data.getBytes(StandardCharsets.UTF_8)))
-				.toString(16);
+
 	}
 
 	/**
@@ -138,12 +218,40 @@ public class NacosRefreshHistory {
 		 */
 		private final String md5;
 
+		/**
+		 * 变更的配置项数量，-1 表示未知.
+		 */
+		private final int changedKeys;
+
+		/**
+		 * 解析与比对耗时（毫秒），-1 表示未知.
+		 */
+		private final long parseTime;
+
+		/**
+		 * 刷新耗时（毫秒），-1 表示未知.
+		 */
+		private final long refreshDuration;
+
+		/**
+		 * 环形缓冲区中的序号.
+		 */
+		private volatile long sequence = -1;
+
 		Record(String timestamp, String dataId, String group, String md5,
 				Map<String, Object> last) {
+			this(timestamp, dataId, group, md5, -1, -1, -1);
+		}
+
+		Record(String timestamp, String dataId, String group, String md5,
+				int changedKeys, long parseTime, long refreshDuration) {
 			this.timestamp = timestamp;
 			this.dataId = dataId;
 			this.group = group;
 			this.md5 = md5;
+			this.changedKeys = changedKeys;
+			this.parseTime = parseTime;
+			this.refreshDuration = refreshDuration;
 		}
 
 		public String getTimestamp() {
@@ -162,6 +270,18 @@ public class NacosRefreshHistory {
 			return md5;
 		}
 
+		public int getChangedKeys() {
+			return changedKeys;
+		}
+
+		public long getParseTime() {
+			return parseTime;
+		}
+
+		public long getRefreshDuration() {
+			return refreshDuration;
+		}
+
 	}
 
 }
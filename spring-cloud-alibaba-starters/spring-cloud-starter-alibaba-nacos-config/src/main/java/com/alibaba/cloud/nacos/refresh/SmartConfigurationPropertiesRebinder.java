@@ -17,20 +17,22 @@
 package com.alibaba.cloud.nacos.refresh;
 
 import java.lang.reflect.Field;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 
+import com.alibaba.cloud.nacos.metrics.NacosConfigMetrics;
+
 import org.springframework.beans.BeansException;
 import org.springframework.boot.context.properties.ConfigurationPropertiesBean;
+import org.springframework.boot.context.properties.source.ConfigurationPropertyName;
+import org.springframework.boot.context.properties.source.ConfigurationPropertyName.Form;
 import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
 import org.springframework.cloud.context.properties.ConfigurationPropertiesBeans;
 import org.springframework.cloud.context.properties.ConfigurationPropertiesRebinder;
 import org.springframework.context.ApplicationContext;
-import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.util.ReflectionUtils;
 
 import static com.alibaba.cloud.nacos.refresh.RefreshBehavior.ALL_BEANS;
@@ -43,6 +45,10 @@ import static com.alibaba.cloud.nacos.refresh.RefreshBehavior.ALL_BEANS;
  * SmartConfigurationPropertiesRebinder can refresh specific
  * {@link ConfigurationPropertiesBean} base on the change keys.
  * <p>
+ * The bean prefixes are kept in a trie of uniform (relaxed) name elements, so a change
+ * key only walks its own elements to find the beans it binds to. Beans registered after
+ * startup are indexed on the next change event.
+ * <p>
  * <strong> NOTE: We still use Spring's default behavior (full refresh) as default
  * behavior, This feature can be considered an advanced feature, it may not be as stable
  * as the default behavior. </strong>
@@ -53,26 +59,35 @@ import static com.alibaba.cloud.nacos.refresh.RefreshBehavior.ALL_BEANS;
 public class SmartConfigurationPropertiesRebinder
 		extends ConfigurationPropertiesRebinder {
 
+	private final ConfigurationPropertiesBeans beans;
+
+	/**
+	 * The live bean map of {@link ConfigurationPropertiesBeans}, null if it can't be
+	 * accessed.
+	 */
 	private Map<String, ConfigurationPropertiesBean> beanMap;
 
+	private final PrefixNode prefixTrie = new PrefixNode();
+
+	private final Set<String> indexedBeanNames = new HashSet<>();
+
 	private ApplicationContext applicationContext;
 
 	private RefreshBehavior refreshBehavior;
 
 	public SmartConfigurationPropertiesRebinder(ConfigurationPropertiesBeans beans) {
 		super(beans);
+		this.beans = beans;
 		fillBeanMap(beans);
 	}
 
 	@SuppressWarnings("unchecked")
 	private void fillBeanMap(ConfigurationPropertiesBeans beans) {
-		this.beanMap = new HashMap<>();
 		Field field = ReflectionUtils.findField(beans.getClass(), "beans");
 		if (field != null) {
 			field.setAccessible(true);
-			this.beanMap.putAll((Map<String, ConfigurationPropertiesBean>) Optional
-					.ofNullable(ReflectionUtils.getField(field, beans))
-					.orElse(Collections.emptyMap()));
+			this.beanMap = (Map<String, ConfigurationPropertiesBean>) ReflectionUtils
+					.getField(field, beans);
 		}
 	}
 
@@ -91,6 +106,7 @@ public class SmartConfigurationPropertiesRebinder
 		if (this.applicationContext.equals(event.getSource())
 				// Backwards compatible
 				|| event.getKeys().equals(event.getSource())) {
+			long start = System.nanoTime();
 			switch (refreshBehavior) {
 			case SPECIFIC_BEAN:
 				rebindSpecificBean(event);
@@ -99,18 +115,73 @@ public class SmartConfigurationPropertiesRebinder
 				rebind();
 				break;
 			}
+			NacosConfigMetrics.recordRebind(start);
 		}
 	}
 
 	private void rebindSpecificBean(EnvironmentChangeEvent event) {
-		Set<String> refreshedSet = new HashSet<>();
-		beanMap.forEach((name, bean) -> event.getKeys().forEach(changeKey -> {
-			String prefix = AnnotationUtils.getValue(bean.getAnnotation()).toString();
-			// prevent multiple refresh one ConfigurationPropertiesBean.
-			if (changeKey.startsWith(prefix) && refreshedSet.add(name)) {
-				rebind(name);
+		if (beanMap == null) {
+			rebind();
+			return;
+		}
+		for (String name : getAffectedBeanNames(event.getKeys())) {
+			rebind(name);
+		}
+	}
+
+	/**
+	 * Find the beans whose prefix is equal to, or a parent of, one of the keys.
+	 * @param keys the changed keys
+	 * @return the bean names, each name only once
+	 */
+	synchronized Set<String> getAffectedBeanNames(Set<String> keys) {
+		indexNewBeans();
+		Set<String> affected = new LinkedHashSet<>();
+		for (String key : keys) {
+			ConfigurationPropertyName name = ConfigurationPropertyName.adapt(key, '.');
+			PrefixNode node = prefixTrie;
+			affected.addAll(node.beanNames);
+			for (int i = 0; i < name.getNumberOfElements() && node != null; i++) {
+				node = node.children.get(name.getElement(i, Form.UNIFORM));
+				if (node != null) {
+					affected.addAll(node.beanNames);
+				}
 			}
-		}));
+		}
+		return affected;
+	}
+
+	private void indexNewBeans() {
+		if (beanMap.size() == indexedBeanNames.size()) {
+			return;
+		}
+		for (String beanName : beans.getBeanNames()) {
+			ConfigurationPropertiesBean bean = beanMap.get(beanName);
+			if (bean != null && indexedBeanNames.add(beanName)) {
+				index(beanName, bean.getAnnotation().prefix());
+			}
+		}
+	}
+
+	private void index(String beanName, String prefix) {
+		ConfigurationPropertyName name = ConfigurationPropertyName.adapt(prefix, '.');
+		PrefixNode node = prefixTrie;
+		for (int i = 0; i < name.getNumberOfElements(); i++) {
+			node = node.children.computeIfAbsent(name.getElement(i, Form.UNIFORM),
+					element -> new PrefixNode());
+		}
+		node.beanNames.add(beanName);
+	}
+
+	/**
+	 * A node of the prefix trie, keyed by uniform name elements.
+	 */
+	private static final class PrefixNode {
+
+		private final Map<String, PrefixNode> children = new HashMap<>(4);
+
+		private final Set<String> beanNames = new LinkedHashSet<>(2);
+
 	}
 
 }
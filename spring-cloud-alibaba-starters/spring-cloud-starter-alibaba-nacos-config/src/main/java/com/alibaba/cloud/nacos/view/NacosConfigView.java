@@ -0,0 +1,136 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.view;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A typed view of a Nacos dataId, or of a key prefix inside it, created by
+ * {@link NacosConfigViewManager}.
+ * <p>
+ * The bound object is swapped atomically when the dataId changes, {@link #get()} is a
+ * plain volatile read without any proxy or lookup. The bound object is meant to be
+ * treated as immutable. Change listeners are called on a dedicated executor, never on
+ * the Nacos notify thread.
+ *
+ * @param <T> the bound type
+ * @author chengrui
+ */
+public final class NacosConfigView<T> {
+
+	private static final Logger log = LoggerFactory.getLogger(NacosConfigView.class);
+
+	private final String dataId;
+
+	private final String group;
+
+	private final String prefix;
+
+	private final Class<T> type;
+
+	private final Executor executor;
+
+	private final List<ChangeListener<? super T>> listeners = new CopyOnWriteArrayList<>();
+
+	private volatile T value;
+
+	NacosConfigView(String dataId, String group, String prefix, Class<T> type,
+			Executor executor) {
+		this.dataId = dataId;
+		this.group = group;
+		this.prefix = prefix;
+		this.type = type;
+		this.executor = executor;
+	}
+
+	/**
+	 * @return the current bound object, may be null if nothing could be bound.
+	 */
+	public T get() {
+		return value;
+	}
+
+	/**
+	 * Add a listener called after the bound object has been replaced.
+	 * @param listener the listener
+	 * @return this view
+	 */
+	public NacosConfigView<T> addChangeListener(ChangeListener<? super T> listener) {
+		listeners.add(listener);
+		return this;
+	}
+
+	public String getDataId() {
+		return dataId;
+	}
+
+	public String getGroup() {
+		return group;
+	}
+
+	public String getPrefix() {
+		return prefix;
+	}
+
+	public Class<T> getType() {
+		return type;
+	}
+
+	void update(T newValue) {
+		T previous = this.value;
+		if (Objects.equals(previous, newValue)) {
+			return;
+		}
+		this.value = newValue;
+		for (ChangeListener<? super T> listener : listeners) {
+			executor.execute(() -> {
+				try {
+					listener.onChange(previous, newValue);
+				}
+				catch (Exception e) {
+					log.warn(String.format(
+							"change listener fail for nacos config view ,dataId=[%s],group=[%s]",
+							dataId, group), e);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Listener of a {@link NacosConfigView}.
+	 *
+	 * @param <T> the bound type
+	 */
+	@FunctionalInterface
+	public interface ChangeListener<T> {
+
+		/**
+		 * Called after the bound object has been replaced.
+		 * @param previous the previous object, may be null
+		 * @param current the current object, may be null
+		 */
+		void onChange(T previous, T current);
+
+	}
+
+}
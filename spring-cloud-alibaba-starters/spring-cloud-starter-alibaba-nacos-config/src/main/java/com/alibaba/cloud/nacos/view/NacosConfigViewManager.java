@@ -0,0 +1,245 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.view;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.alibaba.cloud.commons.lang.StringUtils;
+import com.alibaba.cloud.nacos.NacosConfigManager;
+import com.alibaba.cloud.nacos.NacosConfigProperties;
+import com.alibaba.cloud.nacos.NacosPropertySourceRepository;
+import com.alibaba.cloud.nacos.client.NacosPropertySource;
+import com.alibaba.cloud.nacos.client.NacosSharedSources;
+import com.alibaba.cloud.nacos.refresh.NacosConfigChangeListener;
+import com.alibaba.cloud.nacos.refresh.NacosContextRefresher;
+import com.alibaba.nacos.api.config.ConfigService;
+import com.alibaba.nacos.common.executor.NameThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.bind.PropertySourcesPlaceholdersResolver;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.core.env.Environment;
+
+/**
+ * Create {@link NacosConfigView}s and keep them current.
+ * <p>
+ * Each dataId is parsed once per change, then every view of it is bound again with a
+ * {@link Binder}, placeholders are resolved against the environment. Changes are
+ * received through {@link NacosContextRefresher#addChangeListener}, so a view may also
+ * be bound to a dataId that is not part of the environment. The parse and the binds run
+ * on the single thread of the manager, off the Nacos notify thread, in the order of the
+ * changes.
+ *
+ * @author chengrui
+ */
+public class NacosConfigViewManager implements DisposableBean {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(NacosConfigViewManager.class);
+
+	private final NacosConfigManager nacosConfigManager;
+
+	private final NacosContextRefresher nacosContextRefresher;
+
+	private final PropertySourcesPlaceholdersResolver placeholdersResolver;
+
+	private final Map<String, ViewGroup> viewGroups = new ConcurrentHashMap<>(16);
+
+	private final ExecutorService listenerExecutor = Executors.newSingleThreadExecutor(
+			new NameThreadFactory("com.alibaba.cloud.nacos.view.listener"));
+
+	public NacosConfigViewManager(NacosConfigManager nacosConfigManager,
+			NacosContextRefresher nacosContextRefresher, Environment environment) {
+		this.nacosConfigManager = nacosConfigManager;
+		this.nacosContextRefresher = nacosContextRefresher;
+		this.placeholdersResolver = new PropertySourcesPlaceholdersResolver(environment);
+	}
+
+	/**
+	 * Bind the whole content of a dataId in the configured group.
+	 * @param dataId dataId
+	 * @param type the bound type
+	 * @param <T> the bound type
+	 * @return the view
+	 */
+	public <T> NacosConfigView<T> bind(String dataId, Class<T> type) {
+		return bind(dataId, nacosConfigManager.getNacosConfigProperties().getGroup(),
+				"", type);
+	}
+
+	/**
+	 * Bind a key prefix of a dataId.
+	 * @param dataId dataId
+	 * @param group group
+	 * @param prefix the key prefix, empty to bind the whole content
+	 * @param type the bound type
+	 * @param <T> the bound type
+	 * @return the view
+	 */
+	public <T> NacosConfigView<T> bind(String dataId, String group, String prefix,
+			Class<T> type) {
+		return bind(dataId, group, null, prefix, type);
+	}
+
+	/**
+	 * Bind a key prefix of a dataId read from a client.
+	 * @param dataId dataId
+	 * @param group group
+	 * @param client the name of the client, null for the default one, see
+	 * {@link NacosConfigManager#getConfigServices()}
+	 * @param prefix the key prefix, empty to bind the whole content
+	 * @param type the bound type
+	 * @param <T> the bound type
+	 * @return the view
+	 */
+	public <T> NacosConfigView<T> bind(String dataId, String group, String client,
+			String prefix, Class<T> type) {
+		NacosConfigView<T> view = new NacosConfigView<>(dataId, group,
+				prefix == null ? "" : prefix, type, listenerExecutor);
+		String key = NacosPropertySourceRepository.getMapKey(dataId, group, client);
+		viewGroups.computeIfAbsent(key, k -> {
+			ViewGroup viewGroup = new ViewGroup(dataId, group, client);
+			nacosContextRefresher.addChangeListener(dataId, group, client, viewGroup);
+			return viewGroup;
+		}).add(view);
+		return view;
+	}
+
+	@Override
+	public void destroy() {
+		listenerExecutor.shutdownNow();
+	}
+
+	private Binder createBinder(Map<String, Object> source) {
+		return new Binder(
+				Collections.singletonList(new MapConfigurationPropertySource(source)),
+				placeholdersResolver);
+	}
+
+	private <T> void bind(Binder binder, NacosConfigView<T> view) {
+		try {
+			view.update(binder.bindOrCreate(view.getPrefix(),
+					Bindable.of(view.getType())));
+		}
+		catch (Exception e) {
+			log.warn(String.format(
+					"bind fail for nacos config view ,dataId=[%s],group=[%s],prefix=[%s]",
+					view.getDataId(), view.getGroup(), view.getPrefix()), e);
+		}
+	}
+
+	/**
+	 * The views of one dataId, together with its last parsed content.
+	 */
+	private final class ViewGroup implements NacosConfigChangeListener {
+
+		private final String dataId;
+
+		private final String group;
+
+		private final String client;
+
+		private final List<NacosConfigView<?>> views = new CopyOnWriteArrayList<>();
+
+		private volatile Map<String, Object> source;
+
+		private ViewGroup(String dataId, String group, String client) {
+			this.dataId = dataId;
+			this.group = group;
+			this.client = client;
+		}
+
+		private synchronized void add(NacosConfigView<?> view) {
+			if (source == null) {
+				source = load();
+			}
+			views.add(view);
+			bind(createBinder(source), view);
+		}
+
+		@Override
+		public void onChange(String dataId, String group, String configInfo) {
+			listenerExecutor.execute(() -> update(configInfo));
+		}
+
+		private void update(String configInfo) {
+			Map<String, Object> parsed = parse(configInfo);
+			synchronized (this) {
+				source = parsed;
+				Binder binder = createBinder(parsed);
+				for (NacosConfigView<?> view : views) {
+					bind(binder, view);
+				}
+			}
+		}
+
+		private Map<String, Object> load() {
+			try {
+				NacosConfigProperties properties = nacosConfigManager
+						.getNacosConfigProperties();
+				// a dataId of another server or namespace is read from its client.
+				ConfigService configService = client == null
+						? nacosConfigManager.getConfigService()
+						: NacosConfigManager.getConfigServices().get(client);
+				if (configService == null) {
+					log.warn("unknown client for nacos config view ,dataId=[{}],"
+							+ "group=[{}],client=[{}]", dataId, group, client);
+					return Collections.emptyMap();
+				}
+				return parse(configService.getConfig(dataId, group,
+						properties.getTimeout()));
+			}
+			catch (Exception e) {
+				log.warn(String.format(
+						"load fail for nacos config view ,dataId=[%s],group=[%s]", dataId,
+						group), e);
+				return Collections.emptyMap();
+			}
+		}
+
+		private Map<String, Object> parse(String configInfo) {
+			if (StringUtils.isEmpty(configInfo)) {
+				return Collections.emptyMap();
+			}
+			NacosPropertySource current = NacosPropertySourceRepository
+					.getNacosPropertySource(dataId, group, client);
+			String fileExtension = current == null ? null : current.getFileExtension();
+			try {
+				return NacosSharedSources.create(dataId, group, configInfo,
+						fileExtension, false).getSource();
+			}
+			catch (Exception e) {
+				log.warn(String.format(
+						"parse fail for nacos config view ,dataId=[%s],group=[%s]",
+						dataId, group), e);
+				return source == null ? Collections.emptyMap() : source;
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos;
+
+import com.alibaba.nacos.api.config.ConfigService;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author chengrui
+ */
+public class NacosConfigManagerTests {
+
+	@Test
+	public void testClientsAreShutDownWithTheLastManager() {
+		NacosConfigProperties properties = new NacosConfigProperties();
+		properties.setServerAddr("127.0.0.1:8848");
+		NacosConfigManager bootstrapManager = new NacosConfigManager(properties);
+		NacosConfigManager manager = new NacosConfigManager(properties);
+		bootstrapManager.afterPropertiesSet();
+		manager.afterPropertiesSet();
+		ConfigService other = manager.getConfigService("127.0.0.1:18848", "manager",
+				null, null);
+		String name = NacosConfigManager.getClientName(other);
+		NacosConfigManager.bindConfigService("manager.properties", "DEFAULT_GROUP",
+				other);
+		assertThat(NacosConfigManager.getConfigServices()).containsEntry(name, other);
+
+		manager.destroy();
+		assertThat(NacosConfigManager.getConfigServices()).containsEntry(name, other);
+
+		bootstrapManager.destroy();
+		assertThat(NacosConfigManager.getConfigServices()).doesNotContainKey(name);
+		assertThat(NacosConfigManager.getBoundConfigService("manager.properties",
+				"DEFAULT_GROUP", name)).isNull();
+
+		manager.afterPropertiesSet();
+		assertThat(manager.getConfigService("127.0.0.1:18848", "manager", null, null))
+				.isNotSameAs(other);
+		manager.destroy();
+	}
+
+}
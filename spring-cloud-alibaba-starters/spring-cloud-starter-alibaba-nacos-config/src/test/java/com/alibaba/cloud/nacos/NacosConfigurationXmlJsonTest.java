@@ -205,6 +205,20 @@ public class NacosConfigurationXmlJsonTest {
 		checkoutEndpoint();
 
 		checkJsonParser();
+		checkXmlParser();
+	}
+
+	private void checkXmlParser() {
+		assertThat(environment.getProperty("application.android:label"))
+				.isEqualTo("@string/app_name");
+		assertThat(environment.getProperty("application.activity.android:name"))
+				.isEqualTo(".osgViewer");
+		assertThat(environment
+				.getProperty("application.activity.android:screenOrientation"))
+						.isEqualTo("landscape");
+		assertThat(environment
+				.getProperty("application.activity.intent-filter.action.android:name"))
+						.isEqualTo("android.intent.action.MAIN");
 	}
 
 	private void checkJsonParser() {
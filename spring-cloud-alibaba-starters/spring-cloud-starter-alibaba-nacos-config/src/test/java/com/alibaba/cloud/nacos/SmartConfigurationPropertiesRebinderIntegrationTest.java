@@ -16,6 +16,10 @@
 
 package com.alibaba.cloud.nacos;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
 import com.alibaba.cloud.nacos.refresh.RefreshBehavior;
 import com.alibaba.cloud.nacos.refresh.SmartConfigurationPropertiesRebinder;
 import org.junit.jupiter.api.Test;
@@ -24,9 +28,14 @@ import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
 import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
 import org.springframework.cloud.context.properties.ConfigurationPropertiesRebinder;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.MapPropertySource;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -72,6 +81,33 @@ public class SmartConfigurationPropertiesRebinderIntegrationTest {
 		assertThat(rebinder.getClass()).isEqualTo(ConfigurationPropertiesRebinder.class);
 	}
 
+	@Test
+	public void testOnlyBeansMatchingChangedKeysAreRebound() {
+		context = new SpringApplicationBuilder(PropertiesConfiguration.class)
+				.web(WebApplicationType.NONE)
+				.properties("spring.cloud.nacos.config.refresh-behavior=specific_bean")
+				.properties("spring.cloud.nacos.server-addr=123.123.123.123:8848")
+				.properties("spring.cloud.nacos.config.import-check.enabled=false")
+				.properties("demo.sample.user-name=before", "demo.flag=before",
+						"other.user-name=before")
+				.run();
+		Map<String, Object> changed = new HashMap<>();
+		changed.put("demo.sample.user-name", "after");
+		changed.put("demo.flag", "after");
+		changed.put("other.user-name", "after");
+		context.getEnvironment().getPropertySources()
+				.addFirst(new MapPropertySource("changed", changed));
+
+		context.publishEvent(new EnvironmentChangeEvent(context,
+				Collections.singleton("demo.sample.userName")));
+
+		assertThat(context.getBean(SampleProperties.class).getUserName())
+				.isEqualTo("after");
+		assertThat(context.getBean(DemoProperties.class).getFlag()).isEqualTo("after");
+		assertThat(context.getBean(OtherProperties.class).getUserName())
+				.isEqualTo("before");
+	}
+
 	@Configuration
 	@ImportAutoConfiguration({ NacosConfigAutoConfiguration.class })
 	@EnableAutoConfiguration
@@ -79,4 +115,57 @@ public class SmartConfigurationPropertiesRebinderIntegrationTest {
 
 	}
 
+	@Configuration
+	@Import(RebinderConfiguration.class)
+	@EnableConfigurationProperties({ SampleProperties.class, DemoProperties.class,
+			OtherProperties.class })
+	public static class PropertiesConfiguration {
+
+	}
+
+	@ConfigurationProperties("demo.sample")
+	public static class SampleProperties {
+
+		private String userName;
+
+		public String getUserName() {
+			return userName;
+		}
+
+		public void setUserName(String userName) {
+			this.userName = userName;
+		}
+
+	}
+
+	@ConfigurationProperties("demo")
+	public static class DemoProperties {
+
+		private String flag;
+
+		public String getFlag() {
+			return flag;
+		}
+
+		public void setFlag(String flag) {
+			this.flag = flag;
+		}
+
+	}
+
+	@ConfigurationProperties("other")
+	public static class OtherProperties {
+
+		private String userName;
+
+		public String getUserName() {
+			return userName;
+		}
+
+		public void setUserName(String userName) {
+			this.userName = userName;
+		}
+
+	}
+
 }
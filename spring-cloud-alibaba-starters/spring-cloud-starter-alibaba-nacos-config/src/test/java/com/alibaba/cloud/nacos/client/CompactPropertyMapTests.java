@@ -0,0 +1,81 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.client;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.alibaba.cloud.nacos.parser.NacosDataParserHandler;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author chengrui
+ */
+public class CompactPropertyMapTests {
+
+	@Test
+	public void testLookupsAndOrderMatchTheSource() {
+		Map<String, Object> source = new LinkedHashMap<>();
+		for (int i = 2000; i > 0; i--) {
+			source.put("key." + i, i % 7 == 0 ? null : "value-" + i);
+		}
+
+		Map<String, Object> map = CompactPropertyMap.of(source);
+
+		assertThat(map).isEqualTo(source);
+		assertThat(map.hashCode()).isEqualTo(source.hashCode());
+		assertThat(map.keySet()).containsExactlyElementsOf(source.keySet());
+		assertThat(map.get("key.1")).isEqualTo("value-1");
+		assertThat(map.containsKey("key.7")).isTrue();
+		assertThat(map.get("key.7")).isNull();
+		assertThat(map.containsKey("key.0")).isFalse();
+		assertThat(map.get(1)).isNull();
+	}
+
+	@Test
+	public void testReadOnly() {
+		Map<String, Object> map = CompactPropertyMap
+				.of(Collections.singletonMap("a", "1"));
+
+		assertThatThrownBy(() -> map.put("b", "2"))
+				.isInstanceOf(UnsupportedOperationException.class);
+		assertThatThrownBy(() -> map.remove("a"))
+				.isInstanceOf(UnsupportedOperationException.class);
+		assertThatThrownBy(map::clear)
+				.isInstanceOf(UnsupportedOperationException.class);
+	}
+
+	@Test
+	public void testNacosPropertySourceIsCompact() throws Exception {
+		NacosPropertySource propertySource = new NacosPropertySource(
+				NacosDataParserHandler.getInstance().parseNacosData("app.yaml",
+						"a:\n  b: 1\n  c: [x, y]\n---\nd: 2", null),
+				"DEFAULT_GROUP", "app.yaml", new Date(), true);
+
+		assertThat(propertySource.getSource()).isInstanceOf(CompactPropertyMap.class);
+		assertThat(propertySource.getPropertyNames()).containsExactly("a.b", "a.c[0]",
+				"a.c[1]", "d");
+		assertThat(propertySource.getProperty("a.c[1]")).isEqualTo("y");
+		assertThat(propertySource.containsProperty("d")).isTrue();
+	}
+
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.client;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.cloud.nacos.NacosPropertySourceRepository;
+import com.alibaba.nacos.api.config.ConfigService;
+import com.alibaba.nacos.api.exception.NacosException;
+import com.alibaba.nacos.client.config.NacosConfigService;
+import com.alibaba.nacos.client.config.http.HttpAgent;
+import com.alibaba.nacos.client.config.impl.LocalConfigInfoProcessor;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author chengrui
+ */
+public class NacosPropertySourceBuilderTests {
+
+	@Test
+	public void testSlowFetchServesTheLoadedConfigAndRevalidates() throws Exception {
+		NacosPropertySourceRepository.updateNacosPropertySource(NacosSharedSources
+				.create("slow.properties", "DEFAULT_GROUP", "a=1", null, true));
+		CountDownLatch release = new CountDownLatch(1);
+		ConfigService configService = mock(ConfigService.class);
+		when(configService.getConfig(eq("slow.properties"), eq("DEFAULT_GROUP"),
+				anyLong())).thenAnswer(invocation -> {
+					release.await(5, TimeUnit.SECONDS);
+					return "a=2";
+				});
+		NacosPropertySourceBuilder builder = new NacosPropertySourceBuilder(
+				configService, 3000);
+		builder.setSoftTimeout(50);
+		List<String> revalidated = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch received = new CountDownLatch(1);
+		NacosConfigRevalidator.Listener listener = (fetched, configInfo) -> {
+			revalidated.add(fetched.getDataId() + "=" + configInfo);
+			received.countDown();
+		};
+		NacosConfigRevalidator.addListener(listener);
+		try {
+			NacosPropertySource served = builder.build("slow.properties",
+					"DEFAULT_GROUP", null, true);
+			assertThat(served.getProperty("a")).isEqualTo("1");
+
+			release.countDown();
+			assertThat(received.await(5, TimeUnit.SECONDS)).isTrue();
+			assertThat(revalidated).containsExactly("slow.properties=a=2");
+			assertThat(NacosPropertySourceRepository
+					.getNacosPropertySource("slow.properties", "DEFAULT_GROUP")
+					.getProperty("a")).isEqualTo("2");
+		}
+		finally {
+			NacosConfigRevalidator.removeListener(listener);
+		}
+	}
+
+	@Test
+	public void testSlowRefreshServesTheLastLoadedConfig() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		ConfigService configService = mock(ConfigService.class);
+		when(configService.getConfig(eq("pushed.properties"), eq("DEFAULT_GROUP"),
+				anyLong())).thenReturn("a=1", "a=2").thenAnswer(invocation -> {
+					release.await(5, TimeUnit.SECONDS);
+					return "a=2";
+				});
+		NacosPropertySourceBuilder builder = new NacosPropertySourceBuilder(
+				configService, 3000);
+		builder.setSoftTimeout(50);
+		CountDownLatch received = new CountDownLatch(1);
+		NacosConfigRevalidator.Listener listener = (fetched, configInfo) -> {
+			if ("pushed.properties".equals(fetched.getDataId())) {
+				received.countDown();
+			}
+		};
+		NacosConfigRevalidator.addListener(listener);
+		try {
+			// the startup load, then the refresh of a pushed change.
+			assertThat(builder.build("pushed.properties", "DEFAULT_GROUP", null, true)
+					.getProperty("a")).isEqualTo("1");
+			assertThat(builder.build("pushed.properties", "DEFAULT_GROUP", null, true)
+					.getProperty("a")).isEqualTo("2");
+
+			// a slow refresh serves the pushed change, not the startup content.
+			assertThat(builder.build("pushed.properties", "DEFAULT_GROUP", null, true)
+					.getProperty("a")).isEqualTo("2");
+			release.countDown();
+			// the revalidation fetches the same content.
+			assertThat(received.await(200, TimeUnit.MILLISECONDS)).isFalse();
+		}
+		finally {
+			release.countDown();
+			NacosConfigRevalidator.removeListener(listener);
+		}
+	}
+
+	@Test
+	public void testFailedFetchServesTheLoadedConfig() throws Exception {
+		NacosPropertySourceRepository.updateNacosPropertySource(NacosSharedSources
+				.create("failing.properties", "DEFAULT_GROUP", "a=1", null, true));
+		ConfigService configService = mock(ConfigService.class);
+		when(configService.getConfig(eq("failing.properties"), eq("DEFAULT_GROUP"),
+				anyLong())).thenThrow(new NacosException(NacosException.SERVER_ERROR,
+						"unavailable"));
+		NacosPropertySourceBuilder builder = new NacosPropertySourceBuilder(
+				configService, 3000);
+		builder.setSoftTimeout(50);
+
+		NacosPropertySource served = builder.build("failing.properties",
+				"DEFAULT_GROUP", null, false);
+
+		assertThat(served.getProperty("a")).isEqualTo("1");
+		assertThat(served.isRefreshable()).isFalse();
+	}
+
+	@Test
+	public void testSlowColdStartServesTheSnapshot() throws Exception {
+		String envName = "snapshot-test-" + System.nanoTime();
+		HttpAgent agent = mock(HttpAgent.class);
+		when(agent.getName()).thenReturn(envName);
+		NacosConfigService configService = mock(NacosConfigService.class);
+		ReflectionTestUtils.setField(configService, "agent", agent);
+		ReflectionTestUtils.setField(configService, "namespace", "");
+		CountDownLatch release = new CountDownLatch(1);
+		when(configService.getConfig(eq("cold.properties"), eq("DEFAULT_GROUP"),
+				anyLong())).thenAnswer(invocation -> {
+					release.await(5, TimeUnit.SECONDS);
+					return "a=2";
+				});
+		when(configService.getConfig(eq("unsaved.properties"), eq("DEFAULT_GROUP"),
+				anyLong())).thenAnswer(invocation -> {
+					Thread.sleep(200);
+					return "b=1";
+				});
+		LocalConfigInfoProcessor.saveSnapshot(envName, "cold.properties",
+				"DEFAULT_GROUP", "", "a=1");
+		NacosPropertySourceBuilder builder = new NacosPropertySourceBuilder(
+				configService, 3000);
+		builder.setSoftTimeout(50);
+		CountDownLatch received = new CountDownLatch(1);
+		NacosConfigRevalidator.Listener listener = (fetched, configInfo) -> {
+			if ("cold.properties".equals(fetched.getDataId())) {
+				received.countDown();
+			}
+		};
+		NacosConfigRevalidator.addListener(listener);
+		try {
+			assertThat(builder.build("cold.properties", "DEFAULT_GROUP", null, true)
+					.getProperty("a")).isEqualTo("1");
+			// without a snapshot the fetch is awaited.
+			assertThat(builder.build("unsaved.properties", "DEFAULT_GROUP", null, true)
+					.getProperty("b")).isEqualTo("1");
+
+			release.countDown();
+			assertThat(received.await(5, TimeUnit.SECONDS)).isTrue();
+		}
+		finally {
+			release.countDown();
+			NacosConfigRevalidator.removeListener(listener);
+			LocalConfigInfoProcessor.cleanEnvSnapshot(envName);
+		}
+	}
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.client;
+
+import com.alibaba.nacos.api.config.ConfigService;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author chengrui
+ */
+public class NacosShardedConfigTests {
+
+	@Test
+	public void testShardsAreMergedInManifestOrder() throws Exception {
+		ConfigService configService = mock(ConfigService.class);
+		when(configService.getConfig(eq("blacklist"), eq("DEFAULT_GROUP"), anyLong()))
+				.thenReturn("# shards\nblacklist-0\n\nblacklist-1.yaml\nblacklist-0\n");
+		when(configService.getConfig(eq("blacklist-0"), eq("DEFAULT_GROUP"),
+				anyLong())).thenReturn("a=1\nb=2");
+		when(configService.getConfig(eq("blacklist-1.yaml"), eq("DEFAULT_GROUP"),
+				anyLong())).thenReturn("b: 20\nc: 30");
+
+		NacosPropertySource propertySource = NacosShardedConfig.load(configService,
+				"blacklist", "DEFAULT_GROUP", "properties", true, 3000);
+
+		assertThat(propertySource.getName()).isEqualTo("blacklist,DEFAULT_GROUP");
+		assertThat(propertySource.getPropertyNames()).containsExactly("a", "b", "c");
+		assertThat(propertySource.getProperty("b")).isEqualTo(20);
+		NacosShardedConfig shardedConfig = NacosShardedConfig.get("blacklist",
+				"DEFAULT_GROUP");
+		assertThat(shardedConfig.getShardDataIds()).containsExactly("blacklist-0",
+				"blacklist-1.yaml");
+		assertThat(NacosShardedConfig.getByShard("blacklist-1.yaml", "DEFAULT_GROUP"))
+				.isSameAs(shardedConfig);
+		assertThat(NacosShardedConfig.getByShard("blacklist", "DEFAULT_GROUP"))
+				.isNull();
+	}
+
+	@Test
+	public void testOnlyTheChangedShardIsParsed() throws Exception {
+		ConfigService configService = mock(ConfigService.class);
+		when(configService.getConfig(eq("routes"), eq("DEFAULT_GROUP"), anyLong()))
+				.thenReturn("routes-0\nroutes-1");
+		when(configService.getConfig(eq("routes-0"), eq("DEFAULT_GROUP"), anyLong()))
+				.thenReturn("x=1");
+		when(configService.getConfig(eq("routes-1"), eq("DEFAULT_GROUP"), anyLong()))
+				.thenReturn("y=1");
+		NacosShardedConfig.load(configService, "routes", "DEFAULT_GROUP", "properties",
+				true, 3000);
+		NacosShardedConfig shardedConfig = NacosShardedConfig.get("routes",
+				"DEFAULT_GROUP");
+		NacosPropertySource unchanged = shardedConfig.getShard("routes-0");
+		long parsed = NacosSharedSources.getParseCount();
+
+		shardedConfig.update("routes-1", "y=2\nz=3");
+
+		assertThat(NacosSharedSources.getParseCount() - parsed).isEqualTo(1);
+		assertThat(shardedConfig.getShard("routes-0")).isSameAs(unchanged);
+		NacosPropertySource merged = shardedConfig.toPropertySource();
+		assertThat(merged.getProperty("x")).isEqualTo("1");
+		assertThat(merged.getProperty("y")).isEqualTo("2");
+		assertThat(merged.getProperty("z")).isEqualTo("3");
+		assertThat(merged.getPropertyNames()).containsExactly("x", "y", "z");
+
+		NacosPropertySource replaced = shardedConfig.withShard(merged,
+				shardedConfig.update("routes-0", "x=2"));
+		assertThat(NacosShardedConfig.getShard(replaced, "routes-1"))
+				.isSameAs(NacosShardedConfig.getShard(merged, "routes-1"));
+		assertThat(replaced.getProperty("x")).isEqualTo("2");
+		assertThat(merged.getProperty("x")).isEqualTo("1");
+		assertThat(shardedConfig.update("routes-0", "x=2"))
+				.isSameAs(NacosShardedConfig.getShard(replaced, "routes-0"));
+	}
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.client;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author chengrui
+ */
+public class NacosSharedSourcesTests {
+
+	@Test
+	public void testSameContentIsParsedOnce() throws Exception {
+		long parsed = NacosSharedSources.getParseCount();
+
+		NacosPropertySource first = NacosSharedSources.create("shared.yaml",
+				"DEFAULT_GROUP", "a:\n  b: 1", null, true);
+		NacosPropertySource second = NacosSharedSources.create("shared.yaml",
+				"DEFAULT_GROUP", "a:\n  b: 1", null, false);
+
+		assertThat(NacosSharedSources.getParseCount() - parsed).isEqualTo(1);
+		assertThat(second.getSource()).isSameAs(first.getSource());
+		assertThat(second.isRefreshable()).isFalse();
+		assertThat(second.getProperty("a.b")).isEqualTo(1);
+	}
+
+	@Test
+	public void testChangedContentIsParsedAgain() throws Exception {
+		NacosPropertySource first = NacosSharedSources.create("changed.properties",
+				"DEFAULT_GROUP", "a=1", null, true);
+		NacosPropertySource second = NacosSharedSources.create("changed.properties",
+				"DEFAULT_GROUP", "a=2", null, true);
+		NacosPropertySource otherGroup = NacosSharedSources.create("changed.properties",
+				"OTHER_GROUP", "a=2", null, true);
+
+		assertThat(first.getProperty("a")).isEqualTo("1");
+		assertThat(second.getProperty("a")).isEqualTo("2");
+		assertThat(otherGroup.getSource()).isNotSameAs(second.getSource());
+	}
+
+	@Test
+	public void testEmptyContentIsNotCached() throws Exception {
+		int size = NacosSharedSources.size();
+
+		NacosPropertySource empty = NacosSharedSources.create("empty.properties",
+				"DEFAULT_GROUP", "", null, true);
+
+		assertThat(empty.getSource()).isEmpty();
+		assertThat(NacosSharedSources.size()).isLessThanOrEqualTo(size);
+	}
+
+}
@@ -20,12 +20,15 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
+import com.alibaba.cloud.nacos.NacosConfigManager;
 import com.alibaba.cloud.nacos.NacosConfigProperties;
 import com.alibaba.nacos.api.config.ConfigService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import org.springframework.boot.BootstrapRegistry.InstanceSupplier;
 import org.springframework.boot.ConfigurableBootstrapContext;
+import org.springframework.boot.DefaultBootstrapContext;
 import org.springframework.boot.context.config.ConfigDataLocation;
 import org.springframework.boot.context.config.ConfigDataLocationResolverContext;
 import org.springframework.boot.context.config.Profiles;
@@ -195,6 +198,42 @@ public class NacosConfigDataLocationResolverTest {
 		assertThat(resource.getProperties().getServerAddr()).isEqualTo("127.0.0.1:9999");
 	}
 
+	@Test
+	void testUrisInLocationSelectTheClient() {
+		String locationUri = "nacos:test.yml?serverAddr=127.0.0.1:9999&namespace=ns"
+				+ "&username=user&password=secret";
+		NacosConfigDataResource resource = testUri(locationUri).get(0);
+
+		assertThat(resource.getConfig().getServerAddr()).isEqualTo("127.0.0.1:9999");
+		assertThat(resource.getConfig().getNamespace()).isEqualTo("ns");
+		assertThat(resource.getConfig().getUsername()).isEqualTo("user");
+		assertThat(resource.getConfig().getPassword()).isEqualTo("secret");
+		assertThat(resource.getConfig().toString()).doesNotContain("secret");
+		assertThat(testUri("nacos:test.yml").get(0).getConfig().getServerAddr())
+				.isNull();
+	}
+
+	@Test
+	void testLocationPlanIsReusedAcrossResolutionRounds() {
+		DefaultBootstrapContext defaultBootstrapContext = new DefaultBootstrapContext();
+		defaultBootstrapContext.register(NacosConfigManager.class,
+				InstanceSupplier.of(mock(NacosConfigManager.class)));
+		when(context.getBootstrapContext()).thenReturn(defaultBootstrapContext);
+		String locationUri = "nacos:test.yml?group=G&refreshEnabled=false";
+
+		NacosConfigDataResource first = testUri(locationUri).get(0);
+		environment.setProperty("spring.cloud.nacos.config.file-extension", "json");
+		NacosConfigDataResource second = testUri(locationUri, "dev").get(0);
+
+		assertThat(second.getConfig()).isEqualTo(first.getConfig())
+				.isNotSameAs(first.getConfig());
+		assertThat(second.getConfig().getGroup()).isEqualTo("G");
+		assertThat(second.getConfig().isRefreshEnabled()).isFalse();
+		assertThat(second.getProperties()).isSameAs(first.getProperties());
+		assertThat(testUri("nacos:other").get(0).getConfig().getSuffix())
+				.isEqualTo("properties");
+	}
+
 	private List<NacosConfigDataResource> testUri(String locationUri,
 			String... activeProfiles) {
 		Profiles profiles = mock(Profiles.class);
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.endpoint;
+
+import java.util.Map;
+
+import com.alibaba.cloud.nacos.NacosConfigManager;
+import com.alibaba.cloud.nacos.NacosConfigProperties;
+import com.alibaba.cloud.nacos.client.NacosSharedSources;
+import com.alibaba.cloud.nacos.metrics.NacosConfigMetrics;
+import com.alibaba.nacos.api.config.ConfigService;
+import com.alibaba.nacos.api.exception.NacosException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author chengrui
+ */
+public class NacosConfigHealthCacheTests {
+
+	private static final String KEY = "health.properties,DEFAULT_GROUP";
+
+	private final ConfigService configService = mock(ConfigService.class);
+
+	private final NacosConfigProperties properties = new NacosConfigProperties();
+
+	private final NacosConfigMetrics metrics = new NacosConfigMetrics();
+
+	private NacosConfigHealthCache healthCache;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		NacosConfigManager nacosConfigManager = mock(NacosConfigManager.class);
+		when(nacosConfigManager.getNacosConfigProperties()).thenReturn(properties);
+		when(nacosConfigManager.getConfigService()).thenReturn(configService);
+		healthCache = new NacosConfigHealthCache(nacosConfigManager, metrics);
+		metrics.recordListened("health.properties", "DEFAULT_GROUP", null,
+				NacosSharedSources.create("health.properties", "DEFAULT_GROUP", "a=1",
+						null, true));
+	}
+
+	@Test
+	public void testStaleConfigIsReported() throws Exception {
+		properties.setHealthMaxStaleness(1);
+		when(configService.getConfig(eq("health.properties"), eq("DEFAULT_GROUP"),
+				anyLong())).thenReturn("a=2");
+
+		healthCache.checkConfigs();
+		Thread.sleep(10);
+
+		assertThat(healthCache.getStaleConfigs()).containsExactly(KEY);
+		Health.Builder builder = new Health.Builder();
+		new NacosConfigHealthIndicator(healthCache).doHealthCheck(builder);
+		assertThat(builder.build().getStatus()).isEqualTo(Status.DOWN);
+
+		metrics.recordSync("health.properties", "DEFAULT_GROUP", null, "a=2");
+		assertThat(healthCache.getStaleConfigs()).isEmpty();
+	}
+
+	@Test
+	public void testStaleConfigIsOnlyReportedByDefault() throws Exception {
+		when(configService.getConfig(eq("health.properties"), eq("DEFAULT_GROUP"),
+				anyLong())).thenReturn("a=2");
+
+		healthCache.checkConfigs();
+		Thread.sleep(10);
+
+		assertThat(properties.getHealthCheckInterval()).isZero();
+		assertThat(healthCache.getStaleConfigs()).isEmpty();
+		assertThat((Map<String, Object>) healthCache.getConfigDetails().get(KEY))
+				.extractingByKey("stalenessMillis").isNotEqualTo(0L);
+	}
+
+	@Test
+	public void testConfigDetails() throws Exception {
+		when(configService.getConfig(eq("health.properties"), eq("DEFAULT_GROUP"),
+				anyLong())).thenReturn("a=1").thenThrow(new NacosException());
+
+		healthCache.checkConfigs();
+		healthCache.checkConfigs();
+
+		Map<String, Object> details = (Map<String, Object>) healthCache
+				.getConfigDetails().get(KEY);
+		assertThat(details).containsEntry("md5", NacosSharedSources.md5("a=1"))
+				.containsEntry("stalenessMillis", 0L)
+				.containsEntry("fetchFailures", 1L);
+		assertThat(details.get("lastSyncTime")).isNotNull();
+		assertThat(healthCache.getStaleConfigs()).isEmpty();
+	}
+
+	@Test
+	public void testConfigIsCheckedOnItsClient() throws Exception {
+		properties.setHealthMaxStaleness(1);
+		ConfigService other = mock(ConfigService.class);
+		NacosConfigManager.bindConfigService("health.properties", "DEFAULT_GROUP",
+				"health-other", other);
+		metrics.recordListened("health.properties", "DEFAULT_GROUP", "health-other",
+				NacosSharedSources.create("health.properties", "DEFAULT_GROUP", "a=1",
+						null, true, "health-other"));
+		when(configService.getConfig(eq("health.properties"), eq("DEFAULT_GROUP"),
+				anyLong())).thenReturn("a=1");
+		when(other.getConfig(eq("health.properties"), eq("DEFAULT_GROUP"),
+				anyLong())).thenReturn("a=2");
+
+		healthCache.checkConfigs();
+		Thread.sleep(10);
+
+		assertThat(healthCache.getStaleConfigs())
+				.containsExactly(KEY + ",health-other");
+	}
+
+}
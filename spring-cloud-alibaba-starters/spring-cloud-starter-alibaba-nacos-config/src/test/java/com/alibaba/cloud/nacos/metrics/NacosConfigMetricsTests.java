@@ -0,0 +1,149 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.metrics;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.cloud.nacos.refresh.NacosContextRefresher;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.support.GenericApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author chengrui
+ */
+public class NacosConfigMetricsTests {
+
+	private final GenericApplicationContext context = new GenericApplicationContext();
+
+	private final NacosConfigMetrics metrics = new NacosConfigMetrics();
+
+	@BeforeEach
+	public void setUp() {
+		context.addApplicationListener(metrics);
+		context.refresh();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		context.close();
+	}
+
+	@Test
+	public void testRefreshStagesAreTraced() {
+		NacosConfigMetrics.Trace trace = metrics.startTrace();
+		long start = System.nanoTime();
+		context.publishEvent(
+				new EnvironmentChangeEvent(context, Collections.singleton("a")));
+		NacosConfigMetrics.recordRebind(start);
+		NacosConfigMetrics.recordRebind(System.nanoTime());
+		context.publishEvent(new RefreshScopeRefreshedEvent());
+		metrics.finishTrace(trace);
+		metrics.recordRefresh("app.properties", "DEFAULT_GROUP", null, true,
+				System.currentTimeMillis(), -1, trace);
+
+		for (NacosConfigMetrics.Stage stage : NacosConfigMetrics.Stage.values()) {
+			long expected = stage == NacosConfigMetrics.Stage.PARSE ? 0 : 1;
+			assertThat(metrics.getStageStats(stage).getCount()).as(stage.getTag())
+					.isEqualTo(expected);
+		}
+	}
+
+	@Test
+	public void testRefreshScopeIsNotTracedWithoutTheRebind() {
+		NacosConfigMetrics.Trace trace = metrics.startTrace();
+		context.publishEvent(
+				new EnvironmentChangeEvent(context, Collections.singleton("a")));
+		context.publishEvent(new RefreshScopeRefreshedEvent());
+		metrics.finishTrace(trace);
+
+		assertThat(metrics.getStageStats(NacosConfigMetrics.Stage.ENVIRONMENT)
+				.getCount()).isEqualTo(1);
+		assertThat(metrics.getStageStats(NacosConfigMetrics.Stage.REBIND).getCount())
+				.isZero();
+		assertThat(metrics.getStageStats(NacosConfigMetrics.Stage.REFRESH_SCOPE)
+				.getCount()).isZero();
+		assertThat(metrics.getStageStats(NacosConfigMetrics.Stage.REFRESH).getCount())
+				.isEqualTo(1);
+	}
+
+	@Test
+	public void testDataIdsAreKeptPerClient() {
+		NacosConfigMetrics.Trace trace = metrics.startTrace();
+		metrics.finishTrace(trace);
+		metrics.recordSync("app.properties", "DEFAULT_GROUP", null, "a=1");
+		metrics.recordSync("app.properties", "DEFAULT_GROUP", "other:8848/", "a=2");
+		metrics.recordRefresh("app.properties", "DEFAULT_GROUP", "other:8848/", true,
+				System.currentTimeMillis(), -1, trace);
+
+		Map<String, NacosConfigMetrics.DataIdStats> stats = new HashMap<>();
+		metrics.getDataIdStats().forEach(s -> stats.put(s.getKey(), s));
+		assertThat(stats).containsOnlyKeys("app.properties,DEFAULT_GROUP",
+				"app.properties,DEFAULT_GROUP,other:8848/");
+		assertThat(stats.get("app.properties,DEFAULT_GROUP").getRefreshes()).isZero();
+		assertThat(stats.get("app.properties,DEFAULT_GROUP,other:8848/").getRefreshes())
+				.isEqualTo(1);
+		assertThat(stats.get("app.properties,DEFAULT_GROUP").getMd5()).isNotEqualTo(
+				stats.get("app.properties,DEFAULT_GROUP,other:8848/").getMd5());
+	}
+
+	@Test
+	public void testEventsOutsideATraceAreIgnored() {
+		context.publishEvent(
+				new EnvironmentChangeEvent(context, Collections.singleton("a")));
+
+		assertThat(metrics.getStageStats(NacosConfigMetrics.Stage.ENVIRONMENT)
+				.getCount()).isZero();
+	}
+
+	@Test
+	public void testMetersAreBound() {
+		NacosContextRefresher refresher = mock(NacosContextRefresher.class);
+		when(refresher.getListenerCount()).thenReturn(3);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		new NacosConfigMeterBinder(metrics, refresher).bindTo(registry);
+
+		NacosConfigMetrics.Trace trace = metrics.startTrace();
+		metrics.finishTrace(trace);
+		metrics.recordRefresh("app.properties", "DEFAULT_GROUP", null, false,
+				System.currentTimeMillis(), 2, trace);
+
+		assertThat(registry.get("nacos.config.listened").gauge().value()).isEqualTo(3);
+		assertThat(registry.get("nacos.config.refresh.failures")
+				.tag("dataId", "app.properties").tag("client", "default")
+				.functionCounter().count())
+						.isEqualTo(1);
+		FunctionTimer parse = registry.get("nacos.config.refresh.latency")
+				.tag("stage", "parse").functionTimer();
+		assertThat(parse.count()).isEqualTo(1);
+		assertThat(parse.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(2);
+	}
+
+}
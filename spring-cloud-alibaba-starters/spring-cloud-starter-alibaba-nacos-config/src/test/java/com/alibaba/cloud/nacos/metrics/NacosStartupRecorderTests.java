@@ -0,0 +1,85 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.metrics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author chengrui
+ */
+public class NacosStartupRecorderTests {
+
+	@AfterEach
+	public void tearDown() {
+		NacosStartupRecorder.stop(false);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testPhasesAreRecordedAsStartupSteps() {
+		BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup(
+				64);
+		NacosStartupRecorder.reset(applicationStartup);
+
+		NacosStartupRecorder.Step locate = NacosStartupRecorder
+				.start(NacosStartupRecorder.Phase.LOCATE, null, null);
+		NacosStartupRecorder.start(NacosStartupRecorder.Phase.FETCH, "app.yaml", "GROUP")
+				.end("a: \u00e9\u20ac\ud83d\ude00");
+		NacosStartupRecorder.start(NacosStartupRecorder.Phase.PARSE, "app.yaml", "GROUP")
+				.end("a: \u00e9\u20ac\ud83d\ude00");
+		locate.end();
+
+		List<String> steps = applicationStartup.getBufferedTimeline().getEvents()
+				.stream().map(StartupTimeline.TimelineEvent::getStartupStep)
+				.map(StartupStep::getName).collect(Collectors.toList());
+		assertThat(steps).containsExactly("spring.cloud.nacos.config.fetch",
+				"spring.cloud.nacos.config.parse", "spring.cloud.nacos.config.locate");
+
+		Map<String, Object> summary = NacosStartupRecorder.getSummary();
+		Map<String, Object> phases = (Map<String, Object>) summary.get("phases");
+		assertThat((Map<String, Object>) phases.get("fetch")).containsEntry("count",
+				1L);
+		Map<String, Object> dataIds = (Map<String, Object>) summary.get("dataIds");
+		assertThat((Map<String, Object>) dataIds.get("app.yaml,GROUP"))
+				.containsEntry("bytes", 12L);
+	}
+
+	@Test
+	public void testNothingIsRecordedOnceStopped() {
+		NacosStartupRecorder.reset(ApplicationStartup.DEFAULT);
+		NacosStartupRecorder.stop(true);
+
+		NacosStartupRecorder.start(NacosStartupRecorder.Phase.FETCH, "app.yaml", "GROUP")
+				.end("a: 1");
+
+		assertThat(NacosStartupRecorder.isRecording()).isFalse();
+		assertThat(NacosStartupRecorder.getDataIdStats()).isEmpty();
+	}
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.parser;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.PropertySource;
+import org.springframework.security.crypto.encrypt.Encryptors;
+import org.springframework.security.crypto.encrypt.TextEncryptor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * @author chengrui
+ */
+public class NacosConfigDecryptorTests {
+
+	private TextEncryptor key = Encryptors.text("password", "deadbeef");
+
+	private final TextEncryptor otherKey = Encryptors.text("other", "cafebabe");
+
+	private final NacosConfigDecryptor decryptor = new NacosConfigDecryptor(
+			Collections.singletonList(keyName -> NacosConfigDecryptor.DEFAULT_KEY_NAME
+					.equals(keyName) ? key : "other".equals(keyName) ? otherKey : null));
+
+	@Test
+	public void testEncryptedValuesAreDecryptedOnce() {
+		Map<String, Object> source = new LinkedHashMap<>();
+		source.put("plain", "value");
+		source.put("secret", "{cipher}" + key.encrypt("s3cret"));
+		source.put("other", "{cipher}{key:other}" + otherKey.encrypt("other"));
+		PropertySource<?> propertySource = decrypt(source);
+
+		assertThat(propertySource.getProperty("plain")).isEqualTo("value");
+		assertThat(propertySource.getProperty("secret")).isEqualTo("s3cret");
+		assertThat(propertySource.getProperty("other")).isEqualTo("other");
+		assertThat(decryptor.getDecryptionCount()).isEqualTo(2);
+
+		source.put("plain", "changed");
+		assertThat(decrypt(source).getProperty("secret")).isEqualTo("s3cret");
+		assertThat(decryptor.getDecryptionCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void testChangedKeyForgetsItsPlainTexts() {
+		Map<String, Object> source = Collections.singletonMap("secret",
+				"{cipher}" + key.encrypt("s3cret"));
+		assertThat(decrypt(source).getProperty("secret")).isEqualTo("s3cret");
+
+		key = Encryptors.noOpText();
+		assertThat(decrypt(source).getProperty("secret"))
+				.isEqualTo(source.get("secret").toString()
+						.substring(NacosConfigDecryptor.CIPHER_PREFIX.length()));
+		assertThat(decryptor.getDecryptionCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void testManyEncryptedValuesAreDecryptedOnWorkers() {
+		Map<String, Object> source = new LinkedHashMap<>();
+		for (int i = 0; i < 100; i++) {
+			source.put("secret" + i, "{cipher}" + key.encrypt("value" + i));
+		}
+		PropertySource<?> propertySource = decrypt(source);
+
+		for (int i = 0; i < 100; i++) {
+			assertThat(propertySource.getProperty("secret" + i)).isEqualTo("value" + i);
+		}
+		assertThat(decryptor.getDecryptionCount()).isEqualTo(100);
+	}
+
+	@Test
+	public void testUnknownKeyFails() {
+		Map<String, Object> source = Collections.singletonMap("secret",
+				"{cipher}{key:missing}" + key.encrypt("s3cret"));
+
+		assertThatIllegalStateException().isThrownBy(() -> decrypt(source))
+				.withMessageContaining("secret");
+	}
+
+	@Test
+	public void testNoKeyProviderLeavesValuesEncrypted() {
+		List<PropertySource<?>> propertySources = Collections
+				.singletonList(new MapPropertySource("test", Collections
+						.singletonMap("secret", "{cipher}" + key.encrypt("s3cret"))));
+
+		assertThat(new NacosConfigDecryptor(Collections.emptyList())
+				.decrypt(propertySources)).isSameAs(propertySources);
+	}
+
+	private PropertySource<?> decrypt(Map<String, Object> source) {
+		return decryptor
+				.decrypt(Collections.singletonList(new MapPropertySource("test", source)))
+				.get(0);
+	}
+
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.parser;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.core.env.PropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Flattening of the streaming JSON and XML loaders, binary formats and compressed
+ * content.
+ *
+ * @author chengrui
+ */
+public class NacosDataParserHandlerTest {
+
+	private final NacosDataParserHandler handler = NacosDataParserHandler
+			.getInstance();
+
+	@Test
+	public void testJsonFlattening() throws Exception {
+		String json = "{\"a\":{\"b\":1,\"c\":[{\"name\":\"x\"},\"y\"],\"big\":12345678901,"
+				+ "\"d\":1.5,\"e\":true,\"f\":null,\"g\":{},\"h\":[]},"
+				+ "\"k\":{\"value\":\"v\"}}";
+		PropertySource<?> source = single(handler.parseNacosData("app.json", json, "json"));
+
+		assertThat(source.getProperty("a.b")).isEqualTo(1);
+		assertThat(source.getProperty("a.c[0].name")).isEqualTo("x");
+		assertThat(source.getProperty("a.c[1]")).isEqualTo("y");
+		assertThat(source.getProperty("a.big")).isEqualTo(12345678901L);
+		assertThat(source.getProperty("a.d")).isEqualTo(1.5D);
+		assertThat(source.getProperty("a.e")).isEqualTo(Boolean.TRUE);
+		assertThat(source.getProperty("k.value")).isEqualTo("v");
+		assertThat(source.getProperty("k")).isEqualTo("v");
+		assertThat(((EnumerablePropertySource<?>) source).getPropertyNames())
+				.doesNotContain("a.g", "a.h");
+	}
+
+	@Test
+	public void testXmlFlattening() throws Exception {
+		String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+				+ "<!-- ignored --><root a=\"1\" xmlns:android=\"http://x\">"
+				+ "<first>one</first><second value=\"two\"><third>three</third></second>"
+				+ "<cd><![CDATA[cdata]]></cd><android:p android:q=\"r\">pv</android:p>"
+				+ "</root>";
+		PropertySource<?> source = single(handler.parseNacosData("app.xml", xml, "xml"));
+
+		assertThat(source.getProperty("root.a")).isEqualTo("1");
+		assertThat(source.getProperty("root.xmlns:android")).isEqualTo("http://x");
+		assertThat(source.getProperty("root.first")).isEqualTo("one");
+		assertThat(source.getProperty("root.second.value")).isEqualTo("two");
+		assertThat(source.getProperty("root.second.third")).isEqualTo("three");
+		assertThat(source.getProperty("root.cd")).isEqualTo("cdata");
+		assertThat(source.getProperty("root.android:p")).isEqualTo("pv");
+		assertThat(source.getProperty("root.android:p.android:q")).isEqualTo("r");
+		assertThat(source.getProperty("")).isNull();
+	}
+
+	@Test
+	public void testGzipContentMarkedBySuffix() throws Exception {
+		String yaml = gzip("a:\n  b: 中文\n  c: [x, y]\n");
+
+		PropertySource<?> source = single(
+				handler.parseNacosData("app.yaml.gz", yaml, null));
+
+		assertThat(source.getProperty("a.b")).isEqualTo("中文");
+		assertThat(source.getProperty("a.c[1]")).isEqualTo("y");
+		assertThat(single(handler.parseNacosData("app", yaml, "yaml.gz"))
+				.getProperty("a.b")).isEqualTo("中文");
+	}
+
+	@Test
+	public void testGzipContentDetectedByHeader() throws Exception {
+		PropertySource<?> properties = single(handler.parseNacosData("app.properties",
+				gzip("a=中文\nb=2"), "properties"));
+		PropertySource<?> json = single(handler.parseNacosData("app.json",
+				gzip("{\"a\":{\"b\":1}}"), "json"));
+
+		assertThat(properties.getProperty("a")).isEqualTo("中文");
+		assertThat(properties.getProperty("b")).isEqualTo("2");
+		assertThat(json.getProperty("a.b")).isEqualTo(1);
+		assertThat(single(handler.parseNacosData("app.properties", "H4sI: plain",
+				"properties")).getProperty("H4sI")).isEqualTo("plain");
+	}
+
+	@Test
+	public void testLargeGzipPropertiesAreEscapedAcrossReads() throws Exception {
+		StringBuilder content = new StringBuilder();
+		for (int i = 0; i < 2000; i++) {
+			content.append("key").append(i).append("=中文").append(i).append('\n');
+		}
+		PropertySource<?> properties = single(handler.parseNacosData("app.properties",
+				gzip(content.toString()), "properties"));
+
+		assertThat(properties.getProperty("key0")).isEqualTo("中文0");
+		assertThat(properties.getProperty("key1999")).isEqualTo("中文1999");
+		assertThat(((EnumerablePropertySource<?>) properties).getPropertyNames())
+				.hasSize(2000);
+	}
+
+	@Test
+	public void testBinaryFormats() throws Exception {
+		PropertySource<?> cbor = single(handler.parseNacosData("app.cbor",
+				encode(new CBORFactory(), false), null));
+		PropertySource<?> smile = single(handler.parseNacosData("app",
+				encode(new SmileFactory(), false), "smile"));
+		PropertySource<?> compressed = single(handler.parseNacosData("app.cbor.gz",
+				encode(new CBORFactory(), true), null));
+
+		for (PropertySource<?> source : new PropertySource<?>[] { cbor, smile,
+				compressed }) {
+			assertThat(source.getProperty("a.b")).isEqualTo(1);
+			assertThat(source.getProperty("a.c[1]")).isEqualTo("中文");
+			assertThat(source.getProperty("k")).isEqualTo(true);
+		}
+	}
+
+	private static String encode(JsonFactory factory, boolean compressed)
+			throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (JsonGenerator generator = factory.createGenerator(
+				compressed ? new GZIPOutputStream(bytes) : bytes)) {
+			generator.writeStartObject();
+			generator.writeObjectFieldStart("a");
+			generator.writeNumberField("b", 1);
+			generator.writeArrayFieldStart("c");
+			generator.writeString("x");
+			generator.writeString("中文");
+			generator.writeEndArray();
+			generator.writeEndObject();
+			generator.writeObjectFieldStart("k");
+			generator.writeBooleanField("value", true);
+			generator.writeEndObject();
+			generator.writeEndObject();
+		}
+		return Base64.getMimeEncoder().encodeToString(bytes.toByteArray());
+	}
+
+	private static String gzip(String content) throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+			gzip.write(content.getBytes(StandardCharsets.UTF_8));
+		}
+		return Base64.getMimeEncoder().encodeToString(bytes.toByteArray());
+	}
+
+	private PropertySource<?> single(List<PropertySource<?>> sources) {
+		assertThat(sources).hasSize(1);
+		return sources.get(0);
+	}
+
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.refresh;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.cloud.nacos.NacosConfigManager;
+import com.alibaba.cloud.nacos.NacosConfigProperties;
+import com.alibaba.cloud.nacos.NacosPropertySourceRepository;
+import com.alibaba.cloud.nacos.client.NacosPropertySource;
+import com.alibaba.cloud.nacos.client.NacosSharedSources;
+import com.alibaba.nacos.api.config.ConfigService;
+import com.alibaba.nacos.api.config.listener.Listener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.endpoint.event.RefreshEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.support.GenericApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author chengrui
+ */
+public class NacosContextRefresherTests {
+
+	private final GenericApplicationContext context = new GenericApplicationContext();
+
+	private final List<RefreshEvent> events = new CopyOnWriteArrayList<>();
+
+	private final NacosConfigProperties properties = new NacosConfigProperties();
+
+	private final ConfigService configService = mock(ConfigService.class);
+
+	private NacosContextRefresher refresher;
+
+	@BeforeEach
+	public void setUp() {
+		context.addApplicationListener((ApplicationListener<RefreshEvent>) events::add);
+		context.refresh();
+		NacosConfigManager configManager = mock(NacosConfigManager.class);
+		when(configManager.getNacosConfigProperties()).thenReturn(properties);
+		when(configManager.getConfigService()).thenReturn(configService);
+		refresher = new NacosContextRefresher(configManager, new NacosRefreshHistory());
+		refresher.setApplicationContext(context);
+		NacosPropertySourceRepository.collectNacosPropertySource(
+				new NacosPropertySource(Collections.emptyList(), "DEFAULT_GROUP",
+						"refresher-a.properties", new Date(), true));
+		NacosPropertySourceRepository.collectNacosPropertySource(
+				new NacosPropertySource(Collections.emptyList(), "DEFAULT_GROUP",
+						"refresher-b.properties", new Date(), true));
+	}
+
+	@AfterEach
+	public void tearDown() {
+		refresher.destroy();
+		context.close();
+	}
+
+	@Test
+	public void testEveryChangeRefreshesWithoutDebounce() throws Exception {
+		refresher.onApplicationEvent(mock(ApplicationReadyEvent.class));
+
+		listenerOf("refresher-a.properties").receiveConfigInfo("a=1");
+		listenerOf("refresher-b.properties").receiveConfigInfo("b=1");
+
+		assertThat(events).hasSize(2);
+	}
+
+	@Test
+	public void testChangesWithinWindowAreMerged() throws Exception {
+		properties.setRefreshDebounceWindow(200);
+		long collapsed = NacosContextRefresher.getCollapsedRefreshCount();
+		refresher.onApplicationEvent(mock(ApplicationReadyEvent.class));
+
+		listenerOf("refresher-a.properties").receiveConfigInfo("a=1");
+		listenerOf("refresher-b.properties").receiveConfigInfo("b=1");
+		listenerOf("refresher-a.properties").receiveConfigInfo("a=2");
+		assertThat(events).isEmpty();
+
+		awaitEvents(1);
+		TimeUnit.MILLISECONDS.sleep(300);
+		assertThat(events).hasSize(1);
+		assertThat(NacosContextRefresher.getCollapsedRefreshCount() - collapsed)
+				.isEqualTo(2);
+	}
+
+	@Test
+	public void testMaxDelayBoundsTheWindow() throws Exception {
+		properties.setRefreshDebounceWindow(5000);
+		properties.setRefreshMaxDelay(100);
+		refresher.onApplicationEvent(mock(ApplicationReadyEvent.class));
+
+		listenerOf("refresher-a.properties").receiveConfigInfo("a=1");
+
+		awaitEvents(1);
+		assertThat(events).hasSize(1);
+	}
+
+	@Test
+	public void testAsyncRegistrationHoldsReadiness() throws Exception {
+		properties.setAsyncListenerRegistration(true);
+		List<ReadinessState> states = new CopyOnWriteArrayList<>();
+		context.addApplicationListener(
+				(ApplicationListener<AvailabilityChangeEvent<ReadinessState>>) event -> states
+						.add(event.getState()));
+		CountDownLatch registering = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		doAnswer(invocation -> {
+			registering.countDown();
+			release.await(3, TimeUnit.SECONDS);
+			return null;
+		}).when(configService).addListener(eq("refresher-a.properties"), anyString(),
+				any(Listener.class));
+
+		refresher.onApplicationEvent(mock(ApplicationReadyEvent.class));
+		assertThat(registering.await(3, TimeUnit.SECONDS)).isTrue();
+		AvailabilityChangeEvent.publish(context, ReadinessState.ACCEPTING_TRAFFIC);
+		assertThat(states).containsExactly(ReadinessState.ACCEPTING_TRAFFIC,
+				ReadinessState.REFUSING_TRAFFIC);
+
+		release.countDown();
+		long deadline = System.currentTimeMillis() + 3000;
+		while (states.size() < 3 && System.currentTimeMillis() < deadline) {
+			TimeUnit.MILLISECONDS.sleep(10);
+		}
+		assertThat(states).containsExactly(ReadinessState.ACCEPTING_TRAFFIC,
+				ReadinessState.REFUSING_TRAFFIC, ReadinessState.ACCEPTING_TRAFFIC);
+		listenerOf("refresher-b.properties").receiveConfigInfo("b=1");
+		assertThat(events).hasSize(1);
+	}
+
+	@Test
+	public void testSameDataIdFromTwoClientsIsListenedOnEach() throws Exception {
+		ConfigService first = mock(ConfigService.class);
+		ConfigService second = mock(ConfigService.class);
+		NacosConfigManager.bindConfigService("refresher-shared.properties",
+				"DEFAULT_GROUP", "first", first);
+		NacosConfigManager.bindConfigService("refresher-shared.properties",
+				"DEFAULT_GROUP", "second", second);
+		NacosPropertySourceRepository.collectNacosPropertySource(
+				NacosSharedSources.create("refresher-shared.properties",
+						"DEFAULT_GROUP", "a=1", null, true, "first"));
+		NacosPropertySourceRepository.collectNacosPropertySource(
+				NacosSharedSources.create("refresher-shared.properties",
+						"DEFAULT_GROUP", "a=2", null, true, "second"));
+
+		assertThat(NacosPropertySourceRepository
+				.getNacosPropertySource("refresher-shared.properties", "DEFAULT_GROUP",
+						"first")
+				.getProperty("a")).isEqualTo("1");
+		assertThat(NacosPropertySourceRepository
+				.getNacosPropertySource("refresher-shared.properties", "DEFAULT_GROUP",
+						"second")
+				.getProperty("a")).isEqualTo("2");
+		assertThat(NacosConfigManager.getBoundConfigService(
+				"refresher-shared.properties", "DEFAULT_GROUP", "second"))
+						.isSameAs(second);
+
+		refresher.onApplicationEvent(mock(ApplicationReadyEvent.class));
+
+		verify(configService, never()).addListener(eq("refresher-shared.properties"),
+				anyString(), any(Listener.class));
+		listenerOf(second, "refresher-shared.properties").receiveConfigInfo("a=3");
+		listenerOf(first, "refresher-shared.properties").receiveConfigInfo("a=4");
+		assertThat(events).hasSize(2);
+	}
+
+	@Test
+	public void testChangeListenersAreKeptPerClient() throws Exception {
+		ConfigService other = mock(ConfigService.class);
+		NacosConfigManager.bindConfigService("refresher-raw.properties",
+				"DEFAULT_GROUP", "raw-other", other);
+		List<String> received = new CopyOnWriteArrayList<>();
+		refresher.addChangeListener("refresher-raw.properties", "DEFAULT_GROUP",
+				(dataId, group, configInfo) -> received.add("default:" + configInfo));
+		refresher.addChangeListener("refresher-raw.properties", "DEFAULT_GROUP",
+				"raw-other",
+				(dataId, group, configInfo) -> received.add("other:" + configInfo));
+
+		refresher.onApplicationEvent(mock(ApplicationReadyEvent.class));
+		listenerOf(other, "refresher-raw.properties").receiveConfigInfo("a=1");
+		listenerOf("refresher-raw.properties").receiveConfigInfo("a=2");
+
+		assertThat(received).containsExactly("other:a=1", "default:a=2");
+		assertThat(events).isEmpty();
+	}
+
+	private Listener listenerOf(String dataId) throws Exception {
+		return listenerOf(configService, dataId);
+	}
+
+	private Listener listenerOf(ConfigService configService, String dataId)
+			throws Exception {
+		ArgumentCaptor<Listener> captor = ArgumentCaptor.forClass(Listener.class);
+		verify(configService).addListener(eq(dataId), anyString(), captor.capture());
+		return captor.getValue();
+	}
+
+	private void awaitEvents(int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 3000;
+		while (events.size() < count && System.currentTimeMillis() < deadline) {
+			TimeUnit.MILLISECONDS.sleep(10);
+		}
+	}
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.refresh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.cloud.nacos.NacosConfigProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author chengrui
+ */
+public class NacosListenerExecutorTests {
+
+	private NacosListenerExecutor executor;
+
+	@AfterEach
+	public void tearDown() {
+		if (executor != null) {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testNoExecutorByDefault() {
+		assertThat(NacosListenerExecutor.create(new NacosConfigProperties())).isNull();
+	}
+
+	@Test
+	public void testChangesOfOneDataIdKeepTheirOrder() throws Exception {
+		NacosConfigProperties properties = new NacosConfigProperties();
+		properties.setRefreshExecutorThreads(4);
+		executor = NacosListenerExecutor.create(properties);
+		List<Integer> handled = new ArrayList<>();
+		CountDownLatch latch = new CountDownLatch(200);
+		Executor serial = executor.forKey("app.properties+DEFAULT_GROUP");
+		for (int i = 0; i < 200; i++) {
+			int change = i;
+			serial.execute(() -> {
+				handled.add(change);
+				latch.countDown();
+			});
+		}
+
+		assertThat(latch.await(3, TimeUnit.SECONDS)).isTrue();
+		for (int i = 0; i < 200; i++) {
+			assertThat(handled.get(i)).isEqualTo(i);
+		}
+	}
+
+	@Test
+	public void testNotifyThreadWaitsWhenQueueIsFull() throws Exception {
+		executor = new NacosListenerExecutor(Executors.newFixedThreadPool(1), 2);
+		CountDownLatch release = new CountDownLatch(1);
+		Executor serial = executor.forKey("app.properties+DEFAULT_GROUP");
+		Runnable slow = () -> {
+			try {
+				release.await(3, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		};
+		serial.execute(slow);
+		serial.execute(slow);
+
+		CountDownLatch submitted = new CountDownLatch(1);
+		Thread notifyThread = new Thread(() -> {
+			serial.execute(() -> {
+			});
+			submitted.countDown();
+		});
+		notifyThread.start();
+		assertThat(submitted.await(200, TimeUnit.MILLISECONDS)).isFalse();
+
+		release.countDown();
+		assertThat(submitted.await(3, TimeUnit.SECONDS)).isTrue();
+	}
+
+}
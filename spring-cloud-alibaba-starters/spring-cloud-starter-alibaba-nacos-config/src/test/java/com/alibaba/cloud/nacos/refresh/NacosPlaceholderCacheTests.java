@@ -0,0 +1,130 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.refresh;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.alibaba.cloud.nacos.client.NacosPropertySource;
+import com.alibaba.cloud.nacos.client.NacosSharedSources;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.RandomValuePropertySource;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * @author chengrui
+ */
+public class NacosPlaceholderCacheTests {
+
+	private final StandardEnvironment environment = new StandardEnvironment();
+
+	private final Map<String, Object> local = new HashMap<>();
+
+	private final NacosPlaceholderCache cache = new NacosPlaceholderCache();
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		local.put("b", "1");
+		local.put("plain", "${b}");
+		environment.getPropertySources()
+				.addLast(NacosSharedSources.create("placeholder.properties",
+						"DEFAULT_GROUP", "a=${b}-x\nc=${a}-y\nd=${missing}\n"
+								+ "x=${y}\ny=${x}\nshadowed=${b}\n"
+								+ "uuid=${random.uuid}\nnested=${uuid}-z",
+						"properties", true));
+		environment.getPropertySources().addLast(new MapPropertySource("local", local));
+		environment.getPropertySources().addLast(new RandomValuePropertySource());
+		environment.getPropertySources().addFirst(new MapPropertySource("override",
+				Collections.singletonMap("shadowed", "${b}-override")));
+		cache.setEnvironment(environment);
+		cache.afterPropertiesSet();
+	}
+
+	@Test
+	public void testResolvedValuesAreCachedUntilEnvironmentChange() {
+		assertThat(environment.getProperty("c")).isEqualTo("1-x-y");
+		long resolutions = cache.getResolutionCount();
+		assertThat(environment.getProperty("c")).isEqualTo("1-x-y");
+		assertThat(environment.getProperty("a")).isEqualTo("1-x");
+		assertThat(cache.getResolutionCount()).isEqualTo(resolutions);
+		assertThat(cache.getHitCount()).isPositive();
+
+		local.put("b", "2");
+		assertThat(environment.getProperty("c")).isEqualTo("1-x-y");
+		cache.onApplicationEvent(new EnvironmentChangeEvent(Collections.singleton("b")));
+		assertThat(environment.getProperty("c")).isEqualTo("2-x-y");
+	}
+
+	@Test
+	public void testRandomValuesAreNotCached() {
+		assertThat(environment.getProperty("uuid"))
+				.isNotEqualTo(environment.getProperty("uuid"));
+		assertThat(environment.getProperty("nested"))
+				.isNotEqualTo(environment.getProperty("nested")).endsWith("-z");
+		assertThat(cache.getHitCount()).isZero();
+		// the other values are still cached.
+		assertThat(environment.getProperty("c")).isEqualTo("1-x-y");
+		assertThat(environment.getProperty("c")).isEqualTo("1-x-y");
+		assertThat(cache.getHitCount()).isPositive();
+	}
+
+	@Test
+	public void testOtherPropertySourcesAreNotCached() {
+		assertThat(environment.getProperty("plain")).isEqualTo("1");
+		assertThat(environment.getProperty("shadowed")).isEqualTo("1-override");
+		assertThat(cache.getResolutionCount()).isZero();
+	}
+
+	@Test
+	public void testKeysHoldingPlaceholdersAreCollectedOnEnvironmentChange()
+			throws Exception {
+		NacosPropertySource refreshed = NacosSharedSources.create(
+				"placeholder.properties", "DEFAULT_GROUP", "a=${b}-x\ne=${a}-z",
+				"properties", true);
+		environment.getPropertySources().replace(refreshed.getName(), refreshed);
+		// only the nested "a" was collected when the cache was attached.
+		assertThat(environment.getProperty("e")).isEqualTo("1-x-z");
+		assertThat(cache.getResolutionCount()).isEqualTo(1);
+
+		cache.onApplicationEvent(new EnvironmentChangeEvent(Collections.singleton("e")));
+		assertThat(environment.getProperty("e")).isEqualTo("1-x-z");
+		assertThat(environment.getProperty("e")).isEqualTo("1-x-z");
+		assertThat(environment.getProperty("c")).isNull();
+		assertThat(cache.getResolutionCount()).isEqualTo(3);
+	}
+
+	@Test
+	public void testUnresolvablePlaceholdersAreStillReported() {
+		ConfigurationPropertySources.attach(environment);
+
+		assertThat(environment.getProperty("a")).isEqualTo("1-x");
+		assertThatIllegalArgumentException()
+				.isThrownBy(() -> environment.getProperty("d"));
+		assertThatIllegalArgumentException()
+				.isThrownBy(() -> environment.getProperty("x"));
+	}
+
+}
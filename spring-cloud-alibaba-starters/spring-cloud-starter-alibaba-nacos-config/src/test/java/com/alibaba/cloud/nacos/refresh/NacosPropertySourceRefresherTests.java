@@ -0,0 +1,233 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.refresh;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import com.alibaba.cloud.nacos.NacosPropertySourceRepository;
+import com.alibaba.cloud.nacos.client.NacosPropertySource;
+import com.alibaba.cloud.nacos.client.NacosShardedConfig;
+import com.alibaba.cloud.nacos.client.NacosSharedSources;
+import com.alibaba.cloud.nacos.parser.NacosDataParserHandler;
+import com.alibaba.nacos.api.config.ConfigService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.bootstrap.config.BootstrapPropertySource;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.env.MutablePropertySources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author chengrui
+ */
+public class NacosPropertySourceRefresherTests {
+
+	private final GenericApplicationContext context = new GenericApplicationContext();
+
+	private final List<EnvironmentChangeEvent> events = new ArrayList<>();
+
+	private final NacosPropertySourceRefresher refresher = new NacosPropertySourceRefresher();
+
+	@BeforeEach
+	public void setUp() {
+		context.addApplicationListener(
+				(ApplicationListener<EnvironmentChangeEvent>) events::add);
+		context.refresh();
+		refresher.setApplicationContext(context);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		context.close();
+	}
+
+	@Test
+	public void testOnlyChangedKeysArePublished() throws Exception {
+		MutablePropertySources propertySources = context.getEnvironment()
+				.getPropertySources();
+		propertySources.addFirst(nacosPropertySource("app.properties", "a=1\nb=2\nc=3"));
+
+		Set<String> keys = refresher.refresh("app.properties", "DEFAULT_GROUP",
+				"a=1\nb=20\nd=4");
+
+		assertThat(keys).containsExactly("b", "d", "c");
+		assertThat(events).hasSize(1);
+		assertThat(events.get(0).getKeys()).containsExactly("b", "d", "c");
+		assertThat(context.getEnvironment().getProperty("b")).isEqualTo("20");
+		assertThat(context.getEnvironment().getProperty("c")).isNull();
+		assertThat(propertySources.get("app.properties,DEFAULT_GROUP"))
+				.isInstanceOf(NacosPropertySource.class);
+	}
+
+	@Test
+	public void testBootstrapPropertySourceIsReplaced() throws Exception {
+		MutablePropertySources propertySources = context.getEnvironment()
+				.getPropertySources();
+		propertySources.addFirst(new BootstrapPropertySource<>(
+				nacosPropertySource("app.yaml", "a:\n  b: 1")));
+
+		Set<String> keys = refresher.refresh("app.yaml", "DEFAULT_GROUP", "a:\n  b: 2");
+
+		assertThat(keys).containsExactly("a.b");
+		assertThat(context.getEnvironment().getProperty("a.b")).isEqualTo("2");
+		assertThat(propertySources.get("bootstrapProperties-app.yaml,DEFAULT_GROUP"))
+				.isInstanceOf(BootstrapPropertySource.class);
+	}
+
+	@Test
+	public void testUnchangedContentPublishesNothing() throws Exception {
+		context.getEnvironment().getPropertySources()
+				.addFirst(nacosPropertySource("app.properties", "a=1"));
+
+		assertThat(refresher.refresh("app.properties", "DEFAULT_GROUP", "a=1"))
+				.isEmpty();
+		assertThat(events).isEmpty();
+	}
+
+	@Test
+	public void testOnlyThePropertySourceOfTheChangedClientIsReplaced()
+			throws Exception {
+		MutablePropertySources propertySources = context.getEnvironment()
+				.getPropertySources();
+		propertySources.addLast(NacosSharedSources.create("app.properties",
+				"DEFAULT_GROUP", "a=1", null, true, "first"));
+		propertySources.addLast(NacosSharedSources.create("app.properties",
+				"DEFAULT_GROUP", "a=2\nb=2", null, true, "second"));
+
+		Set<String> keys = refresher.refresh("app.properties", "DEFAULT_GROUP",
+				"second", "a=2\nb=3");
+
+		assertThat(keys).containsExactly("b");
+		assertThat(propertySources.get("app.properties,DEFAULT_GROUP,first")
+				.getProperty("a")).isEqualTo("1");
+		assertThat(propertySources.get("app.properties,DEFAULT_GROUP,second")
+				.getProperty("b")).isEqualTo("3");
+		assertThat(refresher.refresh("app.properties", "DEFAULT_GROUP", "a=5"))
+				.isNull();
+	}
+
+	@Test
+	public void testUnknownDataIdRequiresFullRefresh() throws Exception {
+		assertThat(refresher.refresh("other.properties", "DEFAULT_GROUP", "a=1"))
+				.isNull();
+		assertThat(events).isEmpty();
+	}
+
+	@Test
+	public void testImportedDocumentsAreSwappedAsAGroup() throws Exception {
+		String content = "a: 1\n---\nspring.config.activate.on-profile: dev\nb: 1\n"
+				+ "---\nc: 1";
+		List<NacosPropertySource> documents = NacosSharedSources.createDocuments(
+				"app.yaml", "DEFAULT_GROUP", content, null, true, null);
+		assertThat(documents).hasSize(3);
+		// a later document has higher precedence, the inactive one is not imported.
+		MutablePropertySources propertySources = context.getEnvironment()
+				.getPropertySources();
+		propertySources.addFirst(documents.get(0));
+		propertySources.addFirst(documents.get(2));
+
+		Set<String> keys = refresher.refresh("app.yaml", "DEFAULT_GROUP",
+				content.replace("a: 1", "a: 2").replace("b: 1", "b: 2"));
+
+		assertThat(keys).containsExactly("a");
+		assertThat(context.getEnvironment().getProperty("a")).isEqualTo("2");
+		assertThat(context.getEnvironment().getProperty("b")).isNull();
+		assertThat(propertySources.get(documents.get(2).getName()))
+				.isNotSameAs(documents.get(2));
+		assertThat(NacosPropertySourceRepository
+				.getNacosPropertySource("app.yaml", "DEFAULT_GROUP").getProperty("b"))
+						.isEqualTo(2);
+		// an activated document is only imported by a full refresh.
+		assertThat(refresher.refresh("app.yaml", "DEFAULT_GROUP",
+				content.replace("spring.config.activate.on-profile: dev\n", "")))
+						.isNull();
+	}
+
+	@Test
+	public void testChangedShardIsMergedIntoItsManifest() throws Exception {
+		ConfigService configService = mock(ConfigService.class);
+		when(configService.getConfig(eq("limits"), eq("DEFAULT_GROUP"), anyLong()))
+				.thenReturn("limits-0\nlimits-1");
+		when(configService.getConfig(eq("limits-0"), eq("DEFAULT_GROUP"), anyLong()))
+				.thenReturn("a=1");
+		when(configService.getConfig(eq("limits-1"), eq("DEFAULT_GROUP"), anyLong()))
+				.thenReturn("b=1");
+		context.getEnvironment().getPropertySources()
+				.addFirst(NacosShardedConfig.load(configService, "limits",
+						"DEFAULT_GROUP", "properties", true, 3000));
+
+		Set<String> keys = refresher.refresh("limits-1", "DEFAULT_GROUP", "b=2");
+
+		assertThat(keys).containsExactly("b");
+		assertThat(context.getEnvironment().getProperty("a")).isEqualTo("1");
+		assertThat(context.getEnvironment().getProperty("b")).isEqualTo("2");
+		assertThat(refresher.refresh("limits", "DEFAULT_GROUP", "limits-0")).isNull();
+	}
+
+	@Test
+	public void testChangedShardIsDiffedAgainstEachContext() throws Exception {
+		ConfigService configService = mock(ConfigService.class);
+		when(configService.getConfig(eq("quotas"), eq("DEFAULT_GROUP"), anyLong()))
+				.thenReturn("quotas-0\nquotas-1");
+		when(configService.getConfig(eq("quotas-0"), eq("DEFAULT_GROUP"), anyLong()))
+				.thenReturn("a=1");
+		when(configService.getConfig(eq("quotas-1"), eq("DEFAULT_GROUP"), anyLong()))
+				.thenReturn("b=1");
+		NacosPropertySource loaded = NacosShardedConfig.load(configService, "quotas",
+				"DEFAULT_GROUP", "properties", true, 3000);
+		context.getEnvironment().getPropertySources().addFirst(loaded);
+		GenericApplicationContext other = new GenericApplicationContext();
+		other.refresh();
+		other.getEnvironment().getPropertySources().addFirst(loaded);
+		NacosPropertySourceRefresher otherRefresher = new NacosPropertySourceRefresher();
+		otherRefresher.setApplicationContext(other);
+
+		try {
+			assertThat(refresher.refresh("quotas-1", "DEFAULT_GROUP", "b=2"))
+					.containsExactly("b");
+			// the shared sharded config already holds the new shard.
+			assertThat(otherRefresher.refresh("quotas-1", "DEFAULT_GROUP", "b=2"))
+					.containsExactly("b");
+			assertThat(other.getEnvironment().getProperty("b")).isEqualTo("2");
+			assertThat(other.getEnvironment().getProperty("a")).isEqualTo("1");
+		}
+		finally {
+			other.close();
+		}
+	}
+
+	private NacosPropertySource nacosPropertySource(String dataId, String content)
+			throws Exception {
+		return new NacosPropertySource(
+				NacosDataParserHandler.getInstance().parseNacosData(dataId, content,
+						null),
+				"DEFAULT_GROUP", dataId, new Date(), true, null);
+	}
+
+}
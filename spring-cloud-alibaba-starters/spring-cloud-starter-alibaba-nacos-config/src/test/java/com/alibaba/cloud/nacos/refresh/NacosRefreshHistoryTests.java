@@ -0,0 +1,95 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.refresh;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.LinkedList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author chengrui
+ */
+public class NacosRefreshHistoryTests {
+
+	private final NacosRefreshHistory history = new NacosRefreshHistory();
+
+	@Test
+	public void testKeepsLatestRecordsNewestFirst() {
+		for (int i = 0; i < 25; i++) {
+			history.addRefreshRecord("data-" + i, "DEFAULT_GROUP", "a=" + i);
+		}
+
+		LinkedList<NacosRefreshHistory.Record> records = history.getRecords();
+
+		assertThat(records).hasSize(20);
+		assertThat(records.getFirst().getDataId()).isEqualTo("data-24");
+		assertThat(records.getLast().getDataId()).isEqualTo("data-5");
+	}
+
+	@Test
+	public void testRecordCarriesRefreshOutcome() throws Exception {
+		StringBuilder large = new StringBuilder();
+		for (int i = 0; i < 5000; i++) {
+			large.append("key.").append(i).append("=中文值").append(i).append('\n');
+		}
+		history.addRefreshRecord("app.properties", "DEFAULT_GROUP", large.toString(),
+				System.currentTimeMillis(), 3, 5, 42);
+
+		NacosRefreshHistory.Record record = history.getRecords().getFirst();
+
+		assertThat(record.getMd5()).isEqualTo(md5(large.toString()));
+		assertThat(record.getChangedKeys()).isEqualTo(3);
+		assertThat(record.getParseTime()).isEqualTo(5);
+		assertThat(record.getRefreshDuration()).isEqualTo(42);
+	}
+
+	@Test
+	public void testSnapshotWhileWriting() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		CountDownLatch latch = new CountDownLatch(4);
+		for (int t = 0; t < 4; t++) {
+			executor.execute(() -> {
+				for (int i = 0; i < 2000; i++) {
+					history.addRefreshRecord("data-" + i, "DEFAULT_GROUP", "a=" + i);
+				}
+				latch.countDown();
+			});
+		}
+		while (latch.getCount() > 0) {
+			assertThat(history.getRecords().size()).isLessThanOrEqualTo(20);
+		}
+		executor.shutdown();
+		assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(history.getRecords()).hasSize(20);
+	}
+
+	private static String md5(String data) throws Exception {
+		byte[] digest = MessageDigest.getInstance("MD5")
+				.digest(data.getBytes(StandardCharsets.UTF_8));
+		return String.format("%032x", new BigInteger(1, digest));
+	}
+
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2013-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.nacos.view;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.alibaba.cloud.nacos.NacosConfigManager;
+import com.alibaba.cloud.nacos.NacosConfigProperties;
+import com.alibaba.cloud.nacos.refresh.NacosContextRefresher;
+import com.alibaba.cloud.nacos.refresh.NacosRefreshHistory;
+import com.alibaba.nacos.api.config.ConfigService;
+import com.alibaba.nacos.api.config.listener.Listener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.endpoint.event.RefreshEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.support.GenericApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author chengrui
+ */
+public class NacosConfigViewManagerTests {
+
+	private final GenericApplicationContext context = new GenericApplicationContext();
+
+	private final List<RefreshEvent> events = new CopyOnWriteArrayList<>();
+
+	private final ConfigService configService = mock(ConfigService.class);
+
+	private NacosContextRefresher refresher;
+
+	private NacosConfigViewManager manager;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		context.addApplicationListener((ApplicationListener<RefreshEvent>) events::add);
+		context.refresh();
+		NacosConfigManager configManager = mock(NacosConfigManager.class);
+		when(configManager.getNacosConfigProperties())
+				.thenReturn(new NacosConfigProperties());
+		when(configManager.getConfigService()).thenReturn(configService);
+		when(configService.getConfig(eq("flags.properties"), eq("DEFAULT_GROUP"),
+				anyLong())).thenReturn("feature.enabled=true\nfeature.limit=10");
+		refresher = new NacosContextRefresher(configManager, new NacosRefreshHistory());
+		refresher.setApplicationContext(context);
+		manager = new NacosConfigViewManager(configManager, refresher,
+				context.getEnvironment());
+	}
+
+	@AfterEach
+	public void tearDown() {
+		manager.destroy();
+		refresher.destroy();
+		context.close();
+	}
+
+	@Test
+	public void testViewFollowsChanges() throws Exception {
+		NacosConfigView<FeatureFlags> view = manager.bind("flags.properties",
+				"DEFAULT_GROUP", "feature", FeatureFlags.class);
+		assertThat(view.get().isEnabled()).isTrue();
+		assertThat(view.get().getLimit()).isEqualTo(10);
+
+		CountDownLatch latch = new CountDownLatch(1);
+		AtomicReference<String> callbackThread = new AtomicReference<>();
+		view.addChangeListener((previous, current) -> {
+			callbackThread.set(Thread.currentThread().getName());
+			latch.countDown();
+		});
+		refresher.onApplicationEvent(mock(ApplicationReadyEvent.class));
+		listenerOf("flags.properties").receiveConfigInfo(
+				"feature.enabled=false\nfeature.limit=20");
+
+		// the change is parsed and bound off the notify thread.
+		assertThat(latch.await(3, TimeUnit.SECONDS)).isTrue();
+		assertThat(view.get().isEnabled()).isFalse();
+		assertThat(view.get().getLimit()).isEqualTo(20);
+		assertThat(callbackThread.get())
+				.startsWith("com.alibaba.cloud.nacos.view.listener");
+		// the dataId is not part of the environment, nothing to refresh.
+		assertThat(events).isEmpty();
+	}
+
+	@Test
+	public void testBindWholeDataIdAfterReady() throws Exception {
+		refresher.onApplicationEvent(mock(ApplicationReadyEvent.class));
+		NacosConfigView<FeatureHolder> view = manager.bind("flags.properties",
+				FeatureHolder.class);
+		assertThat(view.get().getFeature().getLimit()).isEqualTo(10);
+		CountDownLatch latch = new CountDownLatch(1);
+		view.addChangeListener((previous, current) -> latch.countDown());
+
+		listenerOf("flags.properties").receiveConfigInfo("feature.limit=30");
+
+		assertThat(latch.await(3, TimeUnit.SECONDS)).isTrue();
+		assertThat(view.get().getFeature().getLimit()).isEqualTo(30);
+		assertThat(view.get().getFeature().isEnabled()).isFalse();
+	}
+
+	private Listener listenerOf(String dataId) throws Exception {
+		ArgumentCaptor<Listener> captor = ArgumentCaptor.forClass(Listener.class);
+		verify(configService).addListener(eq(dataId), anyString(), captor.capture());
+		return captor.getValue();
+	}
+
+	public static class FeatureFlags {
+
+		private final boolean enabled;
+
+		private final int limit;
+
+		public FeatureFlags(boolean enabled, int limit) {
+			this.enabled = enabled;
+			this.limit = limit;
+		}
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public int getLimit() {
+			return limit;
+		}
+
+	}
+
+	public static class FeatureHolder {
+
+		private final Feature feature = new Feature();
+
+		public Feature getFeature() {
+			return feature;
+		}
+
+	}
+
+	public static class Feature {
+
+		private boolean enabled;
+
+		private int limit;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getLimit() {
+			return limit;
+		}
+
+		public void setLimit(int limit) {
+			this.limit = limit;
+		}
+
+	}
+
+}
@@ -16,6 +16,8 @@
 
 package com.alibaba.cloud.nacos.registry;
 
+import java.util.concurrent.TimeUnit;
+
 import com.alibaba.cloud.commons.lang.StringUtils;
 import com.alibaba.cloud.nacos.event.NacosDiscoveryInfoChangedEvent;
 import org.slf4j.Logger;
@@ -25,7 +27,11 @@ import org.springframework.cloud.client.serviceregistry.AbstractAutoServiceRegis
 import org.springframework.cloud.client.serviceregistry.AutoServiceRegistrationProperties;
 import org.springframework.cloud.client.serviceregistry.Registration;
 import org.springframework.cloud.client.serviceregistry.ServiceRegistry;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.util.Assert;
 
 /**
@@ -75,7 +81,26 @@ public class NacosAutoServiceRegistration
 		if (this.registration.getPort() < 0) {
 			this.registration.setPort(getPort().get());
 		}
-		super.register();
+		StartupStep step = getApplicationStartup()
+				.start("spring.cloud.nacos.discovery.register")
+				.tag("service", this.registration.getServiceId());
+		long start = System.nanoTime();
+		try {
+			super.register();
+		}
+		finally {
+			step.end();
+			log.debug("Nacos registration of {} took {} ms",
+					this.registration.getServiceId(),
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		}
+	}
+
+	private ApplicationStartup getApplicationStartup() {
+		ApplicationContext context = getContext();
+		return context instanceof ConfigurableApplicationContext
+				? ((ConfigurableApplicationContext) context).getApplicationStartup()
+				: ApplicationStartup.DEFAULT;
 	}
 
 	@Override